@@ -0,0 +1,26 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for alert grouping by fingerprint and resolution (anomaly.alert.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.alert")
+public class AlertLifecycleProperties {
+
+    // An open alert that was not raised again for this long is resolved
+    private Duration resolveAfter = Duration.ofMinutes(10);
+
+    // A resolved alert raised again within this window is reopened instead of inserted
+    private Duration reopenWindow = Duration.ofMinutes(30);
+
+    // Reopens after which an alert counts as flapping
+    private int flapThreshold = 3;
+
+    // Flapping alerts must stay quiet this many times longer before they resolve
+    private int flappingResolveMultiplier = 3;
+}
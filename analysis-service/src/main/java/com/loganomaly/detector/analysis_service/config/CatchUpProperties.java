@@ -0,0 +1,28 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Degraded catch-up mode while the consumer is far behind (analysis.catch-up.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.catch-up")
+public class CatchUpProperties {
+
+    private boolean enabled = true;
+
+    // Enter catch-up mode when records are on average older than this when processed
+    private Duration enterLag = Duration.ofMinutes(2);
+
+    // Leave it again only once the lag is below this (hysteresis)
+    private Duration exitLag = Duration.ofSeconds(15);
+
+    // Share of DEBUG/INFO events still stored while catching up
+    private double lowLevelSampleRate = 0.01;
+
+    // Weight of the newest record in the smoothed lag (1.0 = no smoothing)
+    private double lagSmoothing = 0.05;
+}
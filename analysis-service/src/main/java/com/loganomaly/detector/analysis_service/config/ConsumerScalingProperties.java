@@ -0,0 +1,33 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the lag-driven listener scaling (analysis.scaling.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.scaling")
+public class ConsumerScalingProperties {
+
+    private boolean enabled = false;
+
+    // Listener container concurrency bounds (never above the partition count)
+    private int minConcurrency = 1;
+    private int maxConcurrency = 4;
+
+    // max.poll.records bounds; the batch size follows the concurrency between them
+    private int minPollRecords = 100;
+    private int maxPollRecords = 1000;
+
+    // Scale up when the lag would take longer than this to drain at the measured rate
+    private Duration targetDrainTime = Duration.ofMinutes(1);
+
+    // Scale down once the total lag stays below this
+    private long scaleDownLag = 1_000;
+
+    // Minimum time between two scaling decisions (each one restarts the container)
+    private Duration cooldown = Duration.ofMinutes(2);
+}
@@ -0,0 +1,26 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Event-time processing settings (anomaly.event-time.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.event-time")
+public class EventTimeProperties {
+
+    // How far events may arrive out of order within a partition
+    private Duration maxOutOfOrderness = Duration.ofSeconds(10);
+
+    // How long a window accepts late events after the watermark passed its end
+    private Duration allowedLateness = Duration.ofMinutes(1);
+
+    // Partitions without events for this long no longer hold the watermark back
+    private Duration idlePartitionTimeout = Duration.ofMinutes(1);
+
+    // Event timestamps further ahead of the clock are clamped (producer clock skew)
+    private Duration maxFutureSkew = Duration.ofMinutes(1);
+}
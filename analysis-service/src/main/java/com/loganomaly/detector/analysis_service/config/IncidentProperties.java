@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for grouping related alerts into incidents (anomaly.incident.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.incident")
+public class IncidentProperties {
+
+    private boolean enabled = true;
+
+    // Alerts are linked only to alerts of the same incident raised within this window
+    private Duration window = Duration.ofMinutes(10);
+
+    // Link alerts of the same service / alerts sharing a message template
+    private boolean linkByService = true;
+    private boolean linkByTemplate = true;
+
+    // Templates from the alert context used as link keys
+    private int maxTemplatesPerAlert = 5;
+
+    // Alerts held for correlation; beyond this new alerts get no incident until the next sweep
+    private int maxTrackedAlerts = 50_000;
+}
@@ -0,0 +1,25 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.service.StreamsAnalysisTopology;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+/**
+ * Kafka Streams engine, enabled with analysis.engine=streams.
+ * Application id, state directory and threads come from spring.kafka.streams.*.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "analysis.engine", havingValue = "streams")
+public class KafkaStreamsConfig {
+
+    @Bean
+    public KStream<String, LogEvent> analysisStream(StreamsBuilder builder, StreamsAnalysisTopology topology) {
+        return topology.build(builder);
+    }
+}
@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import com.loganomaly.detector.analysis_service.service.ParallelLogConsumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Batch listener container for analysis.consumer.mode=parallel.
+ * Offsets are committed by the ParallelLogConsumer itself, never by the container.
+ */
+@Configuration
+@ConditionalOnProperty(name = "analysis.consumer.mode", havingValue = "parallel")
+public class ParallelConsumerConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> parallelListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory, ParallelLogConsumer parallelLogConsumer) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(parallelLogConsumer);
+        return factory;
+    }
+}
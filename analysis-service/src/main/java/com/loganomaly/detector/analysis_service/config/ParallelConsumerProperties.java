@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Kafka consumption settings of the listener engine (analysis.consumer.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.consumer")
+public class ParallelConsumerProperties {
+
+    // "record" processes each partition serially, "parallel" runs key-ordered lanes per partition
+    private String mode = "record";
+
+    // Lanes per partition; events of one service always share a lane and stay in order
+    private int maxConcurrencyPerPartition = 8;
+
+    // Worker threads shared by all lanes
+    private int poolSize = 16;
+
+    // Polled records not yet completed per partition before the listener waits for its lanes
+    private int maxInFlightPerPartition = 1000;
+
+    // How long a revoked partition may take to finish its in-flight records
+    private Duration drainTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,23 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Daily partitions of log_events (analysis.partitions.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.partitions")
+public class PartitionProperties {
+
+    // Requires the partitioned schema (Flyway migrations on PostgreSQL)
+    private boolean enabled = true;
+
+    // Days ahead of today that always have a partition
+    private int premakeDays = 7;
+
+    // Lock wait for partition DDL, so maintenance gives way to running queries
+    private Duration lockTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,24 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How consumed log events are written to log_events (analysis.persistence.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.persistence")
+public class PersistenceProperties {
+
+    // "jpa" (one save per event) or "copy" (buffered, binary COPY with an idempotent merge)
+    private String mode = "jpa";
+
+    // Copy mode: events buffered before a flush is forced on the adding thread
+    private int maxBufferedEvents = 50_000;
+
+    // Service name <-> id pairs cached by the ServiceDirectory
+    private int serviceCacheSize = 10_000;
+
+    // Hashes of the message bodies written today, kept to skip their upsert into log_messages
+    private int messageCacheSize = 100_000;
+}
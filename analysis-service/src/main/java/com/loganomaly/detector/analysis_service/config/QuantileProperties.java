@@ -0,0 +1,34 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for quantile tracking of numeric metadata (anomaly.quantile.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.quantile")
+public class QuantileProperties {
+
+    private boolean enabled = true;
+
+    // Relative error of reported quantiles
+    private double relativeAccuracy = 0.02;
+
+    // Length of one time bucket
+    private int bucketMinutes = 1;
+
+    // Number of completed buckets merged into the baseline (also the query horizon)
+    private int baselineBuckets = 30;
+
+    // A closed bucket alerts when its p95 or p99 exceeds the baseline by this factor
+    private double shiftFactor = 1.5;
+
+    // Minimum samples in the closed bucket and in the baseline before alerting
+    private long minBucketSamples = 50;
+    private long minBaselineSamples = 500;
+
+    // Caps on tracked (service, key) series
+    private int maxSeries = 500;
+    private int maxKeysPerService = 20;
+}
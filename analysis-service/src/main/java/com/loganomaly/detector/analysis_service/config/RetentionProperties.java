@@ -0,0 +1,76 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retention of log events and alerts (analysis.retention.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.retention")
+public class RetentionProperties {
+
+    private boolean enabled = true;
+
+    // Log events without a level or service override
+    private Duration events = Duration.ofDays(30);
+
+    // Per-level overrides, e.g. analysis.retention.levels.DEBUG=1d
+    private Map<String, Duration> levels = new HashMap<>();
+
+    // Per-service overrides (win over the level), e.g. analysis.retention.services.batch-jobs=3d
+    private Map<String, Duration> services = new HashMap<>();
+
+    // Resolved alerts, counted from their resolution
+    private Duration alerts = Duration.ofDays(90);
+
+    // Event rollups per resolution (DAY rollups are kept), e.g. analysis.retention.rollups.MINUTE=7d
+    private Map<String, Duration> rollups = new HashMap<>(Map.of(
+            "MINUTE", Duration.ofDays(7),
+            "HOUR", Duration.ofDays(90)));
+
+    // Rows per DELETE statement, each in its own transaction
+    private int chunkSize = 5000;
+
+    // Pause after each chunk, so vacuum and replication keep up
+    private Duration chunkPause = Duration.ofMillis(200);
+
+    // Upper bound of rows deleted per run; the rest waits for the next run
+    private long maxRowsPerRun = 500_000;
+
+    // Chunked deletes only run between these times (both unset: any time)
+    private LocalTime windowStart;
+    private LocalTime windowEnd;
+    private ZoneId zone = ZoneId.of("UTC");
+
+    /**
+     * Longest retention of any log event: whole days past it are dropped as partitions
+     */
+    public Duration longest() {
+        Duration longest = events;
+        for (Duration duration : levels.values()) {
+            longest = duration.compareTo(longest) > 0 ? duration : longest;
+        }
+        for (Duration duration : services.values()) {
+            longest = duration.compareTo(longest) > 0 ? duration : longest;
+        }
+        return longest;
+    }
+
+    public boolean inWindow(LocalTime now) {
+        if (windowStart == null || windowEnd == null) {
+            return true;
+        }
+        if (windowStart.isBefore(windowEnd)) {
+            return !now.isBefore(windowStart) && now.isBefore(windowEnd);
+        }
+        // Window across midnight, e.g. 22:00-06:00
+        return !now.isBefore(windowStart) || now.isBefore(windowEnd);
+    }
+}
@@ -0,0 +1,30 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Retry tiers of failing log events (analysis.retry.*), shared by the retry topics
+ * of the record listener and the in-lane retries of the parallel consumer.
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.retry")
+public class RetryProperties {
+
+    // Deliveries including the first one; the last failure goes to the dead-letter topic
+    private int attempts = 4;
+
+    private long delayMillis = 1_000;
+
+    private double multiplier = 4;
+
+    private long maxDelayMillis = 30_000;
+
+    /**
+     * Backoff before the given retry (1 = first retry)
+     */
+    public long delayBefore(int retry) {
+        double delay = delayMillis * Math.pow(multiplier, retry - 1);
+        return (long) Math.min(delay, maxDelayMillis);
+    }
+}
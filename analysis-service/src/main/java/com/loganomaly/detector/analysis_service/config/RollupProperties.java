@@ -0,0 +1,17 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-minute event count rollups and their compaction (analysis.rollups.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.rollups")
+public class RollupProperties {
+
+    private boolean enabled = true;
+
+    // Largest histogram a single request may ask for
+    private int maxBuckets = 5000;
+}
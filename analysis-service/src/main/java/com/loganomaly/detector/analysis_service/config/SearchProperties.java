@@ -0,0 +1,24 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Message search over log events (analysis.search.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "analysis.search")
+public class SearchProperties {
+
+    // Searches running longer are cancelled by PostgreSQL
+    private Duration statementTimeout = Duration.ofSeconds(2);
+
+    // Widest time range of one search, so only a few partitions are scanned
+    private Duration maxRange = Duration.ofDays(7);
+
+    private int defaultLimit = 100;
+
+    private int maxLimit = 1000;
+}
@@ -0,0 +1,38 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.ZoneId;
+import java.util.Set;
+
+/**
+ * Settings for hour-of-week seasonal rate baselines (anomaly.seasonal.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.seasonal")
+public class SeasonalBaselineProperties {
+
+    private boolean enabled = true;
+
+    // Levels with their own (service, level) baseline
+    private Set<String> levels = Set.of("WARN", "ERROR", "FATAL");
+
+    // Time zone that defines hour-of-week (traffic cycles follow local time)
+    private ZoneId zone = ZoneId.of("UTC");
+
+    // Alert when the per-minute rate exceeds median + sensitivity * sigma (sigma from MAD)
+    private double sensitivity = 4.0;
+
+    // ... and exceeds the median by at least this many events per minute
+    private double minDelta = 5;
+
+    // Observed minutes a slot needs before it is trusted
+    private int minSamples = 30;
+
+    // Suppress the static HIGH_ERROR_RATE rule while the rate is within the seasonal norm
+    private boolean gateStaticThreshold = true;
+
+    // Cap on tracked (service, level) baselines
+    private int maxBaselines = 5000;
+}
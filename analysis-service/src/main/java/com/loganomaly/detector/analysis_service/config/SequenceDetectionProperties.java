@@ -0,0 +1,36 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for template-transition sequence detection (anomaly.sequence.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.sequence")
+public class SequenceDetectionProperties {
+
+    private boolean enabled = true;
+
+    // Metadata key that groups events into one sequence (request, trace, session)
+    private String correlationKey = "traceId";
+
+    // Sequences idle for longer than this are forgotten
+    private Duration ttl = Duration.ofMinutes(5);
+
+    // Hard caps on memory: open sequences, source templates, successors per template
+    private int maxSequences = 100_000;
+    private int maxTemplates = 10_000;
+    private int maxTransitionsPerTemplate = 64;
+
+    // A source template must have been seen this often before its transitions are scored
+    private long minSourceObservations = 200;
+
+    // Transitions less likely than this are anomalous
+    private double minTransitionProbability = 0.001;
+
+    // Templates of the sequence kept for alert context
+    private int contextLength = 5;
+}
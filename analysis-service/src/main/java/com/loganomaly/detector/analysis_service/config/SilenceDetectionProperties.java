@@ -0,0 +1,31 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for SERVICE_SILENT detection (anomaly.silence.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.silence")
+public class SilenceDetectionProperties {
+
+    private boolean enabled = true;
+
+    // Expected maximum gap between two events of a service
+    private Duration defaultInterval = Duration.ofMinutes(5);
+
+    // Resolution of the timing wheel
+    private long tickMillis = 1000;
+
+    // Per-service overrides, e.g. anomaly.silence.intervals.payment-service=30s
+    private Map<String, Duration> intervals = new HashMap<>();
+
+    public Duration intervalFor(String service) {
+        return intervals.getOrDefault(service, defaultInterval);
+    }
+}
@@ -0,0 +1,46 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Settings for the streaming heavy-hitter and cardinality sketches (anomaly.sketch.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.sketch")
+public class SketchProperties {
+
+    private boolean enabled = true;
+
+    // Tumbling window length; the current and the previous window are kept
+    private int windowMinutes = 1;
+
+    // Levels fed into the sketches
+    private Set<String> levels = Set.of("WARN", "ERROR", "FATAL");
+
+    // Space-Saving counters per top-K structure
+    private int topKCapacity = 100;
+
+    // Space-Saving counters of each service's own template top-K (alert context, incidents)
+    private int serviceTopKCapacity = 20;
+
+    // Count-Min Sketch dimensions
+    private int cmsDepth = 5;
+    private int cmsWidth = 2048;
+
+    // Metadata keys whose distinct values are counted per service (e.g. userId, clientIp)
+    private List<String> distinctKeys = new ArrayList<>();
+
+    // HyperLogLog precision: 2^precision bytes per (service, key)
+    private int hllPrecision = 10;
+
+    // Upper bound of services with distinct-value sketches and template top-K per window
+    private int maxServices = 1000;
+
+    // Entries attached to alert context
+    private int contextTopN = 5;
+}
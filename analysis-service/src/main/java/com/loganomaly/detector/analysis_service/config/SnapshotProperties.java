@@ -0,0 +1,23 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for detector state snapshots on local disk (anomaly.snapshot.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = false;
+
+    // Directory holding detector-state.snapshot; must survive restarts (e.g. a volume)
+    private Path directory = Path.of("snapshots");
+
+    // Older snapshots are ignored at startup: their state is stale and their offsets may be gone
+    private Duration maxAge = Duration.ofHours(1);
+}
@@ -0,0 +1,25 @@
+package com.loganomaly.detector.analysis_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits on in-memory detector state (anomaly.state.*).
+ */
+@Data
+@ConfigurationProperties(prefix = "anomaly.state")
+public class StateBudgetProperties {
+
+    // Services with their own detector state; others are counted under "__other__"
+    private int maxServices = 2_000;
+
+    // Estimated heap for all detector state; the coldest services are evicted beyond it
+    private DataSize memoryBudget = DataSize.ofMegabytes(256);
+
+    // Share of tracked services evicted per budget check while over budget
+    private double evictFraction = 0.1;
+
+    // Width of the frequency sketch used for admission (TinyLFU)
+    private int frequencySketchWidth = 8192;
+}
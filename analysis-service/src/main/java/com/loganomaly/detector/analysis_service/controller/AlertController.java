@@ -36,6 +36,14 @@ public class AlertController {
         return ResponseEntity.ok(alertRepository.findByAcknowledgedFalseOrderByDetectedAtDesc());
     }
 
+    /**
+     * Get alerts by lifecycle status (OPEN, UPDATING, RESOLVED)
+     */
+    @GetMapping("/status/{status}")
+    public ResponseEntity<List<Alert>> getAlertsByStatus(@PathVariable String status) {
+        return ResponseEntity.ok(alertRepository.findByStatusOrderByDetectedAtDesc(status.toUpperCase()));
+    }
+
     /**
      * Get alert by ID
      */
@@ -79,7 +87,8 @@ public class AlertController {
     public ResponseEntity<Map<String, Object>> getAlertStats() {
         return ResponseEntity.ok(Map.of(
                 "total", alertRepository.count(),
-                "unacknowledged", alertRepository.countByAcknowledgedFalse()
+                "unacknowledged", alertRepository.countByAcknowledgedFalse(),
+                "open", alertRepository.countByStatus("OPEN") + alertRepository.countByStatus("UPDATING")
         ));
     }
 
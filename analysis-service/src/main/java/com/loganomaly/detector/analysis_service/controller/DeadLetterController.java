@@ -0,0 +1,43 @@
+package com.loganomaly.detector.analysis_service.controller;
+
+import com.loganomaly.detector.analysis_service.service.DeadLetterService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dead-letters")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class DeadLetterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterController.class);
+
+    private final DeadLetterService deadLetterService;
+
+    /**
+     * Re-publish up to limit dead-lettered log events to the log-events topic
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Object>> replay(@RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("topic", deadLetterService.getDeadLetterTopic());
+        try {
+            response.put("replayed", deadLetterService.replay(Math.max(1, Math.min(limit, 10_000))));
+            return ResponseEntity.ok(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.put("error", "interrupted");
+        } catch (Exception e) {
+            logger.error("Dead-letter replay failed: {}", e.getMessage(), e);
+            response.put("error", e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+}
@@ -0,0 +1,50 @@
+package com.loganomaly.detector.analysis_service.controller;
+
+import com.loganomaly.detector.analysis_service.entity.Incident;
+import com.loganomaly.detector.analysis_service.repository.AlertRepository;
+import com.loganomaly.detector.analysis_service.repository.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/incidents")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class IncidentController {
+
+    private final IncidentRepository incidentRepository;
+    private final AlertRepository alertRepository;
+
+    /**
+     * Get incidents (most recent activity first), optionally by status (OPEN, CLOSED, MERGED).
+     * Merged incidents are left out unless requested.
+     */
+    @GetMapping
+    public ResponseEntity<List<Incident>> getIncidents(@RequestParam(required = false) String status) {
+        if (status != null) {
+            return ResponseEntity.ok(incidentRepository.findByStatusOrderByLastAlertAtDesc(status.toUpperCase()));
+        }
+        return ResponseEntity.ok(incidentRepository.findByStatusNotOrderByLastAlertAtDesc("MERGED"));
+    }
+
+    /**
+     * Get an incident with its member alerts
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getIncidentById(@PathVariable UUID id) {
+        return incidentRepository.findById(id)
+                .map(incident -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("incident", incident);
+                    response.put("alerts", alertRepository.findByIncidentIdOrderByDetectedAtAsc(id));
+                    return ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
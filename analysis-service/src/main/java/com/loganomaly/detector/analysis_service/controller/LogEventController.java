@@ -1,15 +1,27 @@
 package com.loganomaly.detector.analysis_service.controller;
 
 import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
 import com.loganomaly.detector.analysis_service.repository.LogEventRepository;
+import com.loganomaly.detector.analysis_service.service.EventRollupService;
+import com.loganomaly.detector.analysis_service.service.LogSearchService;
+import com.loganomaly.detector.analysis_service.service.MessageStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/events")
@@ -18,9 +30,12 @@ import java.util.UUID;
 public class LogEventController {
 
     private final LogEventRepository logEventRepository;
+    private final EventRollupService rollups;
+    private final MessageStore messages;
+    private final LogSearchService search;
 
     /**
-     * Get recent log events (last 100)
+     * Get recent log events (last 100), with message previews
      */
     @GetMapping
     public ResponseEntity<List<LogEvent>> getRecentEvents() {
@@ -28,29 +43,52 @@ public class LogEventController {
     }
 
     /**
-     * Get a specific log event by ID
+     * Get a specific log event by ID, with its full message
      */
     @GetMapping("/{id}")
     public ResponseEntity<LogEvent> getEventById(@PathVariable UUID id) {
         return logEventRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(event -> {
+                    // Queries load only the preview of the message
+                    event.setMessage(messages.body(event.getMessageHash()));
+                    event.setMessageTruncated(false);
+                    return ResponseEntity.ok(event);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Get log events by service name
+     * Get log events by service name within a time range (default: last 24 hours),
+     * so only the partitions of that range are scanned
      */
     @GetMapping("/service/{serviceName}")
-    public ResponseEntity<List<LogEvent>> getEventsByService(@PathVariable String serviceName) {
-        return ResponseEntity.ok(logEventRepository.findByServiceOrderByTimestampDesc(serviceName));
+    public ResponseEntity<List<LogEvent>> getEventsByService(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) Instant start,
+            @RequestParam(required = false) Instant end) {
+        Instant to = end == null ? Instant.now() : end;
+        Instant from = start == null ? to.minus(24, ChronoUnit.HOURS) : start;
+        return ResponseEntity.ok(logEventRepository.findByServiceAndTimestampBetweenOrderByTimestampDesc(serviceName, from, to));
     }
 
     /**
-     * Get log events by level
+     * Get log events by level within a time range (default: last 24 hours)
      */
     @GetMapping("/level/{level}")
-    public ResponseEntity<List<LogEvent>> getEventsByLevel(@PathVariable String level) {
-        return ResponseEntity.ok(logEventRepository.findByLevelOrderByTimestampDesc(level.toUpperCase()));
+    public ResponseEntity<List<LogEvent>> getEventsByLevel(
+            @PathVariable String level,
+            @RequestParam(required = false) Instant start,
+            @RequestParam(required = false) Instant end) {
+        Instant to = end == null ? Instant.now() : end;
+        Instant from = start == null ? to.minus(24, ChronoUnit.HOURS) : start;
+        LogLevel logLevel;
+        try {
+            logLevel = LogLevel.parse(level);
+        } catch (IllegalArgumentException e) {
+            // No stored event has an unknown level
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(logEventRepository.findByLevelAndTimestampBetweenOrderByTimestampDesc(logLevel.name(), from, to));
     }
 
     /**
@@ -72,6 +110,70 @@ public class LogEventController {
         return ResponseEntity.ok(logEventRepository.findByTimestampBetweenOrderByTimestampDesc(start, end));
     }
 
+    /**
+     * Get event counts per step (e.g. 1m, 1h, 1d) from the rollups, optionally for one
+     * service and level (default: last 24 hours per hour)
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<Map<String, Object>> getHistogram(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "1h") String step) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(24, ChronoUnit.HOURS) : from;
+        try {
+            Duration stepDuration = DurationStyle.detectAndParse(step);
+            List<EventRollupService.Bucket> buckets = rollups.histogram(
+                    service, level == null ? null : level.toUpperCase(), start, end, stepDuration);
+            return ResponseEntity.ok(Map.of(
+                    "from", start,
+                    "to", end,
+                    "step", stepDuration.toString(),
+                    "buckets", buckets));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Search the messages of a service within a time range (default: last 24 hours) by
+     * words (q), substring (contains) or regular expression (regex), newest first; pass
+     * nextCursor back as cursor for the next page
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam String service,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String contains,
+            @RequestParam(required = false) String regex,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(24, ChronoUnit.HOURS) : from;
+        if (Stream.of(q, contains, regex).filter(Objects::nonNull).count() != 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Exactly one of q, contains and regex is required"));
+        }
+        LogSearchService.Mode mode = q != null ? LogSearchService.Mode.TEXT
+                : contains != null ? LogSearchService.Mode.CONTAINS : LogSearchService.Mode.REGEX;
+        String query = q != null ? q : contains != null ? contains : regex;
+        try {
+            LogSearchService.Page page = search.search(service, start, end, level, mode, query, cursor, limit);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("events", page.events());
+            body.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (QueryTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Get count of log events (useful for health checks)
      */
@@ -0,0 +1,79 @@
+package com.loganomaly.detector.analysis_service.controller;
+
+import com.loganomaly.detector.analysis_service.detection.QuantileSketch;
+import com.loganomaly.detector.analysis_service.service.QuantileDetectorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quantiles of numeric metadata, answered from in-memory sketches.
+ * Sketches are exported in a compact binary form (base64) so that the results of
+ * several analysis instances can be merged with POST /api/quantiles/merge.
+ */
+@RestController
+@RequestMapping("/api/quantiles")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class QuantileController {
+
+    private final QuantileDetectorService quantileDetector;
+
+    /**
+     * Get p50/p90/p95/p99 of a metadata key over the last N minutes
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getQuantiles(
+            @RequestParam String service,
+            @RequestParam String key,
+            @RequestParam(defaultValue = "5") int minutes) {
+        return ResponseEntity.ok(QuantileDetectorService.summarize(quantileDetector.window(service, key, minutes)));
+    }
+
+    /**
+     * Get the numeric metadata keys tracked for a service
+     */
+    @GetMapping("/keys")
+    public ResponseEntity<List<String>> getKeys(@RequestParam String service) {
+        return ResponseEntity.ok(quantileDetector.keys(service));
+    }
+
+    /**
+     * Export the merged sketch of the last N minutes (base64)
+     */
+    @GetMapping("/sketch")
+    public ResponseEntity<Map<String, String>> getSketch(
+            @RequestParam String service,
+            @RequestParam String key,
+            @RequestParam(defaultValue = "5") int minutes) {
+        byte[] sketch = quantileDetector.window(service, key, minutes).toBytes();
+        return ResponseEntity.ok(Map.of("sketch", Base64.getEncoder().encodeToString(sketch)));
+    }
+
+    /**
+     * Merge exported sketches (e.g. one per analysis instance) and return their quantiles
+     */
+    @PostMapping("/merge")
+    public ResponseEntity<Map<String, Object>> mergeSketches(@RequestBody List<String> sketches) {
+        QuantileSketch merged = null;
+        try {
+            for (String encoded : sketches) {
+                QuantileSketch sketch = QuantileSketch.fromBytes(Base64.getDecoder().decode(encoded));
+                if (merged == null) {
+                    merged = sketch;
+                } else {
+                    merged.merge(sketch);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return merged == null
+                ? ResponseEntity.badRequest().body(Map.of("error", "No sketches supplied"))
+                : ResponseEntity.ok(QuantileDetectorService.summarize(merged));
+    }
+}
@@ -0,0 +1,83 @@
+package com.loganomaly.detector.analysis_service.controller;
+
+import com.loganomaly.detector.analysis_service.detection.SpaceSavingTopK;
+import com.loganomaly.detector.analysis_service.service.HeavyHitterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low-latency queries answered from the in-memory sketches (no database access).
+ * Use previous=true to read the last completed window instead of the current one.
+ */
+@RestController
+@RequestMapping("/api/sketches")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class SketchController {
+
+    private final HeavyHitterService heavyHitters;
+
+    /**
+     * Get the services with the most events in the window
+     */
+    @GetMapping("/top-services")
+    public ResponseEntity<Map<String, Object>> getTopServices(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean previous) {
+        List<SpaceSavingTopK.Estimate<String>> top = heavyHitters.topServices(limit, previous);
+        return ResponseEntity.ok(windowResponse(previous, "services", top));
+    }
+
+    /**
+     * Get the most frequent message templates, optionally for one service
+     */
+    @GetMapping("/top-templates")
+    public ResponseEntity<Map<String, Object>> getTopTemplates(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String service,
+            @RequestParam(defaultValue = "false") boolean previous) {
+        List<SpaceSavingTopK.Estimate<HeavyHitterService.ServiceTemplate>> top =
+                heavyHitters.topTemplates(limit, service, previous);
+        return ResponseEntity.ok(windowResponse(previous, "templates", top));
+    }
+
+    /**
+     * Get estimated event counts for a service and/or a message template
+     */
+    @GetMapping("/frequency")
+    public ResponseEntity<Map<String, Object>> getFrequency(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String template,
+            @RequestParam(defaultValue = "false") boolean previous) {
+        Map<String, Object> estimates = new HashMap<>();
+        if (service != null) {
+            estimates.put("service", heavyHitters.estimateServiceCount(service, previous));
+        }
+        if (template != null) {
+            estimates.put("template", heavyHitters.estimateTemplateCount(template, previous));
+        }
+        return ResponseEntity.ok(windowResponse(previous, "estimates", estimates));
+    }
+
+    /**
+     * Get estimated distinct values of the configured metadata keys for a service
+     */
+    @GetMapping("/distinct")
+    public ResponseEntity<Map<String, Object>> getDistinctValues(
+            @RequestParam String service,
+            @RequestParam(defaultValue = "false") boolean previous) {
+        return ResponseEntity.ok(windowResponse(previous, "distinct", heavyHitters.distinctValues(service, previous)));
+    }
+
+    private Map<String, Object> windowResponse(boolean previous, String name, Object value) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("windowStart", heavyHitters.windowStart(previous));
+        response.put(name, value);
+        return response;
+    }
+}
@@ -0,0 +1,81 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+/**
+ * Count-Min Sketch: fixed-size frequency estimates for an unbounded key space.
+ * Estimates never undercount; with width w and depth d the overcount is at most
+ * 2N/w with probability 1 - (1/2)^d, where N is the total count.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[][] counts;
+    private long totalCount;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    public void add(CharSequence key, long count) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row][index(h1, h2, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    public long estimate(CharSequence key) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Add the counts of another sketch with the same dimensions into this one
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                counts[row][col] += other.counts[row][col];
+            }
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Halve every counter, so old frequencies fade (TinyLFU-style aging)
+     */
+    public void halve() {
+        for (long[] row : counts) {
+            for (int col = 0; col < width; col++) {
+                row[col] >>>= 1;
+            }
+        }
+        totalCount >>>= 1;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    // Kirsch-Mitzenmacher: derive the row hashes from two halves of one 64-bit hash
+    private int index(int h1, int h2, int row) {
+        int combined = h1 + row * h2;
+        return Math.floorMod(combined, width);
+    }
+}
@@ -0,0 +1,102 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Tumbling event-time windows per key with allowed lateness.
+ *
+ * An event is assigned to the window that contains its own timestamp, regardless of when it
+ * is processed. A window [start, end) stays open until the watermark passes
+ * end + allowed lateness; events for a window that has already closed are late and rejected.
+ */
+public class EventTimeWindows<K, A> {
+
+    private final long windowMillis;
+    private final long allowedLatenessMillis;
+    private final Supplier<A> aggregateFactory;
+
+    private final Map<WindowId<K>, Window<K, A>> windows = new HashMap<>();
+    private final TreeMap<Long, List<Window<K, A>>> byCloseTime = new TreeMap<>();
+
+    public EventTimeWindows(long windowMillis, long allowedLatenessMillis, Supplier<A> aggregateFactory) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.aggregateFactory = aggregateFactory;
+    }
+
+    /**
+     * The window of an event, created on demand, or null if the event is too late
+     */
+    public Window<K, A> windowFor(K key, long eventTimeMillis, long watermarkMillis) {
+        long start = eventTimeMillis - Math.floorMod(eventTimeMillis, windowMillis);
+        long closeTime = start + windowMillis + allowedLatenessMillis;
+        if (closeTime <= watermarkMillis) {
+            return null;
+        }
+
+        WindowId<K> id = new WindowId<>(key, start);
+        Window<K, A> window = windows.get(id);
+        if (window == null) {
+            window = new Window<>(key, start, start + windowMillis, aggregateFactory.get());
+            windows.put(id, window);
+            byCloseTime.computeIfAbsent(closeTime, t -> new ArrayList<>()).add(window);
+        }
+        return window;
+    }
+
+    /**
+     * Remove and return every window whose close time the watermark has passed
+     */
+    public List<Window<K, A>> closeUpTo(long watermarkMillis) {
+        List<Window<K, A>> closed = new ArrayList<>();
+        Iterator<Map.Entry<Long, List<Window<K, A>>>> it = byCloseTime.headMap(watermarkMillis, true).entrySet().iterator();
+        while (it.hasNext()) {
+            for (Window<K, A> window : it.next().getValue()) {
+                windows.remove(new WindowId<>(window.key(), window.start()));
+                closed.add(window);
+            }
+            it.remove();
+        }
+        return closed;
+    }
+
+    /**
+     * Snapshot of the windows that are still open
+     */
+    public List<Window<K, A>> openWindows() {
+        return new ArrayList<>(windows.values());
+    }
+
+    /**
+     * Drop the open windows of matching keys without closing them
+     */
+    public int removeKeys(Predicate<? super K> predicate) {
+        int before = windows.size();
+        windows.keySet().removeIf(id -> predicate.test(id.key()));
+        byCloseTime.values().forEach(list -> list.removeIf(window -> predicate.test(window.key())));
+        byCloseTime.values().removeIf(List::isEmpty);
+        return before - windows.size();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public record Window<K, A>(K key, long start, long end, A aggregate) {}
+
+    private record WindowId<K>(K key, long start) {}
+}
@@ -0,0 +1,95 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map with a hard entry cap (least recently used entries are evicted first) and a TTL
+ * on the last access. Not thread-safe; callers synchronize.
+ */
+public class ExpiringLruMap<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long evictions;
+
+    public ExpiringLruMap(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Get a live entry and refresh its access time; expired entries are removed
+     */
+    public V get(K key, long nowMillis) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis - entry.lastAccess >= ttlMillis) {
+            entries.remove(key);
+            evictions++;
+            return null;
+        }
+        entry.lastAccess = nowMillis;
+        return entry.value;
+    }
+
+    public void put(K key, V value, long nowMillis) {
+        Entry<V> entry = new Entry<>(value, nowMillis);
+        entries.put(key, entry);
+        while (entries.size() > maxEntries) {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Remove expired entries. Iteration stops at the first live entry because entries are
+     * kept in access order, so the cost is proportional to the number of evictions.
+     */
+    public int evictExpired(long nowMillis) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next().getValue();
+            if (nowMillis - entry.lastAccess < ttlMillis) {
+                break;
+            }
+            it.remove();
+            removed++;
+        }
+        evictions += removed;
+        return removed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private long lastAccess;
+
+        private Entry(V value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel keyed by an arbitrary key (e.g. a service name).
+ *
+ * Each key has at most one pending deadline. Scheduling, rescheduling and cancelling
+ * a key are O(1); advancing the wheel by one tick is O(1) plus the number of entries
+ * that expire or cascade down a level. Four levels of 64 slots cover 64^4 ticks
+ * (about 194 days at a one second tick); longer deadlines are clamped to that span.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickMillis;
+    private final Node<K>[][] wheels;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+
+    // Last tick that has been processed
+    private long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new Node[LEVELS][SLOTS];
+    }
+
+    /**
+     * Schedule (or reschedule) the deadline of a key.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+
+        long expiryTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        node.deadlineMillis = deadlineMillis;
+        node.expiryTick = Math.min(Math.max(expiryTick, currentTick + 1), currentTick + MAX_SPAN_TICKS - 1);
+        place(node);
+    }
+
+    /**
+     * Remove a key from the wheel. Returns false if the key was not scheduled.
+     */
+    public synchronized boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return nodes.containsKey(key);
+    }
+
+    /**
+     * Copy of all scheduled keys with their deadlines
+     */
+    public synchronized Map<K, Long> deadlines() {
+        Map<K, Long> deadlines = new HashMap<>();
+        nodes.forEach((key, node) -> deadlines.put(key, node.deadlineMillis));
+        return deadlines;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Advance the wheel up to the given time and return every entry whose deadline passed.
+     * Expired keys are removed from the wheel.
+     */
+    public synchronized List<Expired<K>> advance(long nowMillis) {
+        List<Expired<K>> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            int slot = (int) (currentTick & SLOT_MASK);
+            Node<K> node = wheels[0][slot];
+            wheels[0][slot] = null;
+            while (node != null) {
+                Node<K> next = node.next;
+                node.prev = null;
+                node.next = null;
+                nodes.remove(node.key);
+                expired.add(new Expired<>(node.key, node.deadlineMillis));
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * When a lower level wraps around, move the entries of the next slot of the level
+     * above down to their new (finer) position.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            int slot = (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+            Node<K> node = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (node != null) {
+                Node<K> next = node.next;
+                node.prev = null;
+                node.next = null;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(Node<K> node) {
+        long delta = Math.max(node.expiryTick - currentTick, 0);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((node.expiryTick >> (SLOT_BITS * level)) & SLOT_MASK);
+
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = wheels[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        wheels[level][slot] = node;
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (wheels[node.level][node.slot] == node) {
+            wheels[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * A key whose deadline has passed, together with the deadline it was scheduled for.
+     */
+    public record Expired<K>(K key, long deadlineMillis) {}
+
+    private static final class Node<K> {
+        private final K key;
+        private long deadlineMillis;
+        private long expiryTick;
+        private int level;
+        private int slot;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
+
+/**
+ * Robust per-minute rate statistics for each of the 168 hours of the week.
+ *
+ * Every slot keeps a running median and median absolute deviation (MAD) that are updated
+ * in place with bounded steps (stochastic quantile tracking), so a single outlier minute
+ * moves the baseline by at most one step. The first observations of a slot use plain
+ * running mean / mean deviation to warm up quickly. Serialized form is 2 KB.
+ */
+public class HourOfWeekBaseline {
+
+    public static final int SLOTS = 168;
+    public static final int SERIALIZED_BYTES = 1 + SLOTS * 12;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int WARMUP_SAMPLES = 10;
+    private static final double LEARNING_RATE = 0.05;
+    private static final double MAD_TO_SIGMA = 1.4826;
+
+    private final float[] medians = new float[SLOTS];
+    private final float[] mads = new float[SLOTS];
+    private final int[] samples = new int[SLOTS];
+
+    public static int slotOf(ZonedDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    public void update(int slot, double observation) {
+        int n = samples[slot];
+        double median = medians[slot];
+        double mad = mads[slot];
+
+        if (n < WARMUP_SAMPLES) {
+            double newMedian = median + (observation - median) / (n + 1);
+            mad = mad + (Math.abs(observation - newMedian) - mad) / (n + 1);
+            median = newMedian;
+        } else {
+            double step = LEARNING_RATE * Math.max(mad, 1.0);
+            median += clamp(observation - median, step);
+            mad += clamp(Math.abs(observation - median) - mad, step);
+        }
+
+        medians[slot] = (float) Math.max(median, 0);
+        mads[slot] = (float) Math.max(mad, 0);
+        samples[slot] = n == Integer.MAX_VALUE ? n : n + 1;
+    }
+
+    /**
+     * Highest per-minute rate still considered normal for the slot
+     */
+    public double threshold(int slot, double sensitivity, double minDelta) {
+        return medians[slot] + Math.max(sensitivity * MAD_TO_SIGMA * mads[slot], minDelta);
+    }
+
+    public double median(int slot) {
+        return medians[slot];
+    }
+
+    public double mad(int slot) {
+        return mads[slot];
+    }
+
+    public int samples(int slot) {
+        return samples[slot];
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_BYTES);
+        buffer.put(FORMAT_VERSION);
+        for (int i = 0; i < SLOTS; i++) {
+            buffer.putFloat(medians[i]);
+            buffer.putFloat(mads[i]);
+            buffer.putInt(samples[i]);
+        }
+        return buffer.array();
+    }
+
+    public static HourOfWeekBaseline fromBytes(byte[] data) {
+        if (data == null || data.length != SERIALIZED_BYTES || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported baseline format");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+        HourOfWeekBaseline baseline = new HourOfWeekBaseline();
+        for (int i = 0; i < SLOTS; i++) {
+            baseline.medians[i] = buffer.getFloat();
+            baseline.mads[i] = buffer.getFloat();
+            baseline.samples[i] = buffer.getInt();
+        }
+        return baseline;
+    }
+
+    private static double clamp(double delta, double step) {
+        return Math.max(-step, Math.min(step, delta));
+    }
+}
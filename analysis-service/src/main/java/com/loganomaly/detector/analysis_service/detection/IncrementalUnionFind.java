@@ -0,0 +1,146 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Union-find over a sliding time window.
+ *
+ * Elements are added with a timestamp and linked incrementally (union by size, path
+ * halving), so linking is near O(1). Each cluster carries a value at its root and the time
+ * of its latest element. A cluster with no element newer than the horizon is removed as a
+ * whole, which keeps parent pointers valid without ever deleting single elements.
+ * Not thread-safe; callers synchronize.
+ */
+public class IncrementalUnionFind<V> {
+
+    private final Map<Long, Node<V>> nodes = new HashMap<>();
+    private final Set<Long> roots = new HashSet<>();
+
+    public void add(long id, long timeMillis) {
+        if (nodes.containsKey(id)) {
+            throw new IllegalArgumentException("Element already present: " + id);
+        }
+        Node<V> node = new Node<>(id, timeMillis);
+        node.members = new ArrayList<>(List.of(id));
+        nodes.put(id, node);
+        roots.add(id);
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    /**
+     * Root of the element's cluster
+     */
+    public long find(long id) {
+        Node<V> node = node(id);
+        while (node.parent != node.id) {
+            Node<V> parent = nodes.get(node.parent);
+            node.parent = parent.parent;
+            node = nodes.get(parent.parent);
+        }
+        return node.id;
+    }
+
+    /**
+     * Link two clusters and return the new root. The larger cluster's root survives and
+     * keeps its value; the caller reconciles values before or after the call.
+     */
+    public long union(long a, long b) {
+        Node<V> rootA = nodes.get(find(a));
+        Node<V> rootB = nodes.get(find(b));
+        if (rootA == rootB) {
+            return rootA.id;
+        }
+        if (rootA.members.size() < rootB.members.size()) {
+            Node<V> swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        rootB.parent = rootA.id;
+        rootA.members.addAll(rootB.members);
+        rootA.lastActivity = Math.max(rootA.lastActivity, rootB.lastActivity);
+        rootB.members = null;
+        rootB.value = null;
+        roots.remove(rootB.id);
+        return rootA.id;
+    }
+
+    public V value(long id) {
+        return nodes.get(find(id)).value;
+    }
+
+    public void setValue(long id, V value) {
+        nodes.get(find(id)).value = value;
+    }
+
+    public int clusterSize(long id) {
+        return nodes.get(find(id)).members.size();
+    }
+
+    /**
+     * Latest element time of the element's cluster
+     */
+    public long lastActivity(long id) {
+        return nodes.get(find(id)).lastActivity;
+    }
+
+    /**
+     * Drop every cluster whose latest element is older than the horizon and return their values
+     */
+    public List<V> expire(long horizonMillis) {
+        List<V> expired = new ArrayList<>();
+        Iterator<Long> it = roots.iterator();
+        while (it.hasNext()) {
+            Node<V> root = nodes.get(it.next());
+            if (root.lastActivity >= horizonMillis) {
+                continue;
+            }
+            for (long member : root.members) {
+                nodes.remove(member);
+            }
+            it.remove();
+            if (root.value != null) {
+                expired.add(root.value);
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int clusters() {
+        return roots.size();
+    }
+
+    private Node<V> node(long id) {
+        Node<V> node = nodes.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown element: " + id);
+        }
+        return node;
+    }
+
+    private static final class Node<V> {
+        private final long id;
+        private long parent;
+        private long lastActivity;
+        private List<Long> members;
+        private V value;
+
+        private Node(long id, long timeMillis) {
+            this.id = id;
+            this.parent = id;
+            this.lastActivity = timeMillis;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a log message to its template by masking the variable parts
+ * (UUIDs, IPs, hex values, numbers), so that "Timeout after 3012ms for order 991"
+ * and "Timeout after 45ms for order 17" count as the same message.
+ */
+public final class MessageTemplates {
+
+    public static final String WILDCARD = "<*>";
+
+    private static final int MAX_TEMPLATE_LENGTH = 200;
+
+    private static final Pattern UUID_PATTERN = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b"
+    );
+
+    private static final Pattern IP_PATTERN = Pattern.compile(
+            "\\b\\d{1,3}(\\.\\d{1,3}){3}(:\\d+)?\\b"
+    );
+
+    private static final Pattern HEX_PATTERN = Pattern.compile(
+            "\\b(0x[0-9a-fA-F]+|[0-9a-fA-F]{16,})\\b"
+    );
+
+    // Numbers, including those glued to units or identifiers (3012ms, order-991)
+    private static final Pattern NUMBER_PATTERN = Pattern.compile(
+            "\\d+([.,]\\d+)*"
+    );
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private MessageTemplates() {
+    }
+
+    public static String templateOf(String message) {
+        if (message == null || message.isEmpty()) {
+            return "";
+        }
+
+        String template = message.length() > MAX_TEMPLATE_LENGTH * 2
+                ? message.substring(0, MAX_TEMPLATE_LENGTH * 2)
+                : message;
+
+        template = UUID_PATTERN.matcher(template).replaceAll(WILDCARD);
+        template = IP_PATTERN.matcher(template).replaceAll(WILDCARD);
+        template = HEX_PATTERN.matcher(template).replaceAll(WILDCARD);
+        template = NUMBER_PATTERN.matcher(template).replaceAll(WILDCARD);
+        template = WHITESPACE_PATTERN.matcher(template).replaceAll(" ").trim();
+
+        if (template.length() > MAX_TEMPLATE_LENGTH) {
+            template = template.substring(0, MAX_TEMPLATE_LENGTH);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,40 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.TreeSet;
+
+/**
+ * Committable offset of one partition whose records complete out of order.
+ *
+ * Records are tracked in the order they were polled; the committable offset is the
+ * lowest offset still in flight, or one past the highest tracked offset when nothing
+ * is in flight. Committing it never skips a record that has not completed.
+ */
+public class OffsetTracker {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long nextOffset = -1;
+
+    public synchronized void track(long offset) {
+        inFlight.add(offset);
+        nextOffset = Math.max(nextOffset, offset + 1);
+    }
+
+    /**
+     * Mark a record as done and return the committable offset
+     */
+    public synchronized long complete(long offset) {
+        inFlight.remove(offset);
+        return committable();
+    }
+
+    /**
+     * Next offset to commit, or -1 if no record has been tracked
+     */
+    public synchronized long committable() {
+        return inFlight.isEmpty() ? nextOffset : inFlight.first();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight.size();
+    }
+}
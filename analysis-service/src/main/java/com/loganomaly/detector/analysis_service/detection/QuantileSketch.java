@@ -0,0 +1,244 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch-style).
+ *
+ * Positive values are counted in logarithmic bins of ratio gamma = (1 + a) / (1 - a),
+ * so every quantile is returned within a relative error a of the true value. Two sketches
+ * with the same accuracy merge by adding their bins, which makes them mergeable across
+ * time buckets and across analysis instances. Bins are stored densely between the lowest
+ * and highest index seen; beyond MAX_BINS the lowest bins are collapsed together, which
+ * only degrades the accuracy of the smallest values.
+ */
+public class QuantileSketch {
+
+    private static final int MAX_BINS = 2048;
+    private static final double MIN_POSITIVE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long[] bins = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add a value. Negative values and NaN are not supported and are ignored.
+     */
+    public boolean add(double value) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            return false;
+        }
+        count++;
+        max = Math.max(max, value);
+        if (value < MIN_POSITIVE) {
+            zeroCount++;
+        } else {
+            increment(index(value), 1);
+        }
+        return true;
+    }
+
+    /**
+     * Value at quantile q (0..1), or NaN when the sketch is empty
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        double rank = Math.max(0, Math.min(1, q)) * (count - 1);
+        if (rank < zeroCount) {
+            return 0;
+        }
+
+        long seen = zeroCount;
+        for (int i = 0; i < bins.length; i++) {
+            seen += bins[i];
+            if (seen > rank) {
+                return Math.min(value(offset + i), max);
+            }
+        }
+        return max;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (Double.compare(other.relativeAccuracy, relativeAccuracy) != 0) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+        }
+        for (int i = 0; i < other.bins.length; i++) {
+            if (other.bins[i] != 0) {
+                increment(other.offset + i, other.bins[i]);
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        int first = 0;
+        int last = bins.length - 1;
+        while (first <= last && bins[first] == 0) first++;
+        while (last >= first && bins[last] == 0) last--;
+
+        out.writeDouble(relativeAccuracy);
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeDouble(max);
+        out.writeInt(offset + first);
+        out.writeInt(Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            writeVarLong(out, bins[i]);
+        }
+    }
+
+    public static QuantileSketch readFrom(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch(in.readDouble());
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.max = in.readDouble();
+        sketch.offset = in.readInt();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_BINS) {
+            throw new IOException("Corrupt quantile sketch: " + length + " bins");
+        }
+        sketch.bins = new long[length];
+        for (int i = 0; i < length; i++) {
+            sketch.bins[i] = readVarLong(in);
+        }
+        return sketch;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return readFrom(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid quantile sketch", e);
+        }
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    // Representative value of a bin: the point with equal relative distance to both bounds
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void increment(int index, long amount) {
+        if (bins.length == 0) {
+            bins = new long[16];
+            offset = index;
+        }
+
+        if (index < offset) {
+            int newLength = bins.length + (offset - index);
+            if (newLength > MAX_BINS) {
+                // Collapse: values below the lowest bin are counted in it
+                index = offset;
+            } else {
+                long[] grown = new long[newLength];
+                System.arraycopy(bins, 0, grown, offset - index, bins.length);
+                bins = grown;
+                offset = index;
+            }
+        } else if (index >= offset + bins.length) {
+            int required = index - offset + 1;
+            if (required > MAX_BINS) {
+                collapseLowest(required - MAX_BINS);
+            }
+            if (index >= offset + bins.length) {
+                int newLength = Math.min(MAX_BINS, Math.max(index - offset + 1, bins.length * 2));
+                bins = Arrays.copyOf(bins, newLength);
+            }
+        }
+
+        bins[index - offset] += amount;
+    }
+
+    private void collapseLowest(int shift) {
+        long collapsed = 0;
+        for (int i = 0; i <= shift && i < bins.length; i++) {
+            collapsed += bins[i];
+        }
+        long[] shifted = new long[bins.length];
+        if (shift + 1 < bins.length) {
+            System.arraycopy(bins, shift + 1, shifted, 1, bins.length - shift - 1);
+        }
+        shifted[0] = collapsed;
+        bins = shifted;
+        offset += shift;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
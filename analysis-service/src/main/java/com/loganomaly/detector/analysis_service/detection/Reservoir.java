@@ -0,0 +1,81 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Fixed-size uniform random sample of a stream (Vitter's Algorithm R).
+ *
+ * After n offers every item has the same k/n chance of being in the sample; each offer is
+ * O(1) and items are only materialized when they are kept. Not thread-safe.
+ */
+public class Reservoir<T> {
+
+    private final Object[] items;
+    private final RandomGenerator random;
+    private long seen;
+
+    public Reservoir(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param random source of randomness, or null for the thread-local generator
+     */
+    public Reservoir(int capacity, RandomGenerator random) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.items = new Object[capacity];
+        this.random = random;
+    }
+
+    public boolean offer(T item) {
+        return offer(item, Function.identity());
+    }
+
+    /**
+     * Offer a source item; the mapper is only called when the item enters the sample
+     */
+    public <S> boolean offer(S source, Function<? super S, ? extends T> mapper) {
+        seen++;
+        int slot;
+        if (seen <= items.length) {
+            slot = (int) (seen - 1);
+        } else {
+            long candidate = (random != null ? random : ThreadLocalRandom.current()).nextLong(seen);
+            if (candidate >= items.length) {
+                return false;
+            }
+            slot = (int) candidate;
+        }
+        items[slot] = mapper.apply(source);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> sample() {
+        int size = (int) Math.min(seen, items.length);
+        List<T> sample = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sample.add((T) items[i]);
+        }
+        return sample;
+    }
+
+    /**
+     * Number of items offered since creation or the last clear
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    public void clear() {
+        Arrays.fill(items, null);
+        seen = 0;
+    }
+}
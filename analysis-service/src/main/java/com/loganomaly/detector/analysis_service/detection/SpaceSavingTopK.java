@@ -0,0 +1,181 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters with a fixed number of counters.
+ *
+ * Counters are kept in a Stream-Summary (buckets of equal count in ascending order),
+ * so every offer is O(1). When all counters are taken, the key with the smallest count
+ * is replaced and the newcomer inherits that count as its maximum overestimation error.
+ * Any key whose true frequency exceeds N / capacity is guaranteed to be tracked.
+ */
+public class SpaceSavingTopK<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private Bucket<K> minBucket;
+    private Bucket<K> maxBucket;
+    private long totalCount;
+
+    public SpaceSavingTopK(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(K key) {
+        totalCount++;
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter<>(key, 0);
+            counters.put(key, counter);
+            attachWithCountOne(counter);
+            return;
+        }
+
+        // Evict the minimum and let the newcomer inherit its count
+        Counter<K> victim = minBucket.head;
+        counters.remove(victim.key);
+        victim.key = key;
+        victim.error = minBucket.count;
+        counters.put(key, victim);
+        increment(victim);
+    }
+
+    /**
+     * The n keys with the highest estimated counts, highest first
+     */
+    public List<Estimate<K>> top(int n) {
+        List<Estimate<K>> result = new ArrayList<>(Math.min(n, counters.size()));
+        for (Bucket<K> bucket = maxBucket; bucket != null && result.size() < n; bucket = bucket.prev) {
+            for (Counter<K> counter = bucket.head; counter != null && result.size() < n; counter = counter.next) {
+                result.add(new Estimate<>(counter.key, bucket.count, counter.error));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    private void attachWithCountOne(Counter<K> counter) {
+        if (minBucket == null || minBucket.count != 1) {
+            Bucket<K> bucket = new Bucket<>(1);
+            bucket.next = minBucket;
+            if (minBucket != null) {
+                minBucket.prev = bucket;
+            } else {
+                maxBucket = bucket;
+            }
+            minBucket = bucket;
+        }
+        attach(counter, minBucket);
+    }
+
+    private void increment(Counter<K> counter) {
+        Bucket<K> current = counter.bucket;
+        long newCount = current.count + 1;
+
+        Bucket<K> target = current.next;
+        if (target == null || target.count != newCount) {
+            target = new Bucket<>(newCount);
+            target.prev = current;
+            target.next = current.next;
+            if (current.next != null) {
+                current.next.prev = target;
+            } else {
+                maxBucket = target;
+            }
+            current.next = target;
+        }
+
+        detach(counter);
+        attach(counter, target);
+        if (current.head == null) {
+            removeBucket(current);
+        }
+    }
+
+    private void attach(Counter<K> counter, Bucket<K> bucket) {
+        counter.bucket = bucket;
+        counter.prev = null;
+        counter.next = bucket.head;
+        if (bucket.head != null) {
+            bucket.head.prev = counter;
+        }
+        bucket.head = counter;
+    }
+
+    private void detach(Counter<K> counter) {
+        Bucket<K> bucket = counter.bucket;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            bucket.head = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        counter.prev = null;
+        counter.next = null;
+        counter.bucket = null;
+    }
+
+    private void removeBucket(Bucket<K> bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            minBucket = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        } else {
+            maxBucket = bucket.prev;
+        }
+    }
+
+    /**
+     * Estimated count of a key; the true count lies in [count - error, count]
+     */
+    public record Estimate<K>(K key, long count, long error) {}
+
+    private static final class Bucket<K> {
+        private final long count;
+        private Counter<K> head;
+        private Bucket<K> prev;
+        private Bucket<K> next;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static final class Counter<K> {
+        private K key;
+        private long error;
+        private Bucket<K> bucket;
+        private Counter<K> prev;
+        private Counter<K> next;
+
+        private Counter(K key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+}
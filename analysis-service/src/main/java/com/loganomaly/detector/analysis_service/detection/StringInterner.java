@@ -0,0 +1,40 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of frequently repeated strings (service names, metadata keys), so
+ * millions of parsed events share a handful of String objects.
+ *
+ * Bounded: once full, unknown strings are returned as they are instead of being added,
+ * so a flood of unique values cannot grow it.
+ */
+public class StringInterner {
+
+    private final int capacity;
+    private final Map<String, String> canonical = new ConcurrentHashMap<>();
+
+    public StringInterner(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = canonical.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (canonical.size() >= capacity) {
+            return value;
+        }
+        existing = canonical.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    public int size() {
+        return canonical.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * First-order Markov model of template-to-template transitions.
+ *
+ * Probabilities use additive smoothing, P(b|a) = (c(a,b) + 1) / (c(a) + k(a) + 1), where
+ * k(a) is the number of distinct successors seen after a. Memory is capped twice: at most
+ * maxStates source templates (least recently used evicted) and at most
+ * maxTransitionsPerState successors per source; further successors still count towards
+ * c(a), so they keep a low probability.
+ */
+public class TransitionModel {
+
+    // Pseudo-template that precedes the first event of every sequence
+    public static final long START = 0L;
+
+    private final int maxTransitionsPerState;
+    private final LinkedHashMap<Long, State> states;
+
+    public TransitionModel(int maxStates, int maxTransitionsPerState) {
+        this.maxTransitionsPerState = maxTransitionsPerState;
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, State> eldest) {
+                return size() > maxStates;
+            }
+        };
+    }
+
+    /**
+     * Smoothed probability of moving from one template to another
+     */
+    public double probability(long from, long to) {
+        State state = states.get(from);
+        if (state == null) {
+            return 1.0;
+        }
+        long count = state.successors.getOrDefault(to, 0L);
+        return (count + 1.0) / (state.total + state.successors.size() + 1.0);
+    }
+
+    /**
+     * How often a template has been seen as the source of a transition
+     */
+    public long observations(long from) {
+        State state = states.get(from);
+        return state == null ? 0 : state.total;
+    }
+
+    public void learn(long from, long to) {
+        State state = states.computeIfAbsent(from, k -> new State());
+        state.total++;
+        Long count = state.successors.get(to);
+        if (count != null) {
+            state.successors.put(to, count + 1);
+        } else if (state.successors.size() < maxTransitionsPerState) {
+            state.successors.put(to, 1L);
+        }
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Write all states, least recently used first, so reading them back keeps the LRU order
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(states.size());
+        for (Map.Entry<Long, State> entry : states.entrySet()) {
+            State state = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeLong(state.total);
+            out.writeInt(state.successors.size());
+            for (Map.Entry<Long, Long> successor : state.successors.entrySet()) {
+                out.writeLong(successor.getKey());
+                out.writeLong(successor.getValue());
+            }
+        }
+    }
+
+    public static TransitionModel readFrom(DataInput in, int maxStates, int maxTransitionsPerState) throws IOException {
+        TransitionModel model = new TransitionModel(maxStates, maxTransitionsPerState);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            State state = new State();
+            long from = in.readLong();
+            state.total = in.readLong();
+            int successors = in.readInt();
+            if (successors < 0) {
+                throw new IOException("Corrupt transition model: " + successors + " successors");
+            }
+            for (int j = 0; j < successors; j++) {
+                long to = in.readLong();
+                long transitions = in.readLong();
+                if (state.successors.size() < maxTransitionsPerState) {
+                    state.successors.put(to, transitions);
+                }
+            }
+            model.states.put(from, state);
+        }
+        return model;
+    }
+
+    private static final class State {
+        private long total;
+        private final Map<Long, Long> successors = new HashMap<>();
+    }
+}
@@ -0,0 +1,94 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-partition event-time watermarks.
+ *
+ * A partition's watermark is the highest event time it has delivered minus the tolerated
+ * out-of-orderness. The combined watermark is the minimum over all active partitions, so a
+ * lagging partition holds windows open until it catches up. Partitions that delivered
+ * nothing for the idle timeout (processing time) stop holding the watermark back.
+ * The combined watermark never moves backwards.
+ *
+ * @param <P> partition identifier, e.g. a Kafka TopicPartition
+ */
+public class WatermarkTracker<P> {
+
+    private final long outOfOrdernessMillis;
+    private final long idleTimeoutMillis;
+    private final Map<P, PartitionState> partitions = new HashMap<>();
+    private long watermark = Long.MIN_VALUE;
+
+    public WatermarkTracker(long outOfOrdernessMillis, long idleTimeoutMillis) {
+        this.outOfOrdernessMillis = outOfOrdernessMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Record an event and return the updated combined watermark
+     */
+    public synchronized long observe(P partition, long eventTimeMillis, long nowMillis) {
+        PartitionState state = partitions.computeIfAbsent(partition, p -> new PartitionState());
+        state.maxEventTime = Math.max(state.maxEventTime, eventTimeMillis);
+        state.lastActivity = nowMillis;
+        return advance(nowMillis);
+    }
+
+    public synchronized long currentWatermark(long nowMillis) {
+        return advance(nowMillis);
+    }
+
+    /**
+     * Highest event time seen per partition
+     */
+    public synchronized Map<P, Long> maxEventTimes() {
+        Map<P, Long> result = new LinkedHashMap<>();
+        partitions.forEach((partition, state) -> result.put(partition, state.maxEventTime));
+        return result;
+    }
+
+    /**
+     * Restore saved progress; restored partitions count as active from now on
+     */
+    public synchronized void restore(Map<P, Long> maxEventTimes, long restoredWatermark, long nowMillis) {
+        maxEventTimes.forEach((partition, maxEventTime) -> {
+            PartitionState state = partitions.computeIfAbsent(partition, p -> new PartitionState());
+            state.maxEventTime = Math.max(state.maxEventTime, maxEventTime);
+            state.lastActivity = nowMillis;
+        });
+        watermark = Math.max(watermark, restoredWatermark);
+    }
+
+    /**
+     * Forget a partition, e.g. after it was revoked from this consumer
+     */
+    public synchronized void remove(P partition) {
+        partitions.remove(partition);
+    }
+
+    private long advance(long nowMillis) {
+        long activeMin = Long.MAX_VALUE;
+        long overallMax = Long.MIN_VALUE;
+        for (PartitionState state : partitions.values()) {
+            overallMax = Math.max(overallMax, state.maxEventTime);
+            if (nowMillis - state.lastActivity < idleTimeoutMillis) {
+                activeMin = Math.min(activeMin, state.maxEventTime);
+            }
+        }
+
+        // When every partition is idle the most advanced one defines progress
+        long candidate = activeMin != Long.MAX_VALUE ? activeMin : overallMax;
+        if (candidate != Long.MIN_VALUE) {
+            watermark = Math.max(watermark, candidate - outOfOrdernessMillis);
+        }
+        return watermark;
+    }
+
+    private static final class PartitionState {
+        private long maxEventTime = Long.MIN_VALUE;
+        private long lastActivity;
+    }
+}
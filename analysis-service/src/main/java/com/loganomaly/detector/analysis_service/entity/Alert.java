@@ -5,12 +5,25 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "alerts")
+// Mirrors the Flyway migrations; the partial indexes on unacknowledged alerts and on the
+// live row per fingerprint exist only there
+@Table(name = "alerts", indexes = {
+        @Index(name = "idx_alerts_fingerprint", columnList = "fingerprint"),
+        @Index(name = "idx_alerts_detected_at", columnList = "detected_at DESC"),
+        @Index(name = "idx_alerts_type_service_detected_at", columnList = "type, service, detected_at"),
+        @Index(name = "idx_alerts_service_detected_at", columnList = "service, detected_at DESC"),
+        @Index(name = "idx_alerts_status_last_seen_at", columnList = "status, last_seen_at"),
+        @Index(name = "idx_alerts_incident_id", columnList = "incident_id, detected_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -37,6 +50,27 @@ public class Alert {
     @Column(name = "detected_at", nullable = false)
     private Instant detectedAt;
 
+    @Column(name = "fingerprint", length = 16)
+    private String fingerprint;  // Hash of type, service and rule parameters; one live row per fingerprint
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private String status = "OPEN";  // OPEN, UPDATING (raised again while open), RESOLVED
+
+    @Column(name = "occurrence_count", nullable = false)
+    @Builder.Default
+    private int occurrenceCount = 1;
+
+    @Column(name = "last_seen_at")
+    private Instant lastSeenAt;
+
+    @Column(name = "resolved_at")
+    private Instant resolvedAt;
+
+    @Column(name = "flap_count", nullable = false)
+    @Builder.Default
+    private int flapCount = 0;  // Times the alert was reopened shortly after resolving
+
     @Column(name = "acknowledged", nullable = false)
     @Builder.Default
     private boolean acknowledged = false;
@@ -47,11 +81,25 @@ public class Alert {
     @Column(name = "acknowledged_by", length = 100)
     private String acknowledgedBy;
 
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "context", columnDefinition = "jsonb")
+    private Map<String, Object> context;  // Detection context, e.g. top services/templates at detection time
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "samples", columnDefinition = "jsonb")
+    private List<EventSample> samples;  // Uniform sample of the events that triggered the alert
+
+    @Column(name = "incident_id")
+    private UUID incidentId;  // Incident grouping this alert with related alerts
+
     @PrePersist
     protected void onCreate() {
         if (detectedAt == null) {
             detectedAt = Instant.now();
         }
+        if (lastSeenAt == null) {
+            lastSeenAt = detectedAt;
+        }
     }
 }
 
@@ -0,0 +1,21 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Example event kept with an alert, so the alert detail needs no query over log_events
+ */
+public record EventSample(UUID eventId, Instant timestamp, String level, String message) {
+
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    public static EventSample of(LogEvent event) {
+        String message = event.getMessage();
+        // Cut on a code point boundary, so a surrogate pair is never split
+        if (message != null && message.codePointCount(0, message.length()) > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, message.offsetByCodePoints(0, MAX_MESSAGE_LENGTH)) + "...";
+        }
+        return new EventSample(event.getId(), event.getTimestamp(), event.getLevel(), message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Entity
+@Table(name = "incidents", indexes = @Index(name = "idx_incidents_status_last_alert_at", columnList = "status, last_alert_at DESC"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Incident {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;  // OPEN, CLOSED (no related alert within the window), MERGED
+
+    @Column(name = "severity", nullable = false, length = 20)
+    private String severity;  // Highest severity of the member alerts
+
+    @Column(name = "title", nullable = false, columnDefinition = "TEXT")
+    private String title;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "services", columnDefinition = "jsonb")
+    @Builder.Default
+    private List<String> services = new ArrayList<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "alert_types", columnDefinition = "jsonb")
+    @Builder.Default
+    private List<String> alertTypes = new ArrayList<>();
+
+    @Column(name = "alert_count", nullable = false)
+    private int alertCount;
+
+    @Column(name = "first_alert_at", nullable = false)
+    private Instant firstAlertAt;
+
+    @Column(name = "last_alert_at", nullable = false)
+    private Instant lastAlertAt;
+
+    @Column(name = "merged_into")
+    private UUID mergedInto;  // Surviving incident when two clusters were linked
+}
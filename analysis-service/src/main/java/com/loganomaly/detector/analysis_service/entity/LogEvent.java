@@ -1,10 +1,12 @@
 package com.loganomaly.detector.analysis_service.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -13,9 +15,14 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "log_events")
+// Mirrors the Flyway migrations; the partitioning and the BRIN index exist only there
+@Table(name = "log_events", indexes = {
+        @Index(name = "idx_log_events_service_timestamp", columnList = "service_id, timestamp DESC"),
+        @Index(name = "idx_log_events_level_timestamp", columnList = "level_id, timestamp DESC"),
+        @Index(name = "idx_log_events_timestamp", columnList = "timestamp DESC")
+})
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class LogEvent {
@@ -27,13 +34,28 @@ public class LogEvent {
     @Column(name = "timestamp", nullable = false)
     private Instant timestamp;
 
-    @Column(name = "level", nullable = false, length = 20)
+    // Stored as a smallint code (LogLevel), exposed as the level name
+    @Convert(converter = LogLevelConverter.class)
+    @Column(name = "level_id", nullable = false)
     private String level;
 
-    @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+    // Characters of the message loaded by queries; getEventById loads the full body
+    public static final int PREVIEW_LENGTH = 200;
+
+    // Bodies are stored once in log_messages, keyed by their SHA-256 (see MessageStore)
+    @Formula("(SELECT m.preview FROM log_messages m WHERE m.hash = message_hash)")
     private String message;
 
-    @Column(name = "service", nullable = false, length = 100)
+    @Formula("COALESCE((SELECT m.length > " + PREVIEW_LENGTH + " FROM log_messages m WHERE m.hash = message_hash), false)")
+    private boolean messageTruncated;
+
+    @JsonIgnore
+    @Column(name = "message_hash", nullable = false, length = 32)
+    private byte[] messageHash;
+
+    // Stored as the id of the services dimension table, exposed as the service name
+    @Convert(converter = ServiceIdConverter.class)
+    @Column(name = "service_id", nullable = false)
     private String service;
 
     @JdbcTypeCode(SqlTypes.JSON)
@@ -0,0 +1,46 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import java.util.Locale;
+
+/**
+ * Log levels and their smallint codes in log_events.level_id.
+ * The codes are persisted: append new levels, never renumber.
+ */
+public enum LogLevel {
+    TRACE(0),
+    DEBUG(1),
+    INFO(2),
+    WARN(3),
+    ERROR(4),
+    FATAL(5);
+
+    private final short code;
+
+    LogLevel(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    /**
+     * Level of a name, case-insensitive, with WARNING as an alias of WARN
+     */
+    public static LogLevel parse(String name) {
+        String upper = name.trim().toUpperCase(Locale.ROOT);
+        if (upper.equals("WARNING")) {
+            return WARN;
+        }
+        return valueOf(upper);
+    }
+
+    public static LogLevel fromCode(short code) {
+        for (LogLevel level : values()) {
+            if (level.code == code) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown log level code " + code);
+    }
+}
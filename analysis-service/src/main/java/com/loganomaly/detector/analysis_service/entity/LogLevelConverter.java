@@ -0,0 +1,21 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores the level name as its smallint code
+ */
+@Converter
+public class LogLevelConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String level) {
+        return level == null ? null : LogLevel.parse(level).getCode();
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code == null ? null : LogLevel.fromCode(code).name();
+    }
+}
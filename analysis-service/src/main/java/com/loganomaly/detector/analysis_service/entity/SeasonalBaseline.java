@@ -0,0 +1,34 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "seasonal_baselines")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeasonalBaseline {
+
+    @Id
+    @Column(name = "baseline_key", nullable = false, updatable = false, length = 130)
+    private String baselineKey;  // "<service>|<level>"
+
+    @Column(name = "service", nullable = false, length = 100)
+    private String service;
+
+    @Column(name = "level", nullable = false, length = 20)
+    private String level;
+
+    @Column(name = "slots", nullable = false, length = 4096)
+    private byte[] slots;  // HourOfWeekBaseline in binary form (168 x median/MAD/samples)
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
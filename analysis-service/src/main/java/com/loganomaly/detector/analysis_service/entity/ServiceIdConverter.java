@@ -0,0 +1,39 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import com.loganomaly.detector.analysis_service.service.ServiceDirectory;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the service name as its id in the services table (Spring-managed, so Hibernate
+ * gets the shared ServiceDirectory cache). Only looks ids up: the LogEventWriter registers
+ * the service of an event before saving it, and a query for an unknown name binds an id
+ * no service has, so it matches nothing instead of creating a row.
+ */
+@Component
+@Converter
+public class ServiceIdConverter implements AttributeConverter<String, Integer> {
+
+    static final int UNKNOWN_SERVICE_ID = -1;
+
+    private final ServiceDirectory services;
+
+    public ServiceIdConverter(ServiceDirectory services) {
+        this.services = services;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String service) {
+        if (service == null) {
+            return null;
+        }
+        Integer id = services.find(service);
+        return id == null ? UNKNOWN_SERVICE_ID : id;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : services.nameOf(id);
+    }
+}
@@ -2,10 +2,15 @@ package com.loganomaly.detector.analysis_service.repository;
 
 import com.loganomaly.detector.analysis_service.entity.Alert;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -50,5 +55,50 @@ public interface AlertRepository extends JpaRepository<Alert, UUID> {
      * Check if similar alert exists recently (to avoid duplicates)
      */
     boolean existsByTypeAndServiceAndDetectedAtAfter(String type, String service, Instant since);
-}
 
+    /**
+     * Find the latest alert with a fingerprint
+     */
+    Optional<Alert> findFirstByFingerprintOrderByLastSeenAtDesc(String fingerprint);
+
+    /**
+     * Insert a new OPEN alert unless its fingerprint already has a live (not resolved) row,
+     * atomically against the partial unique index; returns 0 if it had one
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO alerts (id, type, severity, message, service, detected_at, fingerprint, status,
+                                occurrence_count, last_seen_at, flap_count, acknowledged)
+            VALUES (:#{#alert.id}, :#{#alert.type}, :#{#alert.severity}, :#{#alert.message}, :#{#alert.service},
+                    :#{#alert.detectedAt}, :#{#alert.fingerprint}, 'OPEN', 1, :#{#alert.detectedAt}, 0, false)
+            ON CONFLICT (fingerprint) WHERE status <> 'RESOLVED' DO NOTHING
+            """, nativeQuery = true)
+    int insertIfNotLive(@Param("alert") Alert alert);
+
+    /**
+     * Find alerts in the given states that were last raised before a time
+     */
+    List<Alert> findByStatusInAndLastSeenAtBefore(Collection<String> statuses, Instant before);
+
+    /**
+     * Find alerts by status (newest first)
+     */
+    List<Alert> findByStatusOrderByDetectedAtDesc(String status);
+
+    /**
+     * Count alerts by status
+     */
+    long countByStatus(String status);
+
+    /**
+     * Find the member alerts of an incident
+     */
+    List<Alert> findByIncidentIdOrderByDetectedAtAsc(UUID incidentId);
+
+    /**
+     * Move all alerts of one incident to another (incident merge)
+     */
+    @Modifying
+    @Query("UPDATE Alert a SET a.incidentId = :target WHERE a.incidentId = :source")
+    int reassignIncident(@Param("source") UUID source, @Param("target") UUID target);
+}
@@ -0,0 +1,22 @@
+package com.loganomaly.detector.analysis_service.repository;
+
+import com.loganomaly.detector.analysis_service.entity.Incident;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface IncidentRepository extends JpaRepository<Incident, UUID> {
+
+    /**
+     * Find incidents with a status (newest activity first)
+     */
+    List<Incident> findByStatusOrderByLastAlertAtDesc(String status);
+
+    /**
+     * Find incidents that are not merged into another one (newest activity first)
+     */
+    List<Incident> findByStatusNotOrderByLastAlertAtDesc(String status);
+}
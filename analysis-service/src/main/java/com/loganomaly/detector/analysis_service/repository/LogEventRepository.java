@@ -13,16 +13,6 @@ import java.util.UUID;
 @Repository
 public interface LogEventRepository extends JpaRepository<LogEvent, UUID> {
 
-    /**
-     * Find log events by service name, ordered by timestamp descending
-     */
-    List<LogEvent> findByServiceOrderByTimestampDesc(String service);
-
-    /**
-     * Find log events by log level
-     */
-    List<LogEvent> findByLevelOrderByTimestampDesc(String level);
-
     /**
      * Find log events within a time range
      */
@@ -34,6 +24,12 @@ public interface LogEventRepository extends JpaRepository<LogEvent, UUID> {
     List<LogEvent> findByServiceAndTimestampBetweenOrderByTimestampDesc(
             String service, Instant start, Instant end);
 
+    /**
+     * Find log events by log level within a time range
+     */
+    List<LogEvent> findByLevelAndTimestampBetweenOrderByTimestampDesc(
+            String level, Instant start, Instant end);
+
     /**
      * Count log events by level within a time range (useful for anomaly detection)
      */
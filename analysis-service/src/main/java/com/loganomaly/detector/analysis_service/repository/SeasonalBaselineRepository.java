@@ -0,0 +1,9 @@
+package com.loganomaly.detector.analysis_service.repository;
+
+import com.loganomaly.detector.analysis_service.entity.SeasonalBaseline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SeasonalBaselineRepository extends JpaRepository<SeasonalBaseline, String> {
+}
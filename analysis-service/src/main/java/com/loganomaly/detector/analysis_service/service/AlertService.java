@@ -0,0 +1,184 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.AlertLifecycleProperties;
+import com.loganomaly.detector.analysis_service.detection.Hashing;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.repository.AlertRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single entry point for persisting alerts raised by the detectors.
+ * Enriches every alert with the sketch context at detection time and
+ * attaches it to an incident of related alerts.
+ *
+ * Alerts are grouped by fingerprint (type, service, rule parameters): while an alert with
+ * the same fingerprint is open it is updated in place (occurrence count, last seen, latest
+ * message) instead of inserting a new row. A partial unique index allows one live row per
+ * fingerprint, so concurrent consumers raising the same new alert end up on one row.
+ *
+ * Open alerts resolve after a quiet period; an alert raised again shortly after resolving
+ * is reopened and counted as a flap, and flapping alerts need a longer quiet period before
+ * they resolve again (hysteresis).
+ */
+@Service
+@RequiredArgsConstructor
+public class AlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertService.class);
+
+    private static final List<String> SEVERITIES = List.of("INFO", "WARNING", "CRITICAL");
+    private static final List<String> ACTIVE_STATES = List.of("OPEN", "UPDATING");
+
+    private final AlertRepository alertRepository;
+    private final HeavyHitterService heavyHitters;
+    private final IncidentService incidents;
+    private final AlertLifecycleProperties properties;
+    private final Clock clock;
+
+    /**
+     * Fingerprint of an alert rule instance, e.g. fingerprint("QUANTILE_SHIFT", service, key)
+     */
+    public static String fingerprint(String type, String service, String... params) {
+        StringBuilder key = new StringBuilder(type).append('|').append(service);
+        for (String param : params) {
+            key.append('|').append(param);
+        }
+        return String.format("%016x", Hashing.hash64(key));
+    }
+
+    @Transactional
+    public Alert raise(Alert alert) {
+        Map<String, Object> context = new LinkedHashMap<>(heavyHitters.alertContext(alert.getService()));
+        if (alert.getContext() != null) {
+            context.putAll(alert.getContext());
+        }
+        alert.setContext(context.isEmpty() ? null : context);
+        if (alert.getFingerprint() == null) {
+            alert.setFingerprint(fingerprint(alert.getType(), alert.getService()));
+        }
+        if (alert.getDetectedAt() == null) {
+            alert.setDetectedAt(clock.instant());
+        }
+
+        Optional<Alert> latest = alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(alert.getFingerprint());
+        if (latest.isPresent() && ACTIVE_STATES.contains(latest.get().getStatus())) {
+            return update(latest.get(), alert);
+        }
+        if (latest.isPresent() && isWithinReopenWindow(latest.get(), alert.getDetectedAt())) {
+            return reopen(latest.get(), alert);
+        }
+
+        alert.setId(UUID.randomUUID());
+        alert.setStatus("OPEN");
+        alert.setLastSeenAt(alert.getDetectedAt());
+        if (alertRepository.insertIfNotLive(alert) == 0) {
+            // Another consumer opened it concurrently; its row is committed once the insert returns
+            Optional<Alert> live = alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(alert.getFingerprint());
+            if (live.isPresent() && ACTIVE_STATES.contains(live.get().getStatus())) {
+                return update(live.get(), alert);
+            }
+            throw new IllegalStateException("No live alert for conflicting fingerprint " + alert.getFingerprint());
+        }
+        incidents.correlate(alert);
+        // Fills in the context, samples and incident of the inserted row
+        Alert saved = alertRepository.save(alert);
+
+        logger.warn("ALERT CREATED: {} - {} (severity: {})",
+                saved.getType(),
+                saved.getMessage(),
+                saved.getSeverity());
+        return saved;
+    }
+
+    /**
+     * Resolve open alerts that have not been raised again for the (hysteresis) quiet period
+     */
+    @Scheduled(fixedDelayString = "${anomaly.alert.resolve-interval-millis:60000}")
+    @Transactional
+    public void resolveQuietAlerts() {
+        Instant now = clock.instant();
+        List<Alert> resolved = new ArrayList<>();
+        for (Alert alert : alertRepository.findByStatusInAndLastSeenAtBefore(
+                ACTIVE_STATES, now.minus(properties.getResolveAfter()))) {
+            if (alert.getLastSeenAt().plus(quietPeriod(alert)).isAfter(now)) {
+                continue;
+            }
+            alert.setStatus("RESOLVED");
+            alert.setResolvedAt(now);
+            resolved.add(alert);
+        }
+        if (!resolved.isEmpty()) {
+            alertRepository.saveAll(resolved);
+            logger.info("Resolved {} quiet alert(s)", resolved.size());
+        }
+    }
+
+    private Alert update(Alert existing, Alert alert) {
+        existing.setStatus("UPDATING");
+        merge(existing, alert);
+        logger.debug("ALERT UPDATED: {} for {} (occurrence {})",
+                existing.getType(), existing.getService(), existing.getOccurrenceCount());
+        return alertRepository.save(existing);
+    }
+
+    private Alert reopen(Alert existing, Alert alert) {
+        existing.setStatus("OPEN");
+        existing.setResolvedAt(null);
+        existing.setFlapCount(existing.getFlapCount() + 1);
+        merge(existing, alert);
+        if (existing.getFlapCount() >= properties.getFlapThreshold()) {
+            logger.warn("ALERT FLAPPING: {} - {} (reopened {} times)",
+                    existing.getType(), existing.getMessage(), existing.getFlapCount());
+        } else {
+            logger.warn("ALERT REOPENED: {} - {} (severity: {})",
+                    existing.getType(), existing.getMessage(), existing.getSeverity());
+        }
+        return alertRepository.save(existing);
+    }
+
+    /**
+     * Carry the latest detection into the live alert row
+     */
+    private void merge(Alert existing, Alert alert) {
+        existing.setOccurrenceCount(existing.getOccurrenceCount() + 1);
+        existing.setLastSeenAt(alert.getDetectedAt());
+        existing.setMessage(alert.getMessage());
+        existing.setSeverity(maxSeverity(existing.getSeverity(), alert.getSeverity()));
+        existing.setContext(alert.getContext());
+        if (alert.getSamples() != null) {
+            existing.setSamples(alert.getSamples());
+        }
+    }
+
+    private boolean isWithinReopenWindow(Alert latest, Instant detectedAt) {
+        return "RESOLVED".equals(latest.getStatus())
+                && latest.getResolvedAt() != null
+                && !latest.getResolvedAt().plus(properties.getReopenWindow()).isBefore(detectedAt);
+    }
+
+    private Duration quietPeriod(Alert alert) {
+        if (alert.getFlapCount() >= properties.getFlapThreshold()) {
+            return properties.getResolveAfter().multipliedBy(properties.getFlappingResolveMultiplier());
+        }
+        return properties.getResolveAfter();
+    }
+
+    private static String maxSeverity(String a, String b) {
+        return SEVERITIES.indexOf(b) > SEVERITIES.indexOf(a) ? b : a;
+    }
+}
@@ -1,27 +1,49 @@
 package com.loganomaly.detector.analysis_service.service;
 
+import com.loganomaly.detector.analysis_service.detection.EventTimeWindows;
+import com.loganomaly.detector.analysis_service.detection.Reservoir;
 import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.EventSample;
 import com.loganomaly.detector.analysis_service.entity.LogEvent;
-import com.loganomaly.detector.analysis_service.repository.AlertRepository;
-import com.loganomaly.detector.analysis_service.repository.LogEventRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
-public class AnomalyDetectorService {
+public class AnomalyDetectorService implements DetectorStateOwner, SnapshotParticipant {
 
     private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectorService.class);
 
-    private final LogEventRepository logEventRepository;
-    private final AlertRepository alertRepository;
+    private final AlertService alertService;
+    private final SilenceDetectorService silenceDetector;
+    private final HeavyHitterService heavyHitters;
+    private final QuantileDetectorService quantileDetector;
+    private final SeasonalBaselineService seasonalBaselines;
+    private final SequenceDetectorService sequenceDetector;
+    private final WatermarkService watermarks;
+    private final DetectorStateRegistry stateRegistry;
+    private final Clock clock;
 
     @Value("${anomaly.error-threshold:5}")
     private int errorThreshold;
@@ -32,77 +54,271 @@ public class AnomalyDetectorService {
     @Value("${anomaly.cooldown-minutes:5}")
     private int cooldownMinutes;
 
+    @Value("${anomaly.sample-size:5}")
+    private int sampleSize;
+
+    @Value("${anomaly.analyzed-event-ids:100000}")
+    private int analyzedEventIds;
+
+    // Error counts per (service, level) in tumbling event-time windows
+    private EventTimeWindows<ServiceLevel, ErrorWindow> errorWindows;
+
+    // Event time of the last HIGH_ERROR_RATE alert per service (cooldown in event time)
+    private final Map<String, Long> lastAlertEventTime = new HashMap<>();
+
+    // Ids of the most recently analyzed events; a retried or redelivered event is analyzed once
+    private Set<UUID> analyzed;
+
+    private long lateEvents;
+
+    @PostConstruct
+    void initWindows() {
+        errorWindows = new EventTimeWindows<>(
+                timeWindowMinutes * 60_000L,
+                watermarks.allowedLatenessMillis(),
+                () -> new ErrorWindow(sampleSize));
+        analyzed = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > analyzedEventIds;
+            }
+        });
+    }
+
     /**
      * Analyze a log event for anomalies.
-     * Currently implements: High Error Rate detection
+     * Currently implements: High Error Rate detection, Service Silence tracking,
+     * numeric metadata quantile shifts, seasonal (hour-of-week) rates,
+     * template-transition sequences per correlation id
+     *
+     * Windowed rules use the event's own timestamp, so lagged or replayed events are
+     * counted in the window they belong to.
+     *
+     * The detectors keep their state in memory, which a rolled back transaction does not
+     * undo, so an event id seen before is skipped. The id is set by the producer and survives
+     * retry topics, where the record gets a new topic, partition and offset.
      */
     @Transactional
-    public void analyze(LogEvent event) {
+    public void analyze(LogEvent event, TopicPartition partition) {
+        if (!firstAnalysis(event)) {
+            logger.debug("Skipping event {} from {}, already analyzed", event.getId(), event.getService());
+            return;
+        }
+
+        // Unknown services beyond the state budget are analyzed as one shared bucket
+        String service = stateRegistry.admit(event.getService());
+        if (service != null && !service.equals(event.getService())) {
+            event = event.toBuilder().service(service).build();
+        }
+
+        long eventTime = watermarks.eventTime(event.getTimestamp());
+        long watermark = watermarks.observe(partition, eventTime);
+
+        // Every event proves the service is alive
+        silenceDetector.recordActivity(event);
+        heavyHitters.record(event);
+        quantileDetector.record(event, eventTime);
+
         // Rule 1: High Error Rate - more than N errors from same service in time window
         if ("ERROR".equals(event.getLevel()) || "FATAL".equals(event.getLevel())) {
-            checkHighErrorRate(event);
+            checkHighErrorRate(event, eventTime, watermark);
         }
 
+        // Rule 2: Seasonal rate - per-minute rate far above the usual rate for this hour of the week
+        seasonalBaselines.record(event, eventTime);
+
+        // Rule 3: Sequence - improbable template transition within one request/trace
+        sequenceDetector.record(event);
+
+        closeWindows(watermark);
+
         // Future rules can be added here:
         // - Security breach keywords detection
         // - Unusual activity patterns
         // - Service health degradation
     }
 
+    private synchronized boolean firstAnalysis(LogEvent event) {
+        return event.getId() == null || analyzed.add(event.getId());
+    }
+
+    /**
+     * Number of events that arrived after their window had closed
+     */
+    public synchronized long getLateEvents() {
+        return lateEvents;
+    }
+
+    @Override
+    public String stateName() {
+        return "error-rate";
+    }
+
+    @Override
+    public synchronized int stateEntries() {
+        return errorWindows.size() + lastAlertEventTime.size();
+    }
+
+    @Override
+    public synchronized long estimatedStateBytes() {
+        return errorWindows.size() * (256L + 640L * sampleSize) + lastAlertEventTime.size() * 96L;
+    }
+
+    @Override
+    public synchronized void evictService(String service) {
+        errorWindows.removeKeys(key -> key.service().equals(service));
+        lastAlertEventTime.remove(service);
+    }
+
+    @Override
+    public String snapshotName() {
+        return "error-rate";
+    }
+
+    /**
+     * Open error windows (counts, alerted flags) and the per-service cooldowns.
+     * Sampled events are not saved.
+     */
+    @Override
+    public synchronized void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(lateEvents);
+        List<EventTimeWindows.Window<ServiceLevel, ErrorWindow>> open = errorWindows.openWindows();
+        out.writeInt(open.size());
+        for (EventTimeWindows.Window<ServiceLevel, ErrorWindow> window : open) {
+            out.writeUTF(window.key().service());
+            out.writeUTF(window.key().level());
+            out.writeLong(window.start());
+            out.writeLong(window.aggregate().count);
+            out.writeBoolean(window.aggregate().alerted);
+        }
+        out.writeInt(lastAlertEventTime.size());
+        for (Map.Entry<String, Long> entry : lastAlertEventTime.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+        lateEvents = in.readLong();
+        int windows = in.readInt();
+        for (int i = 0; i < windows; i++) {
+            ServiceLevel key = new ServiceLevel(in.readUTF(), in.readUTF());
+            long start = in.readLong();
+            ErrorWindow errors = errorWindows.windowFor(key, start, Long.MIN_VALUE).aggregate();
+            errors.count = in.readLong();
+            errors.alerted = in.readBoolean();
+        }
+        int cooldowns = in.readInt();
+        for (int i = 0; i < cooldowns; i++) {
+            lastAlertEventTime.put(in.readUTF(), in.readLong());
+        }
+    }
+
     /**
      * Check if error rate exceeds threshold for a service
      */
-    private void checkHighErrorRate(LogEvent event) {
-        Instant windowStart = Instant.now().minus(timeWindowMinutes, ChronoUnit.MINUTES);
-        
-        // Count recent errors for this service
-        long errorCount = logEventRepository.countByLevelAndTimestampBetween(
-                event.getLevel(),
-                windowStart,
-                Instant.now()
-        );
-
-        if (errorCount > errorThreshold) {
+    private void checkHighErrorRate(LogEvent event, long eventTime, long watermark) {
+        Alert alert;
+        synchronized (this) {
+            EventTimeWindows.Window<ServiceLevel, ErrorWindow> window = errorWindows.windowFor(
+                    new ServiceLevel(event.getService(), event.getLevel()), eventTime, watermark);
+            if (window == null) {
+                lateEvents++;
+                logger.debug("Dropping late {} event {} from {} (event time {}, watermark {})",
+                        event.getLevel(), event.getId(), event.getService(),
+                        event.getTimestamp(), Instant.ofEpochMilli(watermark));
+                return;
+            }
+
+            ErrorWindow errors = window.aggregate();
+            errors.count++;
+            errors.samples.offer(event, EventSample::of);
+            if (errors.count <= errorThreshold || errors.alerted) {
+                return;
+            }
+
+            // A rate that is normal for this hour of the week is not an anomaly
+            if (seasonalBaselines.isWithinSeasonalNorm(event.getService(), event.getLevel(),
+                    (double) errors.count / timeWindowMinutes, eventTime)) {
+                logger.debug("Skipping alert for {} - rate within seasonal baseline", event.getService());
+                return;
+            }
+
             // Check cooldown - don't create duplicate alerts
-            Instant cooldownStart = Instant.now().minus(cooldownMinutes, ChronoUnit.MINUTES);
-            boolean recentAlertExists = alertRepository.existsByTypeAndServiceAndDetectedAtAfter(
-                    "HIGH_ERROR_RATE",
-                    event.getService(),
-                    cooldownStart
-            );
-
-            if (!recentAlertExists) {
-                createHighErrorRateAlert(event, errorCount);
-            } else {
+            Long lastAlert = lastAlertEventTime.get(event.getService());
+            if (lastAlert != null && Math.abs(eventTime - lastAlert) < cooldownMinutes * 60_000L) {
                 logger.debug("Skipping alert for {} - cooldown period active", event.getService());
+                return;
+            }
+
+            errors.alerted = true;
+            Long previous = lastAlertEventTime.put(event.getService(), eventTime);
+            reopenOnRollback(errors, event.getService(), previous);
+            alert = buildHighErrorRateAlert(event, errors, window.start());
+        }
+        alertService.raise(alert);
+    }
+
+    /**
+     * The retry of a rolled back event is skipped, so the alert it raised must be able to fire
+     * again on the next error of the window
+     */
+    private void reopenOnRollback(ErrorWindow errors, String service, Long previousAlert) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                synchronized (AnomalyDetectorService.this) {
+                    errors.alerted = false;
+                    if (previousAlert == null) {
+                        lastAlertEventTime.remove(service);
+                    } else {
+                        lastAlertEventTime.put(service, previousAlert);
+                    }
+                }
             }
+        });
+    }
+
+    /**
+     * Drop the state of windows the watermark has passed
+     */
+    private synchronized void closeWindows(long watermark) {
+        List<EventTimeWindows.Window<ServiceLevel, ErrorWindow>> closed = errorWindows.closeUpTo(watermark);
+        if (!closed.isEmpty()) {
+            long horizon = watermark - cooldownMinutes * 60_000L;
+            lastAlertEventTime.values().removeIf(time -> time < horizon);
         }
     }
 
     /**
      * Create an alert for high error rate
      */
-    private void createHighErrorRateAlert(LogEvent event, long errorCount) {
-        Alert alert = Alert.builder()
+    private Alert buildHighErrorRateAlert(LogEvent event, ErrorWindow errors, long windowStart) {
+        long errorCount = errors.count;
+        return Alert.builder()
                 .type("HIGH_ERROR_RATE")
                 .severity(determineSeverity(errorCount))
                 .message(String.format(
-                        "High error rate detected: %d %s events from service '%s' in the last %d minute(s)",
+                        "High error rate detected: %d %s events from service '%s' in the %d minute(s) starting %s",
                         errorCount,
                         event.getLevel(),
                         event.getService(),
-                        timeWindowMinutes
+                        timeWindowMinutes,
+                        Instant.ofEpochMilli(windowStart)
                 ))
                 .service(event.getService())
-                .detectedAt(Instant.now())
+                // ERROR and FATAL bursts are separate windows, so separate alerts
+                .fingerprint(AlertService.fingerprint("HIGH_ERROR_RATE", event.getService(), event.getLevel()))
+                .detectedAt(clock.instant())
+                .samples(errors.samples.sample())
                 .build();
-
-        Alert saved = alertRepository.save(alert);
-        
-        logger.warn("ALERT CREATED: {} - {} (severity: {})",
-                saved.getType(),
-                saved.getMessage(),
-                saved.getSeverity());
     }
 
     /**
@@ -116,5 +332,16 @@ public class AnomalyDetectorService {
         }
         return "INFO";
     }
-}
 
+    private record ServiceLevel(String service, String level) {}
+
+    private static final class ErrorWindow {
+        private final Reservoir<EventSample> samples;
+        private long count;
+        private boolean alerted;
+
+        private ErrorWindow(int sampleSize) {
+            this.samples = new Reservoir<>(sampleSize);
+        }
+    }
+}
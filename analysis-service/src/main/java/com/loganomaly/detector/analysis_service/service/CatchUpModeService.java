@@ -0,0 +1,96 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.CatchUpProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Switches the consumer into a degraded catch-up mode while it is far behind.
+ *
+ * The lag is the age of each record (processing time minus the Kafka record timestamp),
+ * smoothed so a single replayed record does not flip the mode. Above the enter lag only
+ * WARN and above plus a small sample of lower levels are stored and the per-event INFO
+ * log is dropped; every event is still analyzed, so rates and alerts stay accurate and
+ * fresh. The mode ends once the lag falls below the (lower) exit lag.
+ */
+@Service
+public class CatchUpModeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatchUpModeService.class);
+
+    private static final Set<String> ALWAYS_STORED = Set.of("WARN", "WARNING", "ERROR", "FATAL");
+
+    private final CatchUpProperties properties;
+    private final Clock clock;
+    private final Counter skippedEvents;
+
+    private double smoothedLagMillis;
+    private volatile boolean active;
+
+    public CatchUpModeService(CatchUpProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clock = clock;
+        this.skippedEvents = Counter.builder("analysis.catch-up.skipped.events")
+                .description("Low-level events analyzed but not stored during catch-up mode")
+                .register(meterRegistry);
+        Gauge.builder("analysis.catch-up.active", this, s -> s.isActive() ? 1 : 0)
+                .register(meterRegistry);
+        Gauge.builder("analysis.catch-up.lag", this, CatchUpModeService::getLagMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Update the lag with a processed record's timestamp and enter or leave catch-up mode
+     */
+    public void observe(long recordTimestampMillis) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long lag = Math.max(0, clock.millis() - recordTimestampMillis);
+        synchronized (this) {
+            smoothedLagMillis += properties.getLagSmoothing() * (lag - smoothedLagMillis);
+            if (!active && smoothedLagMillis > properties.getEnterLag().toMillis()) {
+                active = true;
+                logger.warn("Entering catch-up mode: {} behind, storing only WARN and above",
+                        Duration.ofMillis((long) smoothedLagMillis));
+            } else if (active && smoothedLagMillis < properties.getExitLag().toMillis()) {
+                active = false;
+                logger.info("Leaving catch-up mode: {} behind", Duration.ofMillis((long) smoothedLagMillis));
+            }
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public synchronized long getLagMillis() {
+        return (long) smoothedLagMillis;
+    }
+
+    /**
+     * Whether to store an event: always outside catch-up mode, otherwise WARN and above
+     * and a sample of the rest
+     */
+    public boolean shouldStore(LogEvent event) {
+        if (!active || ALWAYS_STORED.contains(event.getLevel())) {
+            return true;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < properties.getLowLevelSampleRate()) {
+            return true;
+        }
+        skippedEvents.increment();
+        return false;
+    }
+}
@@ -0,0 +1,234 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.ConsumerScalingProperties;
+import com.loganomaly.detector.analysis_service.config.ParallelConsumerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Scales the log-events listener container with the consumer lag.
+ *
+ * Every evaluation reads the group's committed offsets and the partitions' end offsets,
+ * and derives each partition's processing rate from how far its committed offset moved
+ * since the previous evaluation. When the lag would take longer than the target drain
+ * time at that rate, the concurrency doubles (up to the bound and the partition count)
+ * and the poll batch grows with it; once the lag is small the concurrency steps back down.
+ * Changes restart the container, so a cooldown keeps rebalances rare.
+ */
+@Service
+@ConditionalOnProperty(name = "analysis.scaling.enabled", havingValue = "true")
+public class ConsumerScalingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerScalingService.class);
+
+    private final ConsumerScalingProperties properties;
+    private final KafkaListenerEndpointRegistry registry;
+    private final KafkaAdmin kafkaAdmin;
+    private final Clock clock;
+    private final String listenerId;
+    private final String topic;
+    private final String groupId;
+    private final Counter scaleUps;
+    private final Counter scaleDowns;
+
+    private AdminClient adminClient;
+    private Map<TopicPartition, Long> previousCommitted = Map.of();
+    private Instant previousEvaluation;
+    private Instant lastChange = Instant.EPOCH;
+    private volatile long totalLag;
+    private volatile double recordsPerSecond;
+    private volatile int concurrency;
+    private volatile int pollRecords;
+
+    public ConsumerScalingService(ConsumerScalingProperties properties,
+                                  ParallelConsumerProperties consumerProperties,
+                                  KafkaListenerEndpointRegistry registry,
+                                  KafkaAdmin kafkaAdmin,
+                                  MeterRegistry meterRegistry,
+                                  Clock clock,
+                                  @Value("${spring.kafka.topic.log-events}") String topic,
+                                  @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.properties = properties;
+        this.registry = registry;
+        this.kafkaAdmin = kafkaAdmin;
+        this.clock = clock;
+        this.listenerId = "parallel".equals(consumerProperties.getMode()) ? "log-events-parallel" : "log-events";
+        this.topic = topic;
+        this.groupId = groupId;
+        this.concurrency = properties.getMinConcurrency();
+        this.pollRecords = properties.getMinPollRecords();
+
+        Gauge.builder("analysis.consumer.lag", this, s -> s.totalLag)
+                .description("Records behind the end of the log-events topic")
+                .register(meterRegistry);
+        Gauge.builder("analysis.consumer.rate", this, s -> s.recordsPerSecond)
+                .description("Committed records per second over the last evaluation")
+                .register(meterRegistry);
+        Gauge.builder("analysis.consumer.concurrency", this, s -> s.concurrency)
+                .register(meterRegistry);
+        Gauge.builder("analysis.consumer.max.poll.records", this, s -> s.pollRecords)
+                .register(meterRegistry);
+        this.scaleUps = Counter.builder("analysis.consumer.scaling.decisions").tag("direction", "up")
+                .register(meterRegistry);
+        this.scaleDowns = Counter.builder("analysis.consumer.scaling.decisions").tag("direction", "down")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.scaling.interval-millis:30000}",
+            initialDelayString = "${analysis.scaling.interval-millis:30000}")
+    public void evaluate() {
+        MessageListenerContainer container = registry.getListenerContainer(listenerId);
+        if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) || !container.isRunning()) {
+            return;
+        }
+
+        Map<TopicPartition, Long> committed;
+        Map<TopicPartition, Long> endOffsets;
+        try {
+            committed = committedOffsets();
+            endOffsets = endOffsets(committed.keySet());
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Could not read consumer lag of group {}: {}", groupId, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Instant now = clock.instant();
+        long lag = 0;
+        long processed = 0;
+        for (Map.Entry<TopicPartition, Long> entry : committed.entrySet()) {
+            long partitionLag = Math.max(0, endOffsets.getOrDefault(entry.getKey(), entry.getValue()) - entry.getValue());
+            long partitionProcessed = Math.max(0, entry.getValue() - previousCommitted.getOrDefault(entry.getKey(), entry.getValue()));
+            lag += partitionLag;
+            processed += partitionProcessed;
+            logger.debug("{}: lag {}, {} records since last evaluation", entry.getKey(), partitionLag, partitionProcessed);
+        }
+        double seconds = previousEvaluation == null ? 0 : (now.toEpochMilli() - previousEvaluation.toEpochMilli()) / 1000.0;
+        totalLag = lag;
+        recordsPerSecond = seconds > 0 ? processed / seconds : 0;
+        previousCommitted = committed;
+        previousEvaluation = now;
+
+        int current = concurrent.getConcurrency();
+        concurrency = current;
+        int target = targetConcurrency(lag, recordsPerSecond, current, committed.size());
+        if (target == current || lastChange.plus(properties.getCooldown()).isAfter(now)) {
+            return;
+        }
+        rescale(concurrent, current, target, lag);
+        lastChange = now;
+    }
+
+    /**
+     * Concurrency for the measured lag and rate: doubled while the lag would not drain
+     * within the target time, one step down once it is small, within the bounds
+     */
+    int targetConcurrency(long lag, double recordsPerSecond, int current, int partitions) {
+        int upperBound = Math.max(properties.getMinConcurrency(),
+                Math.min(properties.getMaxConcurrency(), partitions > 0 ? partitions : Integer.MAX_VALUE));
+        double drainSeconds = recordsPerSecond > 0 ? lag / recordsPerSecond : (lag > 0 ? Double.MAX_VALUE : 0);
+
+        int target = current;
+        if (lag > properties.getScaleDownLag() && drainSeconds > properties.getTargetDrainTime().toSeconds()) {
+            target = current * 2;
+        } else if (lag <= properties.getScaleDownLag()) {
+            target = current - 1;
+        }
+        return Math.max(properties.getMinConcurrency(), Math.min(upperBound, target));
+    }
+
+    /**
+     * max.poll.records for a concurrency: linear between the bounds
+     */
+    int pollRecordsFor(int concurrency) {
+        int range = Math.max(1, properties.getMaxConcurrency() - properties.getMinConcurrency());
+        double fraction = Math.min(1.0, Math.max(0.0, (concurrency - properties.getMinConcurrency()) / (double) range));
+        return (int) Math.round(properties.getMinPollRecords()
+                + fraction * (properties.getMaxPollRecords() - properties.getMinPollRecords()));
+    }
+
+    @PreDestroy
+    void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    private void rescale(ConcurrentMessageListenerContainer<?, ?> container, int current, int target, long lag) {
+        int records = pollRecordsFor(target);
+        logger.info("Scaling listener {} from {} to {} consumer(s), max.poll.records {} (lag {}, {} records/s)",
+                listenerId, current, target, records, lag, String.format("%.1f", recordsPerSecond));
+
+        Properties overrides = new Properties();
+        overrides.putAll(container.getContainerProperties().getKafkaConsumerProperties());
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(records));
+
+        // Concurrency and consumer properties apply on the next start
+        container.stop(() -> {
+            container.setConcurrency(target);
+            container.getContainerProperties().setKafkaConsumerProperties(overrides);
+            container.start();
+        });
+        concurrency = target;
+        pollRecords = records;
+        (target > current ? scaleUps : scaleDowns).increment();
+    }
+
+    private Map<TopicPartition, Long> committedOffsets() throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetAndMetadata> offsets = admin().listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(10, TimeUnit.SECONDS);
+        return offsets.entrySet().stream()
+                .filter(entry -> entry.getKey().topic().equals(topic) && entry.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().offset()));
+    }
+
+    private Map<TopicPartition, Long> endOffsets(Iterable<TopicPartition> partitions)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        partitions.forEach(partition -> request.put(partition, OffsetSpec.latest()));
+        if (request.isEmpty()) {
+            return Map.of();
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> result =
+                admin().listOffsets(request).all().get(10, TimeUnit.SECONDS);
+        return result.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().offset()));
+    }
+
+    private AdminClient admin() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+}
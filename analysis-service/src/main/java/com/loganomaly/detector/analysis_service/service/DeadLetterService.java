@@ -0,0 +1,188 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dead-letter topic of the log events (&lt;topic&gt;-dlt).
+ *
+ * Records land there after the last retry tier, or right away when they cannot be parsed,
+ * with the original topic, partition and offset and the exception in the standard
+ * kafka_dlt-* headers. Replay re-publishes them to the log-events topic through a
+ * dedicated consumer group, committing each record only once it has been sent.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    // Covers the initial rebalance delay of a new group (3s by default)
+    private static final Duration REPLAY_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ObjectProvider<KafkaTemplate<String, String>> kafkaTemplate;
+    private final ObjectProvider<ConsumerFactory<String, String>> consumerFactory;
+    private final MeterRegistry meterRegistry;
+    private final String topic;
+    private final String deadLetterTopic;
+    private final String replayGroupId;
+
+    private volatile DeadLetterPublishingRecoverer recoverer;
+
+    public DeadLetterService(ObjectProvider<KafkaTemplate<String, String>> kafkaTemplate,
+                             ObjectProvider<ConsumerFactory<String, String>> consumerFactory,
+                             MeterRegistry meterRegistry,
+                             @Value("${spring.kafka.topic.log-events}") String topic,
+                             @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.consumerFactory = consumerFactory;
+        this.meterRegistry = meterRegistry;
+        this.topic = topic;
+        this.deadLetterTopic = topic + "-dlt";
+        this.replayGroupId = groupId + "-dlt-replay";
+    }
+
+    /**
+     * Failure metadata of a dead-lettered record
+     */
+    public record Failure(String originalTopic, Integer originalPartition, Long originalOffset,
+                          String exception, String message) {}
+
+    public static Failure failureOf(ConsumerRecord<?, ?> record) {
+        return new Failure(
+                stringHeader(record, KafkaHeaders.DLT_ORIGINAL_TOPIC),
+                intHeader(record, KafkaHeaders.DLT_ORIGINAL_PARTITION),
+                longHeader(record, KafkaHeaders.DLT_ORIGINAL_OFFSET),
+                stringHeader(record, KafkaHeaders.DLT_EXCEPTION_FQCN),
+                stringHeader(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    public void recordDeadLetter(Failure failure) {
+        String exception = failure.exception() == null ? "unknown"
+                : failure.exception().substring(failure.exception().lastIndexOf('.') + 1);
+        Counter.builder("analysis.dead.letters")
+                .description("Log events sent to the dead-letter topic")
+                .tag("exception", exception)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Send a record straight to the dead-letter topic with the failure headers
+     * (parallel mode, which has no retry topics)
+     */
+    public void publish(ConsumerRecord<?, ?> record, Exception failure) {
+        DeadLetterPublishingRecoverer current = recoverer;
+        if (current == null) {
+            current = new DeadLetterPublishingRecoverer(kafkaTemplate.getObject(),
+                    (failed, e) -> new TopicPartition(deadLetterTopic, -1));
+            recoverer = current;
+        }
+        current.accept(record, failure);
+        recordDeadLetter(new Failure(record.topic(), record.partition(), record.offset(),
+                failure.getClass().getName(), failure.getMessage()));
+    }
+
+    /**
+     * Re-publish up to limit dead-lettered records to the log-events topic.
+     *
+     * The replay group joins freshly each time, and the broker delays the first assignment
+     * of a new group (group.initial.rebalance.delay.ms), so empty polls are expected at
+     * first. It reads until the end offsets seen at assignment (records dead-lettered
+     * meanwhile wait for the next replay), the limit, or the timeout.
+     */
+    public int replay(int limit) throws ExecutionException, InterruptedException, TimeoutException {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.min(limit, 500)));
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+
+        int replayed = 0;
+        long deadline = System.nanoTime() + REPLAY_TIMEOUT.toNanos();
+        try (Consumer<String, String> consumer = consumerFactory.getObject()
+                .createConsumer(replayGroupId, "dlt-replay", null, overrides)) {
+            consumer.subscribe(List.of(deadLetterTopic));
+            Map<TopicPartition, Long> endOffsets = null;
+            while (replayed < limit && System.nanoTime() < deadline) {
+                ConsumerRecords<String, String> records = consumer.poll(POLL_TIMEOUT);
+                if (endOffsets == null) {
+                    if (consumer.assignment().isEmpty()) {
+                        continue;
+                    }
+                    endOffsets = consumer.endOffsets(consumer.assignment());
+                }
+                for (ConsumerRecord<String, String> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed >= limit || record.offset() >= endOffsets.getOrDefault(partition, 0L)) {
+                        continue;
+                    }
+                    kafkaTemplate.getObject().send(topic, record.key(), record.value()).get(10, TimeUnit.SECONDS);
+                    consumer.commitSync(Map.of(partition, new OffsetAndMetadata(record.offset() + 1)));
+                    replayed++;
+                }
+                if (reachedEnd(consumer, endOffsets)) {
+                    break;
+                }
+            }
+            if (endOffsets == null) {
+                logger.warn("No partition of {} assigned to the replay within {}", deadLetterTopic, REPLAY_TIMEOUT);
+            }
+        }
+        logger.info("Replayed {} dead-lettered log event(s) from {}", replayed, deadLetterTopic);
+        return replayed;
+    }
+
+    private static boolean reachedEnd(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.assignment().contains(end.getKey()) && consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String stringHeader(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    static Integer intHeader(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null || header.value().length != Integer.BYTES ? null : ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    static Long longHeader(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null || header.value().length != Long.BYTES ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+}
@@ -0,0 +1,35 @@
+package com.loganomaly.detector.analysis_service.service;
+
+/**
+ * A detector holding per-service state, registered with the {@link DetectorStateRegistry}
+ */
+public interface DetectorStateOwner {
+
+    /**
+     * Name used as the metric tag, e.g. "quantile"
+     */
+    String stateName();
+
+    /**
+     * Number of state entries (windows, series, baselines, ...)
+     */
+    int stateEntries();
+
+    /**
+     * Rough heap size of the state in bytes
+     */
+    long estimatedStateBytes();
+
+    /**
+     * Drop all state kept for a service
+     */
+    void evictService(String service);
+
+    /**
+     * Whether the state is bounded by the detector's own caps instead of per service, so
+     * evicting services frees nothing; such state is left out of the memory budget
+     */
+    default boolean boundedByOwnCaps() {
+        return false;
+    }
+}
@@ -0,0 +1,198 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.StateBudgetProperties;
+import com.loganomaly.detector.analysis_service.detection.CountMinSketch;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Central admission control for per-service detector state.
+ *
+ * Service names come straight from the events, so a client sending random names could
+ * create unbounded state in every detector. Detectors only see services admitted here;
+ * everything else is folded into the "__other__" bucket. Admission is TinyLFU-style: while
+ * the service table is full, a new service replaces the least recently seen one only if it
+ * has been seen more often (frequencies in an aging Count-Min Sketch), so one-off names
+ * never push out established services. A scheduled check evicts the coldest services when
+ * the estimated state of the detectors exceeds the memory budget, and lowers the number of
+ * admitted services to what is left, so new services cannot refill the freed room until
+ * the state is well under budget again; the limit then grows back step by step. Detectors
+ * bounded by their own caps are not counted, since evicting services would not shrink them.
+ */
+@Service
+public class DetectorStateRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectorStateRegistry.class);
+
+    public static final String OTHER_SERVICE = "__other__";
+
+    private final StateBudgetProperties properties;
+    private final ObjectProvider<DetectorStateOwner> owners;
+    private final MeterRegistry meterRegistry;
+
+    // Admitted services in access order (eldest = least recently seen)
+    private final LinkedHashMap<String, Boolean> services = new LinkedHashMap<>(16, 0.75f, true);
+    private final CountMinSketch frequencies;
+    private final long agingPeriod;
+    private long additions;
+    // Services admitted at most, lowered while over the memory budget
+    private int admissionLimit;
+    private long spilledEvents;
+    private long evictedServices;
+
+    public DetectorStateRegistry(StateBudgetProperties properties,
+                                 ObjectProvider<DetectorStateOwner> owners,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.owners = owners;
+        this.meterRegistry = meterRegistry;
+        this.frequencies = new CountMinSketch(4, properties.getFrequencySketchWidth());
+        this.agingPeriod = 10L * properties.getMaxServices();
+        this.admissionLimit = properties.getMaxServices();
+    }
+
+    /**
+     * The service name detectors should key their state by: the service itself if admitted,
+     * otherwise {@link #OTHER_SERVICE}
+     */
+    public String admit(String service) {
+        if (service == null) {
+            return null;
+        }
+        String victim;
+        synchronized (this) {
+            frequencies.add(service, 1);
+            if (++additions >= agingPeriod) {
+                frequencies.halve();
+                additions = 0;
+            }
+
+            if (services.get(service) != null) {
+                return service;
+            }
+            if (services.size() < admissionLimit) {
+                services.put(service, Boolean.TRUE);
+                return service;
+            }
+
+            victim = services.keySet().iterator().next();
+            if (frequencies.estimate(service) <= frequencies.estimate(victim)) {
+                spilledEvents++;
+                return OTHER_SERVICE;
+            }
+            services.remove(victim);
+            services.put(service, Boolean.TRUE);
+            evictedServices++;
+        }
+        evictFromOwners(List.of(victim));
+        return service;
+    }
+
+    public static boolean isOther(String service) {
+        return OTHER_SERVICE.equals(service);
+    }
+
+    public synchronized int trackedServices() {
+        return services.size();
+    }
+
+    public synchronized long getSpilledEvents() {
+        return spilledEvents;
+    }
+
+    public synchronized long getEvictedServices() {
+        return evictedServices;
+    }
+
+    public synchronized int getAdmissionLimit() {
+        return admissionLimit;
+    }
+
+    /**
+     * Estimated state that evicting services can free
+     */
+    public long estimatedBytes() {
+        return owners.orderedStream()
+                .filter(owner -> !owner.boundedByOwnCaps())
+                .mapToLong(DetectorStateOwner::estimatedStateBytes)
+                .sum();
+    }
+
+    /**
+     * Evict the least recently seen services while the state is over the memory budget,
+     * and let the admission limit grow back once it is clearly below
+     */
+    @Scheduled(fixedDelayString = "${anomaly.state.budget-check-interval-millis:30000}")
+    public void enforceBudget() {
+        long budget = properties.getMemoryBudget().toBytes();
+        long used = estimatedBytes();
+        if (used <= budget) {
+            if (used < budget * (1 - properties.getEvictFraction())) {
+                synchronized (this) {
+                    int step = Math.max(1, (int) (properties.getMaxServices() * properties.getEvictFraction()));
+                    admissionLimit = Math.min(properties.getMaxServices(), admissionLimit + step);
+                }
+            }
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        int limit;
+        synchronized (this) {
+            int count = Math.max(1, (int) (services.size() * properties.getEvictFraction()));
+            Iterator<String> eldest = services.keySet().iterator();
+            while (eldest.hasNext() && evicted.size() < count) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+            evictedServices += evicted.size();
+            // New services now only replace colder ones instead of taking the freed room
+            admissionLimit = Math.max(1, services.size());
+            limit = admissionLimit;
+        }
+        evictFromOwners(evicted);
+        logger.warn("Detector state over budget ({} of {} bytes): evicted {} least recently seen service(s),"
+                + " admitting at most {}", used, budget, evicted.size(), limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void registerMetrics() {
+        Gauge.builder("detector.state.services", this, DetectorStateRegistry::trackedServices)
+                .description("Services with their own detector state")
+                .register(meterRegistry);
+        Gauge.builder("detector.state.spilled.events", this, DetectorStateRegistry::getSpilledEvents)
+                .description("Events counted under " + OTHER_SERVICE + " because the service table was full")
+                .register(meterRegistry);
+        Gauge.builder("detector.state.evicted.services", this, DetectorStateRegistry::getEvictedServices)
+                .register(meterRegistry);
+        Gauge.builder("detector.state.admission.limit", this, DetectorStateRegistry::getAdmissionLimit)
+                .description("Services admitted at most; below anomaly.state.max-services while over budget")
+                .register(meterRegistry);
+        owners.orderedStream().forEach(owner -> {
+            Gauge.builder("detector.state.entries", owner, DetectorStateOwner::stateEntries)
+                    .tag("detector", owner.stateName())
+                    .register(meterRegistry);
+            Gauge.builder("detector.state.bytes", owner, DetectorStateOwner::estimatedStateBytes)
+                    .tag("detector", owner.stateName())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        });
+    }
+
+    private void evictFromOwners(List<String> evicted) {
+        owners.orderedStream().forEach(owner -> evicted.forEach(owner::evictService));
+        logger.debug("Evicted detector state of {}", evicted);
+    }
+}
@@ -0,0 +1,296 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.RetentionProperties;
+import com.loganomaly.detector.analysis_service.config.RollupProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Event counts per (minute, service, level), kept in the event_rollups table.
+ *
+ * Consumed events are counted in memory and flushed as one batch of upserts every few
+ * seconds, so the table sees one write per minute, service and level instead of one per
+ * event. The hours a flush wrote to, late events included, are recomputed from the minutes
+ * in the background, and their days from the hours; histograms read the coarsest resolution
+ * that fits their step and never scan log_events.
+ * An event is counted once its transaction commits, so a record that fails and is retried
+ * is counted once. Counts are still at-least-once across a crash: records after the last
+ * flush or snapshot offset are redelivered and counted again.
+ */
+@Service
+public class EventRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventRollupService.class);
+
+    private static final String UPSERT = """
+            INSERT INTO event_rollups (resolution, bucket, service, level, count)
+            VALUES ('MINUTE', ?, ?, ?, ?)
+            ON CONFLICT (resolution, bucket, service, level) DO UPDATE SET count = event_rollups.count + EXCLUDED.count
+            """;
+
+    // Coarser buckets are recomputed as a whole, so a rerun is idempotent
+    private static final String COMPACT = """
+            INSERT INTO event_rollups (resolution, bucket, service, level, count)
+            SELECT ?, date_bin(?::interval, bucket, TIMESTAMPTZ '1970-01-01 00:00:00+00'), service, level, sum(count)
+            FROM event_rollups
+            WHERE resolution = ? AND bucket >= ? AND bucket < ?
+            GROUP BY 2, 3, 4
+            ON CONFLICT (resolution, bucket, service, level) DO UPDATE SET count = EXCLUDED.count
+            """;
+
+    public enum Resolution {
+        MINUTE(Duration.ofMinutes(1)),
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1));
+
+        private final Duration duration;
+
+        Resolution(Duration duration) {
+            this.duration = duration;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+    }
+
+    record Key(Instant bucket, String service, String level) {}
+
+    public record Bucket(Instant bucket, long count) {}
+
+    private final RollupProperties properties;
+    private final RetentionProperties retention;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Counter rowsUpserted;
+
+    private Map<Key, Long> pending = new HashMap<>();
+    // Hours with minute rows written since their last compaction
+    private final NavigableSet<Instant> uncompacted = new TreeSet<>();
+
+    public EventRollupService(RollupProperties properties,
+                              RetentionProperties retention,
+                              JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              Clock clock) {
+        this.properties = properties;
+        this.retention = retention;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.rowsUpserted = Counter.builder("analysis.rollups.upserts")
+                .description("Minute rollup rows upserted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count an event in its minute, after the current transaction commits if there is one;
+     * written with the next flush
+     */
+    public void record(LogEvent event) {
+        if (!properties.isEnabled() || event.getTimestamp() == null) {
+            return;
+        }
+        Key key = new Key(truncate(event.getTimestamp(), Resolution.MINUTE.duration), event.getService(), event.getLevel());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            count(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                count(key);
+            }
+        });
+    }
+
+    private synchronized void count(Key key) {
+        pending.merge(key, 1L, Long::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.rollups.flush-interval-millis:5000}")
+    public void flush() {
+        Map<Key, Long> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        // A fixed row order keeps concurrent flushes of several instances from deadlocking
+        List<Object[]> rows = batch.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(Key::bucket)
+                        .thenComparing(Key::service)
+                        .thenComparing(Key::level)))
+                .map(entry -> new Object[]{Timestamp.from(entry.getKey().bucket()),
+                        entry.getKey().service(), entry.getKey().level(), entry.getValue()})
+                .toList();
+        try {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+            rowsUpserted.increment(rows.size());
+            synchronized (this) {
+                batch.keySet().forEach(key -> uncompacted.add(truncate(key.bucket(), Resolution.HOUR.duration)));
+            }
+        } catch (DataAccessException e) {
+            // Keep the counts for the next flush
+            synchronized (this) {
+                batch.forEach((key, count) -> pending.merge(key, count, Long::sum));
+            }
+            logger.warn("Failed to flush {} rollup row(s), retrying: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute the hours flushed to since the last run, and their days. Buckets whose
+     * source rows retention may already have deleted are left as they are.
+     */
+    @Scheduled(fixedDelayString = "${analysis.rollups.compaction-interval-millis:60000}",
+            initialDelayString = "${analysis.rollups.compaction-interval-millis:60000}")
+    public void compact() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Instant> touched;
+        synchronized (this) {
+            if (uncompacted.isEmpty()) {
+                return;
+            }
+            touched = new ArrayList<>(uncompacted);
+            uncompacted.clear();
+        }
+
+        Instant minutesKeptSince = keptSince(Resolution.MINUTE);
+        Instant hoursKeptSince = keptSince(Resolution.HOUR);
+        List<Instant> hours = touched.stream().filter(hour -> !hour.isBefore(minutesKeptSince)).toList();
+        List<Instant> days = hours.stream()
+                .map(hour -> truncate(hour, Resolution.DAY.duration))
+                .distinct()
+                .filter(day -> !day.isBefore(hoursKeptSince))
+                .toList();
+        try {
+            compact(Resolution.HOUR, Resolution.MINUTE, hours);
+            compact(Resolution.DAY, Resolution.HOUR, days);
+        } catch (DataAccessException e) {
+            synchronized (this) {
+                uncompacted.addAll(touched);
+            }
+            logger.warn("Rollup compaction of {} hour(s) failed, retrying on the next run: {}", touched.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Event counts per step between from and to, zero-filled, from the coarsest rollup
+     * resolution that divides the step
+     */
+    public List<Bucket> histogram(String service, String level, Instant from, Instant to, Duration step) {
+        Resolution resolution = resolutionFor(step);
+        Instant start = truncate(from, step);
+        long buckets = (Duration.between(start, to).toMillis() + step.toMillis() - 1) / step.toMillis();
+        if (buckets > properties.getMaxBuckets()) {
+            throw new IllegalArgumentException("Histogram of " + buckets + " buckets exceeds the limit of "
+                    + properties.getMaxBuckets() + "; use a larger step");
+        }
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT date_bin(?::interval, bucket, TIMESTAMPTZ '1970-01-01 00:00:00+00') AS step_bucket, sum(count)
+                FROM event_rollups
+                WHERE resolution = ? AND bucket >= ? AND bucket < ?
+                """);
+        List<Object> args = new ArrayList<>(List.of(step.toSeconds() + " seconds", resolution.name(),
+                Timestamp.from(start), Timestamp.from(to)));
+        if (service != null) {
+            sql.append(" AND service = ?");
+            args.add(service);
+        }
+        if (level != null) {
+            sql.append(" AND level = ?");
+            args.add(level);
+        }
+        sql.append(" GROUP BY step_bucket");
+
+        Map<Instant, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> counts.put(rs.getTimestamp(1).toInstant(), rs.getLong(2)), args.toArray());
+        return fill(counts, start, to, step);
+    }
+
+    /**
+     * Coarsest resolution whose buckets tile the step
+     */
+    static Resolution resolutionFor(Duration step) {
+        if (step.isNegative() || step.isZero() || step.toMillis() % Resolution.MINUTE.duration.toMillis() != 0) {
+            throw new IllegalArgumentException("Step must be a positive whole number of minutes: " + step);
+        }
+        for (Resolution resolution : List.of(Resolution.DAY, Resolution.HOUR)) {
+            if (step.toMillis() % resolution.duration.toMillis() == 0) {
+                return resolution;
+            }
+        }
+        return Resolution.MINUTE;
+    }
+
+    static List<Bucket> fill(Map<Instant, Long> counts, Instant start, Instant to, Duration step) {
+        List<Bucket> filled = new ArrayList<>();
+        for (Instant bucket = start; bucket.isBefore(to); bucket = bucket.plus(step)) {
+            filled.add(new Bucket(bucket, counts.getOrDefault(bucket, 0L)));
+        }
+        return filled;
+    }
+
+    static Instant truncate(Instant instant, Duration step) {
+        long millis = step.toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(instant.toEpochMilli(), millis) * millis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void compact(Resolution target, Resolution source, List<Instant> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = buckets.stream()
+                .map(bucket -> new Object[]{target.name(), target.duration.toSeconds() + " seconds", source.name(),
+                        Timestamp.from(bucket), Timestamp.from(bucket.plus(target.duration))})
+                .toList();
+        jdbcTemplate.batchUpdate(COMPACT, args);
+        logger.debug("Recomputed {} {} rollup bucket(s) from {} to {}", buckets.size(), target,
+                buckets.get(0), buckets.get(buckets.size() - 1));
+    }
+
+    /**
+     * Start of the rows of a resolution that retention keeps
+     */
+    private Instant keptSince(Resolution resolution) {
+        return retention.getRollups().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(resolution.name()))
+                .map(entry -> clock.instant().minus(entry.getValue()))
+                .findFirst()
+                .orElse(Instant.MIN);
+    }
+}
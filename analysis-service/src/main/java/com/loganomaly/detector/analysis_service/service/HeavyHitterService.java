@@ -0,0 +1,255 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SketchProperties;
+import com.loganomaly.detector.analysis_service.detection.CountMinSketch;
+import com.loganomaly.detector.analysis_service.detection.HyperLogLog;
+import com.loganomaly.detector.analysis_service.detection.MessageTemplates;
+import com.loganomaly.detector.analysis_service.detection.SpaceSavingTopK;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains fixed-size streaming sketches over tumbling windows:
+ * Count-Min + Space-Saving for top services and templates, a small Space-Saving template
+ * top-K per service, and HyperLogLog for the number of distinct values of selected
+ * metadata keys per service. The per-service top-K keeps a quiet service's templates in
+ * its alert context (and incident links) even when noisier services fill the global one.
+ * Answers "who dominates this error storm" without a GROUP BY over log_events.
+ *
+ * The sketches are not part of the detector snapshots: they only cover the current and
+ * previous window of a few minutes and refill within one window after a restart, while
+ * an alert raised meanwhile simply carries a thinner context.
+ */
+@Service
+@RequiredArgsConstructor
+public class HeavyHitterService implements DetectorStateOwner {
+
+    private final SketchProperties properties;
+    private final Clock clock;
+
+    private SketchWindow current;
+    private SketchWindow previous;
+
+    /**
+     * Feed a consumed event into the current window
+     */
+    public synchronized void record(LogEvent event) {
+        if (!properties.isEnabled() || !properties.getLevels().contains(event.getLevel())) {
+            return;
+        }
+
+        SketchWindow window = rotate(clock.millis());
+        String service = event.getService();
+        ServiceTemplate template = new ServiceTemplate(service, MessageTemplates.templateOf(event.getMessage()));
+
+        window.serviceCounts.add(service, 1);
+        window.topServices.offer(service);
+        window.templateCounts.add(template.template(), 1);
+        window.topTemplates.offer(template);
+        SpaceSavingTopK<String> serviceTemplates = window.templatesByService.get(service);
+        if (serviceTemplates == null && window.templatesByService.size() < properties.getMaxServices()) {
+            serviceTemplates = new SpaceSavingTopK<>(properties.getServiceTopKCapacity());
+            window.templatesByService.put(service, serviceTemplates);
+        }
+        if (serviceTemplates != null) {
+            serviceTemplates.offer(template.template());
+        }
+
+        if (event.getMetadata() != null && !properties.getDistinctKeys().isEmpty()) {
+            recordDistinctValues(window, service, event.getMetadata());
+        }
+    }
+
+    public synchronized List<SpaceSavingTopK.Estimate<String>> topServices(int limit, boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        return window == null ? List.of() : window.topServices.top(limit);
+    }
+
+    public synchronized List<SpaceSavingTopK.Estimate<ServiceTemplate>> topTemplates(
+            int limit, String service, boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        if (window == null) {
+            return List.of();
+        }
+        if (service == null) {
+            return window.topTemplates.top(limit);
+        }
+        SpaceSavingTopK<String> serviceTemplates = window.templatesByService.get(service);
+        if (serviceTemplates != null) {
+            return serviceTemplates.top(limit).stream()
+                    .map(e -> new SpaceSavingTopK.Estimate<>(new ServiceTemplate(service, e.key()), e.count(), e.error()))
+                    .toList();
+        }
+        // Services beyond maxServices only have what made it into the global top-K
+        return window.topTemplates.top(properties.getTopKCapacity()).stream()
+                .filter(estimate -> estimate.key().service().equals(service))
+                .limit(limit)
+                .toList();
+    }
+
+    public synchronized long estimateServiceCount(String service, boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        return window == null ? 0 : window.serviceCounts.estimate(service);
+    }
+
+    public synchronized long estimateTemplateCount(String template, boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        return window == null ? 0 : window.templateCounts.estimate(template);
+    }
+
+    /**
+     * Estimated number of distinct values per configured metadata key for a service
+     */
+    public synchronized Map<String, Long> distinctValues(String service, boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (window == null) {
+            return result;
+        }
+        Map<String, HyperLogLog> sketches = window.distinct.get(service);
+        if (sketches != null) {
+            sketches.forEach((key, hll) -> result.put(key, hll.estimate()));
+        }
+        return result;
+    }
+
+    public synchronized Instant windowStart(boolean previousWindow) {
+        SketchWindow window = select(previousWindow);
+        return window == null ? null : Instant.ofEpochMilli(window.startMillis);
+    }
+
+    /**
+     * Sketch summary attached to alerts raised for a service
+     */
+    public synchronized Map<String, Object> alertContext(String service) {
+        Map<String, Object> context = new LinkedHashMap<>();
+        SketchWindow window = select(false);
+        if (!properties.isEnabled() || window == null) {
+            return context;
+        }
+
+        int n = properties.getContextTopN();
+        context.put("sketchWindowStart", Instant.ofEpochMilli(window.startMillis).toString());
+        context.put("serviceEventCount", window.serviceCounts.estimate(service));
+        context.put("topServices", window.topServices.top(n).stream()
+                .map(e -> Map.of("service", e.key(), "count", e.count()))
+                .toList());
+        context.put("topTemplates", topTemplates(n, service, false).stream()
+                .map(e -> Map.of("template", e.key().template(), "count", e.count()))
+                .toList());
+        Map<String, Long> distinct = distinctValues(service, false);
+        if (!distinct.isEmpty()) {
+            context.put("distinctValues", distinct);
+        }
+        return context;
+    }
+
+    @Override
+    public String stateName() {
+        return "sketch";
+    }
+
+    @Override
+    public synchronized int stateEntries() {
+        int entries = 0;
+        for (SketchWindow window : new SketchWindow[]{current, previous}) {
+            if (window != null) {
+                entries += window.distinct.size() + window.templatesByService.size();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Two windows of fixed-size sketches plus the per-service top-K and HyperLogLog registers
+     */
+    @Override
+    public synchronized long estimatedStateBytes() {
+        long fixed = 2L * properties.getCmsDepth() * properties.getCmsWidth() * Long.BYTES
+                + 2L * properties.getTopKCapacity() * 128;
+        long perService = 0;
+        for (SketchWindow window : new SketchWindow[]{current, previous}) {
+            if (window != null) {
+                perService += window.templatesByService.size() * (properties.getServiceTopKCapacity() * 128L);
+                for (Map<String, HyperLogLog> sketches : window.distinct.values()) {
+                    perService += sketches.size() * ((1L << properties.getHllPrecision()) + 64);
+                }
+            }
+        }
+        return 2 * fixed + perService;
+    }
+
+    @Override
+    public synchronized void evictService(String service) {
+        for (SketchWindow window : new SketchWindow[]{current, previous}) {
+            if (window != null) {
+                window.distinct.remove(service);
+                window.templatesByService.remove(service);
+            }
+        }
+    }
+
+    private void recordDistinctValues(SketchWindow window, String service, Map<String, String> metadata) {
+        Map<String, HyperLogLog> sketches = window.distinct.get(service);
+        if (sketches == null) {
+            if (window.distinct.size() >= properties.getMaxServices()) {
+                return;
+            }
+            sketches = new HashMap<>();
+            window.distinct.put(service, sketches);
+        }
+        for (String key : properties.getDistinctKeys()) {
+            String value = metadata.get(key);
+            if (value != null) {
+                sketches.computeIfAbsent(key, k -> new HyperLogLog(properties.getHllPrecision())).add(value);
+            }
+        }
+    }
+
+    private SketchWindow select(boolean previousWindow) {
+        rotate(clock.millis());
+        return previousWindow ? previous : current;
+    }
+
+    private SketchWindow rotate(long nowMillis) {
+        long windowMillis = properties.getWindowMinutes() * 60_000L;
+        long start = nowMillis - Math.floorMod(nowMillis, windowMillis);
+
+        if (current == null || current.startMillis != start) {
+            previous = current != null && current.startMillis == start - windowMillis ? current : null;
+            current = new SketchWindow(start, properties);
+        }
+        return current;
+    }
+
+    /**
+     * A message template together with the service that emitted it
+     */
+    public record ServiceTemplate(String service, String template) {}
+
+    private static final class SketchWindow {
+        private final long startMillis;
+        private final CountMinSketch serviceCounts;
+        private final CountMinSketch templateCounts;
+        private final SpaceSavingTopK<String> topServices;
+        private final SpaceSavingTopK<ServiceTemplate> topTemplates;
+        private final Map<String, SpaceSavingTopK<String>> templatesByService = new HashMap<>();
+        private final Map<String, Map<String, HyperLogLog>> distinct = new HashMap<>();
+
+        private SketchWindow(long startMillis, SketchProperties properties) {
+            this.startMillis = startMillis;
+            this.serviceCounts = new CountMinSketch(properties.getCmsDepth(), properties.getCmsWidth());
+            this.templateCounts = new CountMinSketch(properties.getCmsDepth(), properties.getCmsWidth());
+            this.topServices = new SpaceSavingTopK<>(properties.getTopKCapacity());
+            this.topTemplates = new SpaceSavingTopK<>(properties.getTopKCapacity());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.IncidentProperties;
+import com.loganomaly.detector.analysis_service.detection.IncrementalUnionFind;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.Incident;
+import com.loganomaly.detector.analysis_service.repository.AlertRepository;
+import com.loganomaly.detector.analysis_service.repository.IncidentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Groups alerts that fire close together and share a service or a message template into
+ * incidents, so one database outage shows up as one incident instead of an alert per service.
+ *
+ * Alerts are elements of an incremental union-find over a sliding window: each link key
+ * (service, template) remembers the latest alert carrying it, and a new alert is linked to
+ * those alerts if they are still inside the window. When an alert bridges two clusters the
+ * older incident absorbs the newer one, which is marked MERGED. Clusters with no alert in
+ * the window are dropped from memory and their incident is CLOSED.
+ *
+ * The incident rows are written in the caller's transaction, together with the alert. A
+ * transaction-scoped advisory lock serializes correlation until that transaction ends, so
+ * the next alert always reads the incidents the previous one committed. If the caller rolls
+ * back, the clusters may still point at an incident that was never stored; the next alert
+ * of the cluster then opens a new one.
+ */
+@Service
+@RequiredArgsConstructor
+public class IncidentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncidentService.class);
+
+    private static final List<String> SEVERITIES = List.of("INFO", "WARNING", "CRITICAL");
+    private static final int TITLE_SERVICES = 5;
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(?)";
+    private static final long CORRELATION_LOCK = "incident-correlation".hashCode();
+
+    private final IncidentProperties properties;
+    private final IncidentRepository incidentRepository;
+    private final AlertRepository alertRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    private final IncrementalUnionFind<UUID> clusters = new IncrementalUnionFind<>();
+    private final Map<String, KeyRef> latestByKey = new HashMap<>();
+    private long nextElement = 1;
+
+    /**
+     * Attach an alert (before it is saved) to a new or existing incident
+     */
+    @Transactional
+    public void correlate(Alert alert) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        // Taken before the monitor: a transaction raising a second alert already holds it
+        lockUntilCommit();
+        synchronized (this) {
+            if (clusters.size() < properties.getMaxTrackedAlerts()) {
+                attach(alert);
+            }
+        }
+    }
+
+    private void attach(Alert alert) {
+        if (alert.getDetectedAt() == null) {
+            alert.setDetectedAt(clock.instant());
+        }
+        long now = alert.getDetectedAt().toEpochMilli();
+        long horizon = now - properties.getWindow().toMillis();
+        long element = nextElement++;
+        clusters.add(element, now);
+
+        for (String key : linkKeys(alert)) {
+            KeyRef previous = latestByKey.put(key, new KeyRef(element, now));
+            if (previous != null && previous.time() >= horizon && clusters.contains(previous.element())) {
+                link(element, previous.element());
+            }
+        }
+
+        UUID incidentId = clusters.value(element);
+        Incident incident = incidentId == null ? null : incidentRepository.findById(incidentId).orElse(null);
+        if (incident == null) {
+            incident = Incident.builder()
+                    .status("OPEN")
+                    .severity(alert.getSeverity())
+                    .firstAlertAt(alert.getDetectedAt())
+                    .build();
+        }
+        addAlert(incident, alert);
+        incident = incidentRepository.save(incident);
+
+        clusters.setValue(element, incident.getId());
+        alert.setIncidentId(incident.getId());
+    }
+
+    /**
+     * Forget clusters that had no alert within the window and close their incidents
+     */
+    @Scheduled(fixedDelayString = "${anomaly.incident.sweep-interval-millis:60000}")
+    @Transactional
+    public void closeInactive() {
+        lockUntilCommit();
+        List<UUID> expired;
+        synchronized (this) {
+            long horizon = clock.millis() - properties.getWindow().toMillis();
+            expired = clusters.expire(horizon);
+            latestByKey.values().removeIf(ref -> ref.time() < horizon);
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        List<Incident> open = new ArrayList<>();
+        for (Incident incident : incidentRepository.findAllById(expired)) {
+            if ("OPEN".equals(incident.getStatus())) {
+                incident.setStatus("CLOSED");
+                open.add(incident);
+            }
+        }
+        incidentRepository.saveAll(open);
+        logger.info("Closed {} incident(s) with no related alert in the last {}", open.size(), properties.getWindow());
+    }
+
+    /**
+     * Serialize with other correlations until the current transaction commits or rolls back
+     */
+    private void lockUntilCommit() {
+        jdbcTemplate.queryForList(LOCK, CORRELATION_LOCK);
+    }
+
+    /**
+     * Link two alerts and reconcile the incidents of their clusters
+     */
+    private void link(long a, long b) {
+        UUID incidentA = clusters.value(a);
+        UUID incidentB = clusters.value(b);
+        long root = clusters.union(a, b);
+        clusters.setValue(root, merge(incidentA, incidentB));
+    }
+
+    private UUID merge(UUID first, UUID second) {
+        if (first == null || first.equals(second)) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+
+        Incident a = incidentRepository.findById(first).orElse(null);
+        Incident b = incidentRepository.findById(second).orElse(null);
+        if (a == null || b == null) {
+            return a != null ? first : second;
+        }
+        Incident survivor = a.getFirstAlertAt().isAfter(b.getFirstAlertAt()) ? b : a;
+        Incident absorbed = survivor == a ? b : a;
+
+        survivor.setAlertCount(survivor.getAlertCount() + absorbed.getAlertCount());
+        survivor.setServices(union(survivor.getServices(), absorbed.getServices()));
+        survivor.setAlertTypes(union(survivor.getAlertTypes(), absorbed.getAlertTypes()));
+        survivor.setSeverity(maxSeverity(survivor.getSeverity(), absorbed.getSeverity()));
+        if (absorbed.getLastAlertAt().isAfter(survivor.getLastAlertAt())) {
+            survivor.setLastAlertAt(absorbed.getLastAlertAt());
+        }
+        survivor.setTitle(title(survivor));
+
+        absorbed.setStatus("MERGED");
+        absorbed.setMergedInto(survivor.getId());
+
+        incidentRepository.save(survivor);
+        incidentRepository.save(absorbed);
+        int moved = alertRepository.reassignIncident(absorbed.getId(), survivor.getId());
+        logger.info("Merged incident {} into {} ({} alerts moved)", absorbed.getId(), survivor.getId(), moved);
+        return survivor.getId();
+    }
+
+    private void addAlert(Incident incident, Alert alert) {
+        incident.setAlertCount(incident.getAlertCount() + 1);
+        incident.setServices(union(incident.getServices(), List.of(alert.getService())));
+        incident.setAlertTypes(union(incident.getAlertTypes(), List.of(alert.getType())));
+        incident.setSeverity(maxSeverity(incident.getSeverity(), alert.getSeverity()));
+        if (incident.getLastAlertAt() == null || alert.getDetectedAt().isAfter(incident.getLastAlertAt())) {
+            incident.setLastAlertAt(alert.getDetectedAt());
+        }
+        incident.setTitle(title(incident));
+    }
+
+    /**
+     * Keys shared by related alerts: the service and the top message templates at detection time
+     */
+    private Set<String> linkKeys(Alert alert) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (properties.isLinkByService()) {
+            keys.add("service:" + alert.getService());
+        }
+        if (properties.isLinkByTemplate() && alert.getContext() != null) {
+            if (alert.getContext().get("topTemplates") instanceof List<?> templates) {
+                templates.stream()
+                        .filter(Map.class::isInstance)
+                        .map(entry -> ((Map<?, ?>) entry).get("template"))
+                        .filter(template -> template != null)
+                        .limit(properties.getMaxTemplatesPerAlert())
+                        .forEach(template -> keys.add("template:" + template));
+            }
+        }
+        return keys;
+    }
+
+    private static String title(Incident incident) {
+        List<String> services = incident.getServices();
+        String listed = String.join(", ", services.subList(0, Math.min(TITLE_SERVICES, services.size())));
+        return String.format("%s across %d service(s): %s%s",
+                String.join(", ", incident.getAlertTypes()),
+                services.size(),
+                listed,
+                services.size() > TITLE_SERVICES ? ", ..." : "");
+    }
+
+    private static List<String> union(List<String> a, List<String> b) {
+        Set<String> merged = new LinkedHashSet<>(a);
+        merged.addAll(b);
+        return new ArrayList<>(merged);
+    }
+
+    private static String maxSeverity(String a, String b) {
+        return SEVERITIES.indexOf(b) > SEVERITIES.indexOf(a) ? b : a;
+    }
+
+    private record KeyRef(long element, long time) {}
+}
@@ -1,104 +1,148 @@
 package com.loganomaly.detector.analysis_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.loganomaly.detector.analysis_service.entity.LogEvent;
-import com.loganomaly.detector.analysis_service.repository.LogEventRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
-import java.util.UUID;
 
+/**
+ * Listener engine (default): consumes log events one by one and runs every detector.
+ * With analysis.consumer.mode=parallel the events arrive through the ParallelLogConsumer.
+ */
 @Service
 @RequiredArgsConstructor
-public class LogAnalysisService {
+@ConditionalOnProperty(name = "analysis.engine", havingValue = "listener", matchIfMissing = true)
+public class LogAnalysisService implements ConsumerSeekAware {
 
     private static final Logger logger = LoggerFactory.getLogger(LogAnalysisService.class);
 
-    private final LogEventRepository logEventRepository;
-    private final ObjectMapper objectMapper;
+    private final LogEventWriter logEventWriter;
+    private final LogEventParser parser;
     private final AnomalyDetectorService anomalyDetector;
-
+    private final SnapshotService snapshots;
+    private final CatchUpModeService catchUp;
+    private final EventRollupService rollups;
+    private final DeadLetterService deadLetters;
+    private final TransactionTemplate transactionTemplate;
+    private final WatermarkService watermarks;
+
+    @RetryableTopic(
+            attempts = "${analysis.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${analysis.retry.delay-millis:1000}",
+                    multiplierExpression = "${analysis.retry.multiplier:4}",
+                    maxDelayExpression = "${analysis.retry.max-delay-millis:30000}"),
+            kafkaTemplate = "kafkaTemplate",
+            // Malformed messages fail the same way every time: straight to the dead-letter topic
+            exclude = MessageConversionException.class,
+            traversingCauses = "true"
+    )
     @KafkaListener(
+            id = "log-events",
             topics = "${spring.kafka.topic.log-events}",
-            groupId = "${spring.kafka.consumer.group-id}"
+            groupId = "${spring.kafka.consumer.group-id}",
+            // In parallel mode the ParallelLogConsumer reads the topic instead
+            autoStartup = "#{'${analysis.consumer.mode:record}' != 'parallel'}"
     )
-    @Transactional
-    public void consumeLogEvent(String message) {
+    public void consumeLogEvent(String message,
+                                @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                @Header(KafkaHeaders.OFFSET) long offset,
+                                @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long recordTimestamp) {
         logger.debug("Received log event from Kafka: {}", message);
 
+        // The transaction commits inside the snapshot lock, before the offset is marked as done,
+        // so a snapshot never records an offset whose event was rolled back or not yet committed
+        snapshots.process(topic, partition, offset, () -> transactionTemplate.executeWithoutResult(
+                status -> processLogEvent(message, new TopicPartition(topic, partition), recordTimestamp)));
+    }
+
+    /**
+     * Resume from the offsets of the restored detector snapshot, so the restored state
+     * and the consumed events line up
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        snapshots.takeRestoredOffsets(assignments.keySet()).forEach((partition, offset) -> {
+            logger.info("Seeking {} to snapshot offset {}", partition, offset);
+            callback.seek(partition.topic(), partition.partition(), offset);
+        });
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        watermarks.removePartitions(partitions);
+    }
+
+    /**
+     * Events that failed every retry, with the failure in the dead-letter headers;
+     * POST /api/dead-letters/replay puts them back on the topic once the cause is fixed
+     */
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, String> record) {
+        DeadLetterService.Failure failure = DeadLetterService.failureOf(record);
+        deadLetters.recordDeadLetter(failure);
+        logger.error("Log event dead-lettered: {}-{}@{} failed with {}: {}",
+                failure.originalTopic(),
+                failure.originalPartition(),
+                failure.originalOffset(),
+                failure.exception(),
+                failure.message());
+    }
+
+    private void processLogEvent(String message, TopicPartition partition, long recordTimestamp) {
+        LogEvent logEvent;
         try {
-            LogEvent logEvent = parseLogEvent(message);
-            LogEvent saved = logEventRepository.save(logEvent);
-            
-            logger.info("Stored log event: id={}, service={}, level={}, message={}",
-                    saved.getId(),
-                    saved.getService(),
-                    saved.getLevel(),
-                    truncateMessage(saved.getMessage(), 100));
-
-            // Run anomaly detection on the saved event
-            anomalyDetector.analyze(saved);
-
-        } catch (JsonProcessingException e) {
-            logger.error("Failed to parse log event JSON: {}", e.getMessage());
-        } catch (Exception e) {
-            logger.error("Failed to process log event: {}", e.getMessage(), e);
+            logEvent = parser.parse(message, Instant.ofEpochMilli(recordTimestamp));
+        } catch (JsonProcessingException | RuntimeException e) {
+            throw new MessageConversionException("Invalid log event: " + e.getMessage(), e);
         }
+        processEvent(logEvent, partition, recordTimestamp);
     }
 
     /**
-     * Parse the Kafka message into a LogEvent entity.
-     * The message format is: {"id": "...", "event": {...}}
+     * Store a parsed event and run anomaly detection on it.
+     * In catch-up mode low-level events are mostly analyzed without being stored.
+     * Failures propagate, so the record is retried instead of dropped.
      */
-    private LogEvent parseLogEvent(String message) throws JsonProcessingException {
-        JsonNode root = objectMapper.readTree(message);
-        
-        String id = root.get("id").asText();
-        JsonNode eventNode = root.get("event");
-
-        // Parse timestamp - handle epoch seconds (number) or ISO string
-        Instant timestamp;
-        if (eventNode.has("timestamp") && !eventNode.get("timestamp").isNull()) {
-            JsonNode timestampNode = eventNode.get("timestamp");
-            if (timestampNode.isNumber()) {
-                // Epoch seconds (with possible fractional nanoseconds)
-                double epochSeconds = timestampNode.asDouble();
-                long seconds = (long) epochSeconds;
-                long nanos = (long) ((epochSeconds - seconds) * 1_000_000_000);
-                timestamp = Instant.ofEpochSecond(seconds, nanos);
-            } else {
-                // ISO-8601 string
-                timestamp = Instant.parse(timestampNode.asText());
+    @Transactional
+    public void processEvent(LogEvent logEvent, TopicPartition partition, long recordTimestamp) {
+        catchUp.observe(recordTimestamp);
+        if (catchUp.shouldStore(logEvent)) {
+            logEventWriter.store(logEvent);
+
+            if (!catchUp.isActive()) {
+                logger.info("Stored log event: id={}, service={}, level={}, message={}",
+                        logEvent.getId(),
+                        logEvent.getService(),
+                        logEvent.getLevel(),
+                        truncateMessage(logEvent.getMessage(), 100));
             }
-        } else {
-            timestamp = Instant.now();
-        }
-
-        // Parse metadata
-        Map<String, String> metadata = new HashMap<>();
-        if (eventNode.has("metadata") && !eventNode.get("metadata").isNull()) {
-            eventNode.get("metadata").fields().forEachRemaining(entry ->
-                    metadata.put(entry.getKey(), entry.getValue().asText())
-            );
         }
 
-        return LogEvent.builder()
-                .id(UUID.fromString(id))
-                .timestamp(timestamp)
-                .level(eventNode.get("level").asText())
-                .message(eventNode.get("message").asText())
-                .service(eventNode.get("service").asText())
-                .metadata(metadata.isEmpty() ? null : metadata)
-                .build();
+        // Analyze and count every event, stored or not. A retried event is counted once: the
+        // detectors skip event ids they have analyzed, and rollups count only after the commit
+        anomalyDetector.analyze(logEvent, partition);
+        rollups.record(logEvent);
     }
 
     /**
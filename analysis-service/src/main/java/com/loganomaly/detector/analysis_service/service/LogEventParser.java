@@ -0,0 +1,79 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.detection.StringInterner;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Parses log-events topic messages into LogEvent entities; shared by the analysis engines.
+ * Levels, service names and metadata keys repeat across millions of events, so parsed
+ * events share canonical String instances for them.
+ */
+@Component
+@RequiredArgsConstructor
+public class LogEventParser {
+
+    private final ObjectMapper objectMapper;
+
+    private final StringInterner serviceNames = new StringInterner(10_000);
+    private final StringInterner metadataKeys = new StringInterner(10_000);
+
+    /**
+     * Parse the Kafka message into a LogEvent entity.
+     * The message format is: {"id": "...", "event": {...}}
+     * Events without a timestamp fall back to the Kafka record timestamp, which stays
+     * correct when the topic is replayed.
+     */
+    public LogEvent parse(String message, Instant recordTimestamp) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(message);
+
+        String id = root.get("id").asText();
+        JsonNode eventNode = root.get("event");
+
+        // Parse timestamp - handle epoch seconds (number) or ISO string
+        Instant timestamp;
+        if (eventNode.has("timestamp") && !eventNode.get("timestamp").isNull()) {
+            JsonNode timestampNode = eventNode.get("timestamp");
+            if (timestampNode.isNumber()) {
+                // Epoch seconds (with possible fractional nanoseconds)
+                double epochSeconds = timestampNode.asDouble();
+                long seconds = (long) epochSeconds;
+                long nanos = (long) ((epochSeconds - seconds) * 1_000_000_000);
+                timestamp = Instant.ofEpochSecond(seconds, nanos);
+            } else {
+                // ISO-8601 string
+                timestamp = Instant.parse(timestampNode.asText());
+            }
+        } else {
+            timestamp = recordTimestamp;
+        }
+
+        // Parse metadata (interned keys, compact immutable map)
+        Map<String, String> metadata = new HashMap<>();
+        if (eventNode.has("metadata") && !eventNode.get("metadata").isNull()) {
+            eventNode.get("metadata").fields().forEachRemaining(entry ->
+                    metadata.put(metadataKeys.intern(entry.getKey()), entry.getValue().asText())
+            );
+        }
+
+        return LogEvent.builder()
+                .id(UUID.fromString(id))
+                .timestamp(timestamp)
+                // Canonical name; unknown levels fail here and go to the dead-letter topic
+                .level(LogLevel.parse(eventNode.get("level").asText()).name())
+                .message(eventNode.get("message").asText())
+                .service(serviceNames.intern(eventNode.get("service").asText()))
+                .metadata(metadata.isEmpty() ? null : Map.copyOf(metadata))
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import com.loganomaly.detector.analysis_service.repository.LogEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes consumed log events to log_events, their message bodies to log_messages.
+ *
+ * In jpa mode every event is saved on its own. In copy mode events are buffered and
+ * flushed as one binary COPY into a session-local staging table, followed by a single
+ * INSERT ... SELECT ... ON CONFLICT DO NOTHING into log_events, so a batch costs two
+ * statements (plus one batched upsert of the bodies not written today) and redelivered
+ * events (same id and timestamp) are skipped instead of failing.
+ * The batch consumer flushes before it commits offsets, so a committed offset never
+ * points past an unwritten event.
+ */
+@Service
+public class LogEventWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogEventWriter.class);
+
+    private static final String COLUMNS = "id, timestamp, level_id, message_hash, service_id, metadata, created_at";
+
+    // Temporary tables are never WAL-logged and are private to the connection, so
+    // concurrent flushes do not see each other's rows
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE IF NOT EXISTS log_events_staging"
+            + " (LIKE log_events INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+    private static final String COPY = "COPY log_events_staging (" + COLUMNS + ") FROM STDIN (FORMAT binary)";
+    private static final String MERGE = "INSERT INTO log_events (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM log_events_staging ON CONFLICT (id, timestamp) DO NOTHING";
+
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    // 2000-01-01T00:00:00Z, the epoch of PostgreSQL timestamps, in Unix microseconds
+    private static final long POSTGRES_EPOCH_MICROS = 946_684_800_000_000L;
+    private static final byte JSONB_VERSION = 1;
+
+    private final PersistenceProperties properties;
+    private final LogEventRepository logEventRepository;
+    private final ServiceDirectory services;
+    private final MessageStore messages;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean copyMode;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter duplicates;
+
+    private List<LogEvent> pending = new ArrayList<>();
+
+    public LogEventWriter(PersistenceProperties properties,
+                          LogEventRepository logEventRepository,
+                          ServiceDirectory services,
+                          MessageStore messages,
+                          JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${analysis.engine:listener}") String engine,
+                          @Value("${analysis.consumer.mode:record}") String consumerMode) {
+        this.properties = properties;
+        this.logEventRepository = logEventRepository;
+        this.services = services;
+        this.messages = messages;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.copyMode = "copy".equals(properties.getMode());
+        // The record listener and Kafka Streams commit offsets without a hook to flush the buffer first
+        if (copyMode && !("listener".equals(engine) && "parallel".equals(consumerMode))) {
+            throw new IllegalStateException("analysis.persistence.mode=copy requires the listener engine with the"
+                    + " batch consumer (analysis.engine=listener, analysis.consumer.mode=parallel)");
+        }
+        this.flushTimer = Timer.builder("analysis.persistence.flush")
+                .description("COPY and merge of a buffered batch of log events")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("analysis.persistence.duplicates")
+                .description("Redelivered log events skipped by the merge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Save the event (jpa mode) or buffer it for the next flush (copy mode)
+     */
+    public void store(LogEvent event) {
+        if (!copyMode) {
+            // The converter only looks service ids up
+            services.idOf(event.getService());
+            messages.store(List.of(event));
+            logEventRepository.save(event);
+            return;
+        }
+        boolean full;
+        synchronized (this) {
+            pending.add(event);
+            full = pending.size() >= properties.getMaxBufferedEvents();
+        }
+        if (full) {
+            // Back-pressure: fails the event (and so retries it) while the database is down
+            flush();
+        }
+    }
+
+    /**
+     * Write all buffered events. On failure they stay buffered and the exception
+     * propagates, so the caller does not commit their offsets.
+     */
+    @Scheduled(fixedDelayString = "${analysis.persistence.flush-interval-millis:1000}")
+    public void flush() {
+        if (!copyMode) {
+            return;
+        }
+        // One flush at a time: a flush that returns has written everything buffered before it
+        flushLock.lock();
+        try {
+            List<LogEvent> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                Timer.Sample sample = Timer.start();
+                int inserted = write(batch);
+                sample.stop(flushTimer);
+                duplicates.increment(batch.size() - inserted);
+                logger.debug("Copied {} log event(s), {} already stored", batch.size(), batch.size() - inserted);
+            } catch (DataAccessException e) {
+                synchronized (this) {
+                    batch.addAll(pending);
+                    pending = batch;
+                }
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            logger.warn("Could not write the buffered log events on shutdown; they will be redelivered: {}", e.getMessage());
+        }
+    }
+
+    private int write(List<LogEvent> batch) {
+        // Looked up before the COPY: a directory miss must not query on the connection the COPY holds
+        Map<String, Integer> serviceIds = new HashMap<>();
+        for (LogEvent event : batch) {
+            serviceIds.computeIfAbsent(event.getService(), services::idOf);
+        }
+        Integer inserted = transactionTemplate.execute(status -> {
+            messages.store(batch);
+            return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_STAGING);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (DataOutputStream out = new DataOutputStream(new PGCopyOutputStream(pgConnection, COPY, 1 << 16))) {
+                    encode(batch, serviceIds, out);
+                } catch (IOException e) {
+                    throw new SQLException("COPY into log_events_staging failed: " + e.getMessage(), e);
+                }
+                try (Statement statement = connection.createStatement()) {
+                    return statement.executeUpdate(MERGE);
+                }
+            });
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    /**
+     * PostgreSQL binary COPY format of the events, in COLUMNS order, with the
+     * service ids resolved beforehand
+     */
+    void encode(List<LogEvent> events, Map<String, Integer> serviceIds, DataOutputStream out) throws IOException {
+        out.write(COPY_SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+        for (LogEvent event : events) {
+            out.writeShort(7);
+            writeUuid(out, event.getId());
+            writeTimestamp(out, event.getTimestamp());
+            writeSmallint(out, LogLevel.parse(event.getLevel()).getCode());
+            writeBytea(out, event.getMessageHash());
+            writeInt(out, serviceIds.get(event.getService()));
+            writeJsonb(out, event.getMetadata());
+            writeTimestamp(out, event.getCreatedAt() == null ? Instant.now() : event.getCreatedAt());
+        }
+        out.writeShort(-1);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private static void writeSmallint(DataOutputStream out, short value) throws IOException {
+        out.writeInt(2);
+        out.writeShort(value);
+    }
+
+    private static void writeInt(DataOutputStream out, int value) throws IOException {
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    private static void writeBytea(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, Instant value) throws IOException {
+        out.writeInt(8);
+        out.writeLong(value.getEpochSecond() * 1_000_000 + value.getNano() / 1_000 - POSTGRES_EPOCH_MICROS);
+    }
+
+    private void writeJsonb(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IOException("Unserializable metadata: " + e.getMessage(), e);
+        }
+        out.writeInt(json.length + 1);
+        out.writeByte(JSONB_VERSION);
+        out.write(json);
+    }
+}
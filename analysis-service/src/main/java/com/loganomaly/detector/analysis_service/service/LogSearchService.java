@@ -0,0 +1,231 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.SearchProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Searches the messages of one service's log events within a time range.
+ *
+ * The text is matched in log_messages, where every distinct body is indexed once: words
+ * through the generated tsvector, substrings and regular expressions through trigrams. The
+ * service and time range are always required, so only the partitions of the range are
+ * scanned and the (service_id, timestamp) index bounds the events. Results are newest
+ * first and paged by keyset: the cursor is the (timestamp, id) of the last event returned.
+ * Each search runs under a statement timeout.
+ */
+@Service
+public class LogSearchService {
+
+    public enum Mode {
+        // Words, in websearch syntax ("quoted phrase", or, -excluded)
+        TEXT("m.body_tsv @@ websearch_to_tsquery('simple', ?)"),
+        // Case-insensitive substring
+        CONTAINS("m.body ILIKE ?"),
+        // Case-insensitive POSIX regular expression
+        REGEX("m.body ~* ?");
+
+        private final String condition;
+
+        Mode(String condition) {
+            this.condition = condition;
+        }
+    }
+
+    public record Page(List<LogEvent> events, String nextCursor) {
+    }
+
+    // Trigram indexes cannot narrow shorter substrings
+    static final int MIN_CONTAINS_LENGTH = 3;
+
+    private static final TypeReference<Map<String, String>> METADATA = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final SearchProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public LogSearchService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            SearchProperties properties,
+                            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One page of the matching events of a service, newest first
+     *
+     * @param level  optional level filter
+     * @param cursor nextCursor of the previous page, null for the first
+     * @throws IllegalArgumentException on an invalid range, query or cursor
+     * @throws QueryTimeoutException    when the search exceeds the statement timeout
+     */
+    public Page search(String service, Instant from, Instant to, String level,
+                       Mode mode, String query, String cursor, Integer limit) {
+        if (service == null || service.isBlank()) {
+            throw new IllegalArgumentException("service is required");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.between(from, to).compareTo(properties.getMaxRange()) > 0) {
+            throw new IllegalArgumentException("Time range exceeds " + properties.getMaxRange());
+        }
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
+        if (mode == Mode.CONTAINS && query.length() < MIN_CONTAINS_LENGTH) {
+            throw new IllegalArgumentException("Substring must have at least " + MIN_CONTAINS_LENGTH + " characters");
+        }
+        int size = limit == null ? properties.getDefaultLimit() : limit;
+        if (size < 1 || size > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit());
+        }
+
+        List<Object> args = new ArrayList<>();
+        args.add(service);
+        args.add(Timestamp.from(from));
+        args.add(Timestamp.from(to));
+        args.add(mode == Mode.CONTAINS ? "%" + escapeLike(query) + "%" : query);
+        if (level != null) {
+            args.add(LogLevel.parse(level).getCode());
+        }
+        if (cursor != null) {
+            Position after = Position.decode(cursor);
+            args.add(Timestamp.from(after.timestamp()));
+            args.add(Timestamp.from(after.timestamp()));
+            args.add(after.id());
+        }
+        args.add(size);
+
+        String sql = sql(mode, level != null, cursor != null);
+        List<LogEvent> events;
+        try {
+            events = readOnly.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL statement_timeout = " + properties.getStatementTimeout().toMillis());
+                return jdbcTemplate.query(sql, rowMapper(service), args.toArray());
+            });
+        } catch (DataAccessException e) {
+            throw translate(e, mode);
+        }
+        String next = events.size() < size ? null
+                : new Position(events.get(size - 1).getTimestamp(), events.get(size - 1).getId()).encode();
+        return new Page(events, next);
+    }
+
+    /**
+     * The search statement: service, from, to, query, [level], [cursor timestamp twice, cursor id], limit
+     */
+    public static String sql(Mode mode, boolean level, boolean cursor) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT e.id, e.timestamp, e.level_id, e.metadata, e.created_at, e.message_hash, m.preview, m.length
+                FROM log_events e
+                JOIN log_messages m ON m.hash = e.message_hash
+                WHERE e.service_id = (SELECT id FROM services WHERE name = ?)
+                  AND e.timestamp >= ? AND e.timestamp < ?
+                  AND\s""").append(mode.condition);
+        if (level) {
+            sql.append(" AND e.level_id = ?");
+        }
+        if (cursor) {
+            // Spelled out instead of a row comparison, so the timestamp bound reaches the index
+            sql.append(" AND e.timestamp <= ? AND (e.timestamp < ? OR e.id < ?)");
+        }
+        return sql.append(" ORDER BY e.timestamp DESC, e.id DESC LIMIT ?").toString();
+    }
+
+    private RowMapper<LogEvent> rowMapper(String service) {
+        return (rs, rowNum) -> {
+            String metadata = rs.getString("metadata");
+            try {
+                return LogEvent.builder()
+                        .id(rs.getObject("id", UUID.class))
+                        .timestamp(rs.getTimestamp("timestamp").toInstant())
+                        .level(LogLevel.fromCode(rs.getShort("level_id")).name())
+                        .service(service)
+                        .message(rs.getString("preview"))
+                        .messageTruncated(rs.getInt("length") > LogEvent.PREVIEW_LENGTH)
+                        .messageHash(rs.getBytes("message_hash"))
+                        .metadata(metadata == null ? null : objectMapper.readValue(metadata, METADATA))
+                        .createdAt(rs.getTimestamp("created_at").toInstant())
+                        .build();
+            } catch (JsonProcessingException e) {
+                throw new SQLException("Unreadable metadata of log event " + rs.getObject("id"), e);
+            }
+        };
+    }
+
+    private RuntimeException translate(DataAccessException e, Mode mode) {
+        String sqlState = e.getMostSpecificCause() instanceof SQLException sql ? sql.getSQLState() : null;
+        // 57014: canceled by the statement timeout
+        if (e instanceof QueryTimeoutException || "57014".equals(sqlState)) {
+            return new QueryTimeoutException("Search exceeded " + properties.getStatementTimeout()
+                    + "; narrow the time range", e);
+        }
+        if (mode == Mode.REGEX && e instanceof DataIntegrityViolationException) {
+            return new IllegalArgumentException("Invalid regular expression: " + e.getMostSpecificCause().getMessage(), e);
+        }
+        return e;
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Keyset position: the last event of a page
+     */
+    record Position(Instant timestamp, UUID id) {
+
+        String encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(24);
+            buffer.putLong(ChronoUnit.MICROS.between(Instant.EPOCH, timestamp));
+            buffer.putLong(id.getMostSignificantBits());
+            buffer.putLong(id.getLeastSignificantBits());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        }
+
+        static Position decode(String cursor) {
+            byte[] bytes;
+            try {
+                bytes = Base64.getUrlDecoder().decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            if (bytes.length != 24) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Instant timestamp = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+            return new Position(timestamp, new UUID(buffer.getLong(), buffer.getLong()));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content-addressed storage of log message bodies (log_messages).
+ *
+ * log_events keeps only the SHA-256 of its message and every distinct body is stored once.
+ * A body is upserted the first time it is written on a (UTC) day, which also moves its
+ * last_seen day forward; a bounded LRU of the hashes written today skips the upsert for
+ * repeats. The retention job deletes bodies whose last_seen is older than any event can be
+ * kept, so a body outlives the events that reference it. Hashes enter the cache only once
+ * the writing transaction commits, so a rolled back body is never assumed to exist.
+ *
+ * Queries read only the preview (the first LogEvent.PREVIEW_LENGTH code points); the full
+ * body is read by hash for a single event. Once a row exceeds about 2KB, PostgreSQL's TOAST
+ * compresses the body (lz4) and moves it out of line, so scanning previews skips large
+ * bodies; shorter bodies stay in the row.
+ */
+@Service
+public class MessageStore {
+
+    private static final String UPSERT = "INSERT INTO log_messages (hash, body, preview, length, last_seen)"
+            + " VALUES (?, ?, ?, ?, ?)"
+            + " ON CONFLICT (hash) DO UPDATE SET last_seen = EXCLUDED.last_seen"
+            + " WHERE log_messages.last_seen < EXCLUDED.last_seen";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Map<ByteBuffer, LocalDate> written;
+    private final Counter upserts;
+    private final Counter cacheHits;
+
+    public MessageStore(JdbcTemplate jdbcTemplate, PersistenceProperties properties, Clock clock,
+                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        int capacity = properties.getMessageCacheSize();
+        this.written = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, LocalDate> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.upserts = Counter.builder("analysis.messages.upserts")
+                .description("Log message bodies written to log_messages")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("analysis.messages.cache.hits")
+                .description("Log messages already written today, stored as a hash only")
+                .register(meterRegistry);
+    }
+
+    public static byte[] hash(String body) {
+        return SHA_256.get().digest(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * First LogEvent.PREVIEW_LENGTH code points of a body, the unit of the stored length
+     * and of PostgreSQL's left() and varchar(n)
+     */
+    public static String preview(String body) {
+        if (body.length() <= LogEvent.PREVIEW_LENGTH) {
+            return body;
+        }
+        if (body.codePointCount(0, body.length()) <= LogEvent.PREVIEW_LENGTH) {
+            return body;
+        }
+        return body.substring(0, body.offsetByCodePoints(0, LogEvent.PREVIEW_LENGTH));
+    }
+
+    /**
+     * Full body of a message, or null if it is not stored (any more)
+     */
+    public String body(byte[] hash) {
+        List<String> bodies = jdbcTemplate.queryForList("SELECT body FROM log_messages WHERE hash = ?", String.class, hash);
+        return bodies.isEmpty() ? null : bodies.get(0);
+    }
+
+    /**
+     * Set the message hash of every event and write the bodies not yet written today,
+     * in the caller's transaction
+     */
+    public void store(List<LogEvent> events) {
+        LocalDate today = LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+        // Sorted, so concurrent batches lock shared bodies in the same order
+        Map<ByteBuffer, String> unwritten = new TreeMap<>();
+        for (LogEvent event : events) {
+            byte[] hash = hash(event.getMessage());
+            event.setMessageHash(hash);
+            ByteBuffer key = ByteBuffer.wrap(hash);
+            if (today.equals(lastWritten(key))) {
+                cacheHits.increment();
+            } else {
+                unwritten.putIfAbsent(key, event.getMessage());
+            }
+        }
+        if (unwritten.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(unwritten.size());
+        unwritten.forEach((key, body) -> rows.add(new Object[]{
+                key.array(), body, preview(body), body.codePointCount(0, body.length()), Date.valueOf(today)}));
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+        upserts.increment(rows.size());
+        afterCommit(() -> unwritten.keySet().forEach(key -> remember(key, today)));
+    }
+
+    private synchronized LocalDate lastWritten(ByteBuffer key) {
+        return written.get(key);
+    }
+
+    private synchronized void remember(ByteBuffer key, LocalDate day) {
+        written.put(key, day);
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
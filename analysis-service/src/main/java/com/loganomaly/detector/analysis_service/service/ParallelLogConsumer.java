@@ -0,0 +1,271 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.loganomaly.detector.analysis_service.config.ParallelConsumerProperties;
+import com.loganomaly.detector.analysis_service.config.RetryProperties;
+import com.loganomaly.detector.analysis_service.detection.Hashing;
+import com.loganomaly.detector.analysis_service.detection.OffsetTracker;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel consumption of the log-events topic (analysis.consumer.mode=parallel).
+ *
+ * Each polled batch is split per partition into key-ordered lanes: events of one service
+ * always go to the same lane and run in poll order, while different lanes run concurrently
+ * on a bounded worker pool, so one slow write no longer stalls the whole partition.
+ * Records complete out of order; an OffsetTracker per partition commits only up to the
+ * lowest record still in flight, so a crash never skips an unprocessed record. When a
+ * partition has too many records in flight the listener waits for its lanes, which keeps
+ * the consumer within max.poll.interval.ms. A failing record is retried with backoff in
+ * its lane and then sent to the dead-letter topic; batch listeners have no retry topics.
+ * Events buffered by the LogEventWriter (copy mode) are flushed before every commit.
+ */
+@Service
+@ConditionalOnProperty(name = "analysis.consumer.mode", havingValue = "parallel")
+public class ParallelLogConsumer implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelLogConsumer.class);
+
+    private final LogAnalysisService logAnalysisService;
+    private final LogEventParser parser;
+    private final SnapshotService snapshots;
+    private final ParallelConsumerProperties properties;
+    private final RetryProperties retry;
+    private final DeadLetterService deadLetters;
+    private final LogEventWriter writer;
+    private final WatermarkService watermarks;
+    private final ExecutorService workers;
+
+    // Each partition is only touched by the consumer thread it is assigned to
+    private final Map<TopicPartition, PartitionLanes> partitions = new ConcurrentHashMap<>();
+
+    public ParallelLogConsumer(LogAnalysisService logAnalysisService,
+                               LogEventParser parser,
+                               SnapshotService snapshots,
+                               ParallelConsumerProperties properties,
+                               RetryProperties retry,
+                               DeadLetterService deadLetters,
+                               LogEventWriter writer,
+                               WatermarkService watermarks) {
+        this.logAnalysisService = logAnalysisService;
+        this.parser = parser;
+        this.snapshots = snapshots;
+        this.properties = properties;
+        this.retry = retry;
+        this.deadLetters = deadLetters;
+        this.writer = writer;
+        this.watermarks = watermarks;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "log-lane-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @KafkaListener(
+            id = "log-events-parallel",
+            topics = "${spring.kafka.topic.log-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "parallelListenerContainerFactory"
+    )
+    public void consumeBatch(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        for (ConsumerRecord<String, String> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            PartitionLanes lanes = partitions.computeIfAbsent(partition, p -> new PartitionLanes());
+            if (lanes.tracker.inFlight() >= properties.getMaxInFlightPerPartition()) {
+                lanes.awaitAll();
+            }
+            dispatch(partition, lanes, record);
+        }
+        commit(consumer, consumer.assignment());
+    }
+
+    /**
+     * Resume from the restored detector snapshot, like the record listener does
+     */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        snapshots.takeRestoredOffsets(assigned).forEach((partition, offset) -> {
+            logger.info("Seeking {} to snapshot offset {}", partition, offset);
+            consumer.seek(partition, offset);
+        });
+    }
+
+    /**
+     * Finish the in-flight records of revoked partitions and commit them before another
+     * consumer takes over
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            PartitionLanes lanes = partitions.get(partition);
+            if (lanes != null) {
+                lanes.awaitAll();
+            }
+        }
+        commit(consumer, revoked);
+        revoked.forEach(partitions::remove);
+        watermarks.removePartitions(revoked);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+        lost.forEach(partitions::remove);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(properties.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Log lanes did not finish within {}", properties.getDrainTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(TopicPartition partition, PartitionLanes lanes, ConsumerRecord<String, String> record) {
+        long offset = record.offset();
+        lanes.tracker.track(offset);
+
+        LogEvent event;
+        try {
+            event = parser.parse(record.value(), Instant.ofEpochMilli(record.timestamp()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            deadLetter(record, new MessageConversionException("Invalid log event: " + e.getMessage(), e));
+            lanes.tracker.complete(offset);
+            return;
+        }
+
+        String key = event.getService() == null ? "" : event.getService();
+        int lane = (int) Math.floorMod(Hashing.hash64(key), (long) lanes.tails.length);
+        lanes.tails[lane] = lanes.tails[lane].thenComposeAsync(
+                ignored -> process(partition, lanes, record, event, 1), workers);
+    }
+
+    /**
+     * Process a record, retrying with backoff inside its lane (only its service waits),
+     * and dead-letter it after the last attempt
+     */
+    private CompletableFuture<Void> process(TopicPartition partition, PartitionLanes lanes,
+                                            ConsumerRecord<String, String> record, LogEvent event, int attempt) {
+        try {
+            snapshots.process(partition,
+                    () -> logAnalysisService.processEvent(event, partition, record.timestamp()),
+                    () -> lanes.tracker.complete(record.offset()));
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            if (attempt < retry.getAttempts()) {
+                long delay = retry.delayBefore(attempt);
+                logger.warn("Log event at {}@{} failed (attempt {}), retrying in {} ms: {}",
+                        partition, record.offset(), attempt, delay, e.getMessage());
+                Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, workers);
+                return CompletableFuture.supplyAsync(() -> null, delayed)
+                        .thenComposeAsync(ignored -> process(partition, lanes, record, event, attempt + 1), workers);
+            }
+            deadLetter(record, e);
+            // The lane must keep running and the offset must not block commits forever
+            lanes.tracker.complete(record.offset());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void deadLetter(ConsumerRecord<String, String> record, Exception failure) {
+        try {
+            deadLetters.publish(record, failure);
+            logger.error("Log event at {}-{}@{} dead-lettered: {}",
+                    record.topic(), record.partition(), record.offset(), failure.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Failed to dead-letter log event at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage(), e);
+        }
+    }
+
+    private void commit(Consumer<?, ?> consumer, Collection<TopicPartition> candidates) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : candidates) {
+            PartitionLanes lanes = partitions.get(partition);
+            if (lanes == null) {
+                continue;
+            }
+            long committable = lanes.tracker.committable();
+            if (committable > lanes.committed) {
+                commits.put(partition, new OffsetAndMetadata(committable));
+            }
+        }
+        if (commits.isEmpty()) {
+            return;
+        }
+        // The committable offsets are read first: every event below them is buffered by now
+        try {
+            writer.flush();
+        } catch (DataAccessException e) {
+            logger.warn("Log events not written, keeping offsets {} uncommitted: {}", commits.keySet(), e.getMessage());
+            return;
+        }
+        consumer.commitSync(commits);
+        commits.forEach((partition, offset) -> {
+            PartitionLanes lanes = partitions.get(partition);
+            if (lanes != null) {
+                lanes.committed = offset.offset();
+            }
+        });
+        logger.debug("Committed {}", commits);
+    }
+
+    private final class PartitionLanes {
+
+        private final OffsetTracker tracker = new OffsetTracker();
+        private final CompletableFuture<?>[] tails;
+        private long committed = -1;
+
+        private PartitionLanes() {
+            tails = new CompletableFuture<?>[Math.max(1, properties.getMaxConcurrencyPerPartition())];
+            for (int i = 0; i < tails.length; i++) {
+                tails[i] = CompletableFuture.completedFuture(null);
+            }
+        }
+
+        void awaitAll() {
+            try {
+                CompletableFuture.allOf(tails).get(properties.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                logger.warn("Lanes still busy after {} ({} records in flight)",
+                        properties.getDrainTimeout(), tracker.inFlight());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Lane failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.PartitionProperties;
+import com.loganomaly.detector.analysis_service.config.RetentionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Creates and drops the daily partitions of log_events.
+ *
+ * Partitions are named log_events_pYYYYMMDD and cover one UTC day. The upcoming days are
+ * created ahead of time; a new partition takes over any rows of its day that had landed
+ * in log_events_default, in the same transaction. Days past the longest retention of any
+ * event are detached and dropped, which frees the space at once without DELETE, dead
+ * tuples or vacuum; shorter per-level and per-service retention is left to RetentionService.
+ * DDL runs with a short lock timeout and is retried on the next run if it has to wait.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    static final String PARTITION_PREFIX = "log_events_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final PartitionProperties properties;
+    private final RetentionProperties retention;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Counter partitionsDropped;
+
+    public PartitionMaintenanceService(PartitionProperties properties,
+                                       RetentionProperties retention,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       Clock clock) {
+        this.properties = properties;
+        this.retention = retention;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.partitionsDropped = Counter.builder("analysis.retention.partitions.dropped")
+                .description("Expired log_events partitions dropped")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void maintainOnStartup() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.partitions.interval-millis:3600000}",
+            initialDelayString = "${analysis.partitions.interval-millis:3600000}")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+            Set<LocalDate> existing = existingPartitions();
+            for (LocalDate day : missingDays(existing, today, properties.getPremakeDays())) {
+                createPartition(day);
+            }
+            if (retention.isEnabled()) {
+                // Whole days only: a partial day of retention keeps the partition one more day
+                long retentionDays = (retention.longest().toHours() + 23) / 24;
+                for (LocalDate day : expiredDays(existing, today, retentionDays)) {
+                    dropPartition(day);
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.warn("log_events partition maintenance failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Days from today through today + premakeDays without a partition
+     */
+    static List<LocalDate> missingDays(Set<LocalDate> existing, LocalDate today, int premakeDays) {
+        List<LocalDate> missing = new ArrayList<>();
+        for (int i = 0; i <= premakeDays; i++) {
+            LocalDate day = today.plusDays(i);
+            if (!existing.contains(day)) {
+                missing.add(day);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Partition days that end before today minus the retention
+     */
+    static List<LocalDate> expiredDays(Set<LocalDate> existing, LocalDate today, long retentionDays) {
+        LocalDate oldestKept = today.minusDays(retentionDays);
+        return existing.stream().filter(day -> day.isBefore(oldestKept)).toList();
+    }
+
+    /**
+     * Day covered by a partition name, or null for other tables (e.g. the default partition)
+     */
+    static LocalDate dayOf(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Set<LocalDate> existingPartitions() {
+        List<String> names = jdbcTemplate.queryForList("""
+                SELECT child.relname
+                FROM pg_inherits
+                JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                WHERE parent.relname = 'log_events'
+                """, String.class);
+        Set<LocalDate> days = new TreeSet<>();
+        for (String name : names) {
+            LocalDate day = dayOf(name);
+            if (day != null) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private void createPartition(LocalDate day) {
+        String name = PARTITION_PREFIX + day.format(SUFFIX);
+        String from = day + " 00:00:00+00";
+        String to = day.plusDays(1) + " 00:00:00+00";
+        transactionTemplate.executeWithoutResult(status -> {
+            setLockTimeout();
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE log_events INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            // Rows of this day that arrived before the partition existed
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM log_events_default"
+                    + " WHERE timestamp >= ?::timestamptz AND timestamp < ?::timestamptz RETURNING *)"
+                    + " INSERT INTO " + name + " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE log_events ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            logger.info("Created log_events partition {}{}", name, moved > 0 ? " (" + moved + " rows moved from default)" : "");
+        });
+    }
+
+    private void dropPartition(LocalDate day) {
+        String name = PARTITION_PREFIX + day.format(SUFFIX);
+        transactionTemplate.executeWithoutResult(status -> {
+            setLockTimeout();
+            jdbcTemplate.execute("ALTER TABLE log_events DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE " + name);
+        });
+        partitionsDropped.increment();
+        logger.info("Dropped expired log_events partition {}", name);
+    }
+
+    private void setLockTimeout() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + properties.getLockTimeout().toMillis() + "ms'");
+    }
+}
@@ -0,0 +1,363 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.QuantileProperties;
+import com.loganomaly.detector.analysis_service.detection.QuantileSketch;
+import com.loganomaly.detector.analysis_service.detection.Reservoir;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.EventSample;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks numeric metadata values (duration_ms, status, bytes, ...) in mergeable quantile
+ * sketches per (service, key) and time bucket, and raises QUANTILE_SHIFT when the p95 or
+ * p99 of a completed bucket moves past the baseline built from the preceding buckets.
+ */
+@Service
+@RequiredArgsConstructor
+public class QuantileDetectorService implements DetectorStateOwner, SnapshotParticipant {
+
+    private static final double[] REPORTED_QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final QuantileProperties properties;
+    private final AlertService alertService;
+    private final Clock clock;
+
+    @Value("${anomaly.cooldown-minutes:5}")
+    private int cooldownMinutes;
+
+    @Value("${anomaly.sample-size:5}")
+    private int sampleSize;
+
+    // Access-ordered so the least recently updated series is evicted first
+    private final LinkedHashMap<SeriesKey, Series> series = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> keysPerService = new HashMap<>();
+
+    /**
+     * Feed the numeric metadata values of an event into the sketch of its event-time bucket
+     */
+    public void record(LogEvent event, long eventTime) {
+        if (!properties.isEnabled() || event.getMetadata() == null || event.getMetadata().isEmpty()) {
+            return;
+        }
+
+        List<Alert> alerts = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, String> entry : event.getMetadata().entrySet()) {
+                Double value = parseNumber(entry.getValue());
+                if (value == null) {
+                    continue;
+                }
+                Series s = seriesFor(new SeriesKey(event.getService(), entry.getKey()));
+                if (s == null) {
+                    continue;
+                }
+                Alert alert = s.add(value, event, eventTime);
+                if (alert != null) {
+                    alerts.add(alert);
+                }
+            }
+        }
+        alerts.forEach(alertService::raise);
+    }
+
+    /**
+     * Merge the buckets of the last N minutes for a series (empty sketch if unknown)
+     */
+    public synchronized QuantileSketch window(String service, String key, int minutes) {
+        QuantileSketch merged = new QuantileSketch(properties.getRelativeAccuracy());
+        Series s = series.get(new SeriesKey(service, key));
+        if (s != null) {
+            long to = clock.millis();
+            s.mergeInto(merged, to - minutes * 60_000L, to + 1);
+        }
+        return merged;
+    }
+
+    /**
+     * Numeric metadata keys currently tracked for a service
+     */
+    public synchronized List<String> keys(String service) {
+        return series.keySet().stream()
+                .filter(k -> k.service().equals(service))
+                .map(SeriesKey::key)
+                .sorted()
+                .toList();
+    }
+
+    public static Map<String, Object> summarize(QuantileSketch sketch) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sketch.getCount());
+        if (!sketch.isEmpty()) {
+            for (double q : REPORTED_QUANTILES) {
+                summary.put("p" + Math.round(q * 100), sketch.quantile(q));
+            }
+            summary.put("max", sketch.getMax());
+        }
+        return summary;
+    }
+
+    @Override
+    public String stateName() {
+        return "quantile";
+    }
+
+    @Override
+    public synchronized int stateEntries() {
+        return series.size();
+    }
+
+    /**
+     * Each series holds a ring of bucket sketches of a few hundred bytes each
+     */
+    @Override
+    public synchronized long estimatedStateBytes() {
+        return series.size() * (properties.getBaselineBuckets() + 1L) * 512 + series.size() * 64L * sampleSize;
+    }
+
+    @Override
+    public synchronized void evictService(String service) {
+        series.keySet().removeIf(key -> key.service().equals(service));
+        keysPerService.remove(service);
+    }
+
+    @Override
+    public String snapshotName() {
+        return "quantile";
+    }
+
+    /**
+     * Every series with its bucket sketches and cooldown, least recently updated first
+     */
+    @Override
+    public synchronized void writeSnapshot(DataOutput out) throws IOException {
+        out.writeInt(series.size());
+        for (Series s : series.values()) {
+            out.writeUTF(s.key.service());
+            out.writeUTF(s.key.key());
+            out.writeLong(s.currentBucket);
+            out.writeLong(s.lastAlertBucket);
+            int buckets = 0;
+            for (QuantileSketch bucket : s.buckets) {
+                if (bucket != null) {
+                    buckets++;
+                }
+            }
+            out.writeInt(buckets);
+            for (int i = 0; i < s.buckets.length; i++) {
+                if (s.buckets[i] != null) {
+                    out.writeLong(s.bucketStarts[i]);
+                    s.buckets[i].writeTo(out);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            SeriesKey key = new SeriesKey(in.readUTF(), in.readUTF());
+            long currentBucket = in.readLong();
+            long lastAlertBucket = in.readLong();
+            int buckets = in.readInt();
+            Series s = seriesFor(key);
+            for (int j = 0; j < buckets; j++) {
+                long start = in.readLong();
+                QuantileSketch sketch = QuantileSketch.readFrom(in);
+                if (s != null && sketch.getRelativeAccuracy() == properties.getRelativeAccuracy()) {
+                    int slot = s.slot(start);
+                    s.buckets[slot] = sketch;
+                    s.bucketStarts[slot] = start;
+                }
+            }
+            if (s != null) {
+                s.currentBucket = currentBucket;
+                s.lastAlertBucket = lastAlertBucket;
+            }
+        }
+    }
+
+    private Series seriesFor(SeriesKey key) {
+        Series s = series.get(key);
+        if (s != null) {
+            return s;
+        }
+        int keys = keysPerService.getOrDefault(key.service(), 0);
+        if (keys >= properties.getMaxKeysPerService()) {
+            return null;
+        }
+        if (series.size() >= properties.getMaxSeries()) {
+            SeriesKey eldest = series.keySet().iterator().next();
+            series.remove(eldest);
+            keysPerService.computeIfPresent(eldest.service(), (svc, n) -> n > 1 ? n - 1 : null);
+        }
+        s = new Series(key);
+        series.put(key, s);
+        keysPerService.merge(key.service(), 1, Integer::sum);
+        return s;
+    }
+
+    private static Double parseNumber(String value) {
+        if (value == null || value.isEmpty() || value.length() > 32) {
+            return null;
+        }
+        char first = value.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '.') {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            return Double.isFinite(parsed) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public record SeriesKey(String service, String key) {}
+
+    /**
+     * Ring of per-bucket sketches for one (service, key)
+     */
+    private final class Series {
+        private final SeriesKey key;
+        private final QuantileSketch[] buckets;
+        private final long[] bucketStarts;
+        private long currentBucket = Long.MIN_VALUE;
+        private long lastAlertBucket = Long.MIN_VALUE / 2;
+
+        // Events of the current bucket; older buckets are not sampled
+        private final Reservoir<EventSample> samples = new Reservoir<>(sampleSize);
+
+        private Series(SeriesKey key) {
+            this.key = key;
+            this.buckets = new QuantileSketch[properties.getBaselineBuckets() + 1];
+            this.bucketStarts = new long[buckets.length];
+        }
+
+        private Alert add(double value, LogEvent event, long eventTime) {
+            long bucketMillis = bucketMillis();
+            long bucketStart = eventTime - Math.floorMod(eventTime, bucketMillis);
+
+            // Late events still land in their own bucket; only a newer bucket closes the current one
+            Alert alert = null;
+            if (bucketStart > currentBucket) {
+                if (currentBucket != Long.MIN_VALUE) {
+                    alert = evaluate(currentBucket);
+                }
+                currentBucket = bucketStart;
+                samples.clear();
+            }
+            if (bucketStart == currentBucket) {
+                samples.offer(event, EventSample::of);
+            }
+            if (bucketStart <= currentBucket - (long) properties.getBaselineBuckets() * bucketMillis) {
+                return alert;
+            }
+
+            int slot = slot(bucketStart);
+            if (buckets[slot] == null || bucketStarts[slot] != bucketStart) {
+                buckets[slot] = new QuantileSketch(properties.getRelativeAccuracy());
+                bucketStarts[slot] = bucketStart;
+            }
+            buckets[slot].add(value);
+            return alert;
+        }
+
+        /**
+         * Compare a just-completed bucket against the merge of the buckets before it
+         */
+        private Alert evaluate(long closedStart) {
+            int slot = slot(closedStart);
+            QuantileSketch closed = buckets[slot];
+            if (closed == null || bucketStarts[slot] != closedStart
+                    || closed.getCount() < properties.getMinBucketSamples()) {
+                return null;
+            }
+
+            QuantileSketch baseline = new QuantileSketch(properties.getRelativeAccuracy());
+            mergeInto(baseline, closedStart - properties.getBaselineBuckets() * bucketMillis(), closedStart);
+            if (baseline.getCount() < properties.getMinBaselineSamples()) {
+                return null;
+            }
+            if (Math.abs(closedStart - lastAlertBucket) < cooldownMinutes * 60_000L) {
+                return null;
+            }
+
+            String shifted = null;
+            double current = 0;
+            double expected = 0;
+            for (double q : new double[]{0.99, 0.95}) {
+                double closedValue = closed.quantile(q);
+                double baselineValue = baseline.quantile(q);
+                if (baselineValue > 0 && closedValue > baselineValue * properties.getShiftFactor()) {
+                    shifted = "p" + Math.round(q * 100);
+                    current = closedValue;
+                    expected = baselineValue;
+                    break;
+                }
+            }
+            if (shifted == null) {
+                return null;
+            }
+
+            lastAlertBucket = closedStart;
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put("metadataKey", key.key());
+            context.put("bucketStart", Instant.ofEpochMilli(closedStart).toString());
+            context.put("bucket", summarize(closed));
+            context.put("baseline", summarize(baseline));
+
+            double ratio = current / expected;
+            return Alert.builder()
+                    .type("QUANTILE_SHIFT")
+                    .severity(ratio > properties.getShiftFactor() * 2 ? "CRITICAL" : "WARNING")
+                    .message(String.format(
+                            "%s of '%s' for service '%s' rose to %.2f (baseline %.2f, x%.1f) in the %d minute bucket starting %s",
+                            shifted,
+                            key.key(),
+                            key.service(),
+                            current,
+                            expected,
+                            ratio,
+                            properties.getBucketMinutes(),
+                            Instant.ofEpochMilli(closedStart)
+                    ))
+                    .service(key.service())
+                    .fingerprint(AlertService.fingerprint("QUANTILE_SHIFT", key.service(), key.key()))
+                    .detectedAt(clock.instant())
+                    .context(context)
+                    .samples(samples.sample())
+                    .build();
+        }
+
+        private void mergeInto(QuantileSketch target, long fromInclusive, long toExclusive) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] != null && bucketStarts[i] >= fromInclusive && bucketStarts[i] < toExclusive) {
+                    target.merge(buckets[i]);
+                }
+            }
+        }
+
+        private int slot(long bucketStart) {
+            return (int) Math.floorMod(bucketStart / bucketMillis(), (long) buckets.length);
+        }
+
+        private long bucketMillis() {
+            return properties.getBucketMinutes() * 60_000L;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.RetentionProperties;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces the per-level and per-service retention of log events and the retention of
+ * resolved alerts and of the minute and hour event rollups.
+ *
+ * Days past the longest retention are dropped as whole partitions by the
+ * PartitionMaintenanceService; this job removes the shorter-lived rows inside the
+ * remaining partitions. It deletes in small chunks, oldest first, each chunk in its own
+ * transaction with a pause after it, so locks stay short and the WAL and vacuum load is
+ * spread out. A run stops at maxRowsPerRun or when it leaves the configured window and
+ * picks up where it left off next time.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    // Primary key of the partitioned log_events table
+    private static final String EVENT_KEY = "id, timestamp";
+    // Services are configured by name; log_events stores their id
+    private static final String SERVICE_ID = "(SELECT id FROM services WHERE name = ?)";
+
+    private final RetentionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Timer runTimer;
+    private final AtomicInteger rulesPending = new AtomicInteger();
+    private volatile long lastRunRows;
+
+    public RetentionService(RetentionProperties properties,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            Clock clock) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.runTimer = Timer.builder("analysis.retention.run")
+                .description("Duration of a retention run")
+                .register(meterRegistry);
+        Gauge.builder("analysis.retention.rules.pending", rulesPending, AtomicInteger::get)
+                .description("Retention rules not yet enforced in the current run")
+                .register(meterRegistry);
+        Gauge.builder("analysis.retention.last.run.rows", this, s -> s.lastRunRows)
+                .description("Rows deleted by the last retention run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One retention rule: rows of a table matching a condition and older than a cutoff
+     */
+    record Rule(String name, String table, String key, String timeColumn, String condition, List<Object> args,
+                Duration retention) {}
+
+    @Scheduled(fixedDelayString = "${analysis.retention.interval-millis:900000}",
+            initialDelayString = "${analysis.retention.initial-delay-millis:60000}")
+    public void enforce() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Rule> rules = rules();
+        rulesPending.set(rules.size());
+        long deleted = 0;
+        Instant started = clock.instant();
+        try {
+            for (Rule rule : rules) {
+                if (deleted >= properties.getMaxRowsPerRun() || !inWindow()) {
+                    break;
+                }
+                deleted += enforce(rule, properties.getMaxRowsPerRun() - deleted);
+                rulesPending.decrementAndGet();
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Retention run failed, retrying on the next run: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runTimer.record(Duration.between(started, clock.instant()));
+            lastRunRows = deleted;
+            rulesPending.set(0);
+        }
+        if (deleted > 0) {
+            logger.info("Retention run deleted {} row(s) in {}", deleted, Duration.between(started, clock.instant()));
+        }
+    }
+
+    /**
+     * Rules for the configuration: per service, then per level (other services), then the
+     * default (other levels and services), then resolved alerts, rollups and message bodies
+     */
+    List<Rule> rules() {
+        List<Rule> rules = new ArrayList<>();
+        properties.getServices().forEach((service, retention) -> rules.add(new Rule("service:" + service,
+                "log_events", EVENT_KEY, "timestamp", "service_id = " + SERVICE_ID, List.of(service), retention)));
+
+        List<Object> services = new ArrayList<>(properties.getServices().keySet());
+        properties.getLevels().forEach((name, retention) -> {
+            LogLevel level = LogLevel.parse(name);
+            List<Object> args = new ArrayList<>();
+            args.add(level.getCode());
+            args.addAll(services);
+            rules.add(new Rule("level:" + level.name(), "log_events", EVENT_KEY, "timestamp",
+                    "level_id = ?" + notInServices(services.size()), args, retention));
+        });
+
+        List<Object> levels = properties.getLevels().keySet().stream()
+                .map(name -> (Object) LogLevel.parse(name).getCode())
+                .toList();
+        List<Object> args = new ArrayList<>(levels);
+        args.addAll(services);
+        String condition = "TRUE" + notIn("level_id", levels.size()) + notInServices(services.size());
+        rules.add(new Rule("default", "log_events", EVENT_KEY, "timestamp", condition, args, properties.getEvents()));
+
+        rules.add(new Rule("resolved", "alerts", "id", "resolved_at", "status = 'RESOLVED'", List.of(), properties.getAlerts()));
+        properties.getRollups().forEach((resolution, retention) -> rules.add(new Rule(
+                "rollup:" + resolution.toUpperCase(), "event_rollups", "resolution, bucket, service, level", "bucket",
+                "resolution = ?", List.of(resolution.toUpperCase()), retention)));
+        // A body is written at least daily while in use; kept past the last partition drop
+        rules.add(new Rule("messages", "log_messages", "hash", "last_seen", "TRUE", List.of(),
+                properties.longest().plusDays(2)));
+        return rules;
+    }
+
+    /**
+     * Delete the expired rows of a rule chunk by chunk, oldest first
+     */
+    private long enforce(Rule rule, long budget) throws InterruptedException {
+        Timestamp cutoff = Timestamp.from(clock.instant().minus(rule.retention()));
+        // By primary key; ctid is not unique across partitions
+        String sql = "DELETE FROM " + rule.table() + " WHERE (" + rule.key() + ") IN (SELECT " + rule.key()
+                + " FROM " + rule.table() + " WHERE " + rule.condition() + " AND " + rule.timeColumn() + " < ?"
+                + " ORDER BY " + rule.timeColumn() + " LIMIT ?)";
+        Counter rows = Counter.builder("analysis.retention.rows.deleted")
+                .description("Rows deleted by the retention job")
+                .tag("table", rule.table())
+                .tag("rule", rule.name())
+                .register(meterRegistry);
+
+        long deleted = 0;
+        while (deleted < budget) {
+            int limit = (int) Math.min(properties.getChunkSize(), budget - deleted);
+            List<Object> args = new ArrayList<>(rule.args());
+            args.add(cutoff);
+            args.add(limit);
+            int chunk = jdbcTemplate.update(sql, args.toArray());
+            deleted += chunk;
+            rows.increment(chunk);
+            if (chunk < limit || !inWindow()) {
+                break;
+            }
+            Thread.sleep(properties.getChunkPause().toMillis());
+        }
+        if (deleted > 0) {
+            logger.debug("Retention rule {} deleted {} row(s) from {} older than {}", rule.name(), deleted, rule.table(), cutoff);
+        }
+        return deleted;
+    }
+
+    private boolean inWindow() {
+        return properties.inWindow(LocalTime.ofInstant(clock.instant(), properties.getZone()));
+    }
+
+    private static String notIn(String column, int count) {
+        if (count == 0) {
+            return "";
+        }
+        return " AND " + column + " NOT IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    private static String notInServices(int count) {
+        if (count == 0) {
+            return "";
+        }
+        return " AND service_id NOT IN (SELECT id FROM services WHERE name IN ("
+                + String.join(", ", Collections.nCopies(count, "?")) + "))";
+    }
+}
@@ -0,0 +1,285 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SeasonalBaselineProperties;
+import com.loganomaly.detector.analysis_service.detection.HourOfWeekBaseline;
+import com.loganomaly.detector.analysis_service.detection.Reservoir;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.EventSample;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.SeasonalBaseline;
+import com.loganomaly.detector.analysis_service.repository.SeasonalBaselineRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seasonal rate detection: per (service, level) per-minute event rates are learned for each
+ * hour of the week and live rates are compared against the matching slot, so regular
+ * Monday-morning peaks are normal while the same rate at 3am is not.
+ *
+ * Baselines are updated in place as minutes complete, flushed to seasonal_baselines
+ * (one 2 KB row per baseline) only when changed, and loaded with a single query at startup.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeasonalBaselineService implements DetectorStateOwner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeasonalBaselineService.class);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    // Longest gap filled with zero-rate minutes when a series resumes
+    private static final int MAX_GAP_MINUTES = 60;
+
+    private final SeasonalBaselineProperties properties;
+    private final SeasonalBaselineRepository baselineRepository;
+    private final AlertService alertService;
+    private final Clock clock;
+
+    @Value("${anomaly.cooldown-minutes:5}")
+    private int cooldownMinutes;
+
+    @Value("${anomaly.sample-size:5}")
+    private int sampleSize;
+
+    private final Map<String, State> states = new HashMap<>();
+
+    @PostConstruct
+    void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<SeasonalBaseline> rows = baselineRepository.findAll();
+        synchronized (this) {
+            for (SeasonalBaseline row : rows) {
+                try {
+                    states.put(row.getBaselineKey(),
+                            new State(row.getService(), row.getLevel(), HourOfWeekBaseline.fromBytes(row.getSlots())));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping unreadable seasonal baseline {}: {}", row.getBaselineKey(), e.getMessage());
+                }
+            }
+        }
+        logger.info("Loaded {} seasonal baselines in {} ms", rows.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Count an event towards its (service, level) event-time minute and compare the live rate with the slot
+     */
+    public void record(LogEvent event, long eventTime) {
+        if (!properties.isEnabled() || !properties.getLevels().contains(event.getLevel())) {
+            return;
+        }
+
+        Alert alert;
+        synchronized (this) {
+            State state = stateFor(event.getService(), event.getLevel());
+            if (state == null) {
+                return;
+            }
+            state.advanceTo(eventTime - Math.floorMod(eventTime, MINUTE_MILLIS));
+            state.count++;
+            state.samples.offer(event, EventSample::of);
+            alert = state.check();
+        }
+        if (alert != null) {
+            alertService.raise(alert);
+        }
+    }
+
+    /**
+     * Whether a per-minute rate is still normal for the hour of the week of the given event time.
+     * Returns false while there is no trusted baseline, so callers fall back to static rules.
+     */
+    public synchronized boolean isWithinSeasonalNorm(String service, String level, double perMinuteRate, long eventTime) {
+        if (!properties.isEnabled() || !properties.isGateStaticThreshold()) {
+            return false;
+        }
+        State state = states.get(key(service, level));
+        if (state == null) {
+            return false;
+        }
+        int slot = slotOf(eventTime);
+        return state.baseline.samples(slot) >= properties.getMinSamples()
+                && perMinuteRate <= state.baseline.threshold(slot, properties.getSensitivity(), properties.getMinDelta());
+    }
+
+    /**
+     * Write changed baselines back in place
+     */
+    @Scheduled(fixedDelayString = "${anomaly.seasonal.flush-interval-millis:60000}")
+    public void flush() {
+        List<SeasonalBaseline> dirty = new ArrayList<>();
+        synchronized (this) {
+            Instant now = clock.instant();
+            states.forEach((key, state) -> {
+                if (state.dirty) {
+                    state.dirty = false;
+                    dirty.add(SeasonalBaseline.builder()
+                            .baselineKey(key)
+                            .service(state.service)
+                            .level(state.level)
+                            .slots(state.baseline.toBytes())
+                            .updatedAt(now)
+                            .build());
+                }
+            });
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            baselineRepository.saveAll(dirty);
+            logger.debug("Flushed {} seasonal baselines", dirty.size());
+        } catch (DataAccessException e) {
+            // Written again by the next flush
+            synchronized (this) {
+                dirty.forEach(baseline -> {
+                    State state = states.get(baseline.getBaselineKey());
+                    if (state != null) {
+                        state.dirty = true;
+                    }
+                });
+            }
+            logger.warn("Failed to flush {} seasonal baselines, retrying: {}", dirty.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String stateName() {
+        return "seasonal";
+    }
+
+    @Override
+    public synchronized int stateEntries() {
+        return states.size();
+    }
+
+    @Override
+    public synchronized long estimatedStateBytes() {
+        return states.size() * (HourOfWeekBaseline.SERIALIZED_BYTES + 256L + 64L * sampleSize);
+    }
+
+    /**
+     * Forget a service's baselines in memory; rows already flushed are kept
+     */
+    @Override
+    public synchronized void evictService(String service) {
+        states.values().removeIf(state -> state.service.equals(service));
+    }
+
+    private State stateFor(String service, String level) {
+        String key = key(service, level);
+        State state = states.get(key);
+        if (state == null) {
+            if (states.size() >= properties.getMaxBaselines()) {
+                return null;
+            }
+            state = new State(service, level, new HourOfWeekBaseline());
+            states.put(key, state);
+        }
+        return state;
+    }
+
+    private int slotOf(long millis) {
+        return HourOfWeekBaseline.slotOf(Instant.ofEpochMilli(millis).atZone(properties.getZone()));
+    }
+
+    private static String key(String service, String level) {
+        return service + "|" + level;
+    }
+
+    private final class State {
+        private final String service;
+        private final String level;
+        private final HourOfWeekBaseline baseline;
+        private long minuteStart = Long.MIN_VALUE;
+        private long count;
+        private boolean alertedThisMinute;
+        private long lastAlertMinute = Long.MIN_VALUE / 2;
+        private boolean dirty;
+        private final Reservoir<EventSample> samples = new Reservoir<>(sampleSize);
+
+        private State(String service, String level, HourOfWeekBaseline baseline) {
+            this.service = service;
+            this.level = level;
+            this.baseline = baseline;
+        }
+
+        /**
+         * Close the previous minute (and any silent minutes since) into the baseline.
+         * Events of an older minute are counted in the current one.
+         */
+        private void advanceTo(long currentMinute) {
+            if (minuteStart != Long.MIN_VALUE && currentMinute <= minuteStart) {
+                return;
+            }
+            if (minuteStart != Long.MIN_VALUE) {
+                baseline.update(slotOf(minuteStart), count);
+                long gap = Math.min((currentMinute - minuteStart) / MINUTE_MILLIS - 1, MAX_GAP_MINUTES);
+                for (long i = 1; i <= gap; i++) {
+                    long silentMinute = currentMinute - i * MINUTE_MILLIS;
+                    baseline.update(slotOf(silentMinute), 0);
+                }
+                dirty = true;
+            }
+            minuteStart = currentMinute;
+            count = 0;
+            samples.clear();
+            alertedThisMinute = false;
+        }
+
+        private Alert check() {
+            int slot = slotOf(minuteStart);
+            if (alertedThisMinute || baseline.samples(slot) < properties.getMinSamples()) {
+                return null;
+            }
+            double threshold = baseline.threshold(slot, properties.getSensitivity(), properties.getMinDelta());
+            if (count <= threshold || Math.abs(minuteStart - lastAlertMinute) < cooldownMinutes * MINUTE_MILLIS) {
+                return null;
+            }
+
+            alertedThisMinute = true;
+            lastAlertMinute = minuteStart;
+
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put("hourOfWeekSlot", slot);
+            context.put("baselineMedian", baseline.median(slot));
+            context.put("baselineMad", baseline.mad(slot));
+            context.put("threshold", threshold);
+
+            double median = baseline.median(slot);
+            return Alert.builder()
+                    .type("SEASONAL_RATE_ANOMALY")
+                    .severity(count > threshold * 2 ? "CRITICAL" : "WARNING")
+                    .message(String.format(
+                            "Unusual %s rate for service '%s': %d events this minute, usual for this hour of the week is %.1f (threshold %.1f)",
+                            level,
+                            service,
+                            count,
+                            median,
+                            threshold
+                    ))
+                    .service(service)
+                    .fingerprint(AlertService.fingerprint("SEASONAL_RATE_ANOMALY", service, level))
+                    .detectedAt(clock.instant())
+                    .context(context)
+                    .samples(samples.sample())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SequenceDetectionProperties;
+import com.loganomaly.detector.analysis_service.detection.ExpiringLruMap;
+import com.loganomaly.detector.analysis_service.detection.Hashing;
+import com.loganomaly.detector.analysis_service.detection.MessageTemplates;
+import com.loganomaly.detector.analysis_service.detection.TransitionModel;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.EventSample;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects unusual orderings of events within one request, trace or session.
+ *
+ * Events sharing the configured correlation metadata value form a sequence; each step
+ * from one message template to the next is scored against a learned first-order Markov
+ * model of transitions. A transition whose probability is below the configured minimum
+ * raises one SEQUENCE_ANOMALY alert for the sequence. The model keeps learning online, so
+ * a new normal ordering stops alerting once it has been seen often enough.
+ *
+ * Open sequences live in a size-capped LRU map and are dropped after the idle TTL.
+ */
+@Service
+public class SequenceDetectorService implements DetectorStateOwner, SnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceDetectorService.class);
+
+    private final AlertService alertService;
+    private final SequenceDetectionProperties properties;
+    private final Clock clock;
+    private final ExpiringLruMap<String, Sequence> sequences;
+    private TransitionModel model;
+
+    public SequenceDetectorService(AlertService alertService, SequenceDetectionProperties properties, Clock clock) {
+        this.alertService = alertService;
+        this.properties = properties;
+        this.clock = clock;
+        this.sequences = new ExpiringLruMap<>(properties.getMaxSequences(), properties.getTtl().toMillis());
+        this.model = new TransitionModel(properties.getMaxTemplates(), properties.getMaxTransitionsPerTemplate());
+    }
+
+    /**
+     * Append an event to its sequence and score the transition from the previous template
+     */
+    public void record(LogEvent event) {
+        if (!properties.isEnabled() || event.getMetadata() == null || event.getService() == null) {
+            return;
+        }
+        String correlationId = event.getMetadata().get(properties.getCorrelationKey());
+        if (correlationId == null) {
+            return;
+        }
+
+        // Templates are qualified by service: a trace crosses services
+        String template = event.getService() + ": " + MessageTemplates.templateOf(event.getMessage());
+        long templateId = Hashing.hash64(template);
+
+        Alert alert = null;
+        synchronized (this) {
+            long now = clock.millis();
+            Sequence sequence = sequences.get(correlationId, now);
+            if (sequence == null) {
+                sequence = new Sequence();
+                sequences.put(correlationId, sequence, now);
+            }
+
+            long from = sequence.lastTemplateId;
+            if (!sequence.alerted && model.observations(from) >= properties.getMinSourceObservations()) {
+                double probability = model.probability(from, templateId);
+                if (probability < properties.getMinTransitionProbability()) {
+                    sequence.alerted = true;
+                    alert = buildSequenceAlert(event, correlationId, sequence, template, probability);
+                }
+            }
+            model.learn(from, templateId);
+
+            sequence.lastTemplateId = templateId;
+            sequence.length++;
+            sequence.recent.addLast(template);
+            if (sequence.recent.size() > properties.getContextLength()) {
+                sequence.recent.removeFirst();
+            }
+        }
+        if (alert != null) {
+            alertService.raise(alert);
+        }
+    }
+
+    /**
+     * Number of sequences currently held in memory
+     */
+    public synchronized int openSequences() {
+        return sequences.size();
+    }
+
+    @Override
+    public String stateName() {
+        return "sequence";
+    }
+
+    @Override
+    public synchronized int stateEntries() {
+        return sequences.size() + model.size();
+    }
+
+    @Override
+    public synchronized long estimatedStateBytes() {
+        return sequences.size() * (128L + 96L * properties.getContextLength()) + model.size() * 1024L;
+    }
+
+    /**
+     * Sequences are keyed by correlation id and bounded by their own caps and TTL
+     */
+    @Override
+    public void evictService(String service) {
+    }
+
+    @Override
+    public boolean boundedByOwnCaps() {
+        return true;
+    }
+
+    @Override
+    public String snapshotName() {
+        return "sequence";
+    }
+
+    /**
+     * The learned transition model; open sequences are short-lived and not saved
+     */
+    @Override
+    public synchronized void writeSnapshot(DataOutput out) throws IOException {
+        model.writeTo(out);
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+        TransitionModel restored = TransitionModel.readFrom(
+                in, properties.getMaxTemplates(), properties.getMaxTransitionsPerTemplate());
+        synchronized (this) {
+            model = restored;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${anomaly.sequence.evict-interval-millis:30000}")
+    public void evictExpired() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int removed;
+        synchronized (this) {
+            removed = sequences.evictExpired(clock.millis());
+        }
+        if (removed > 0) {
+            logger.debug("Expired {} idle sequences", removed);
+        }
+    }
+
+    /**
+     * Create an alert for an improbable transition
+     */
+    private Alert buildSequenceAlert(LogEvent event, String correlationId, Sequence sequence,
+                                     String template, double probability) {
+        String previous = sequence.recent.isEmpty() ? "<start>" : sequence.recent.peekLast();
+
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("correlationKey", properties.getCorrelationKey());
+        context.put("correlationId", correlationId);
+        context.put("fromTemplate", previous);
+        context.put("toTemplate", template);
+        context.put("transitionProbability", probability);
+        context.put("sequencePosition", sequence.length);
+        context.put("recentTemplates", new ArrayList<>(sequence.recent));
+
+        return Alert.builder()
+                .type("SEQUENCE_ANOMALY")
+                .severity("WARNING")
+                .message(String.format(
+                        "Unusual event sequence for %s '%s' in service '%s': '%s' followed '%s' (probability %.5f)",
+                        properties.getCorrelationKey(),
+                        correlationId,
+                        event.getService(),
+                        template,
+                        previous,
+                        probability
+                ))
+                .service(event.getService())
+                .detectedAt(clock.instant())
+                .context(context)
+                .samples(List.of(EventSample.of(event)))
+                .build();
+    }
+
+    private static final class Sequence {
+        private long lastTemplateId = TransitionModel.START;
+        private int length;
+        private boolean alerted;
+        private final ArrayDeque<String> recent = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,122 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids of the services dimension table, cached in process.
+ *
+ * log_events stores a service as an integer id instead of its name. Only the write path
+ * registers services: a service stored for the first time is inserted in its own
+ * transaction, so its id stays valid even if the event that introduced it rolls back.
+ * Lookups (queries by name, loading events) never insert, so a request for an arbitrary
+ * name does not create a row. Ids never change, so the caches need no invalidation; they
+ * are bounded LRUs and a miss falls back to the table, so a flood of service names cannot
+ * grow them.
+ */
+@Service
+public class ServiceDirectory {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Map<String, Integer> ids;
+    private final Map<Integer, String> names;
+
+    private volatile TransactionTemplate newTransaction;
+
+    // The transaction manager is looked up lazily: Hibernate creates the converter using
+    // this directory while the entity manager factory behind it is still being built
+    public ServiceDirectory(JdbcTemplate jdbcTemplate, ObjectProvider<PlatformTransactionManager> transactionManager,
+                            PersistenceProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.ids = lru(properties.getServiceCacheSize());
+        this.names = lru(properties.getServiceCacheSize());
+    }
+
+    /**
+     * Id of a service, registering it on first use (write path only)
+     */
+    public int idOf(String name) {
+        Integer id = find(name);
+        if (id != null) {
+            return id;
+        }
+        id = newTransaction().execute(status -> {
+            jdbcTemplate.update("INSERT INTO services (name) VALUES (?) ON CONFLICT DO NOTHING", name);
+            return jdbcTemplate.queryForObject("SELECT id FROM services WHERE name = ?", Integer.class, name);
+        });
+        remember(id, name);
+        return id;
+    }
+
+    /**
+     * Id of a registered service, or null if no event of it was ever stored
+     */
+    public Integer find(String name) {
+        Integer id;
+        synchronized (this) {
+            id = ids.get(name);
+        }
+        if (id != null) {
+            return id;
+        }
+        List<Integer> found = jdbcTemplate.queryForList("SELECT id FROM services WHERE name = ?", Integer.class, name);
+        if (found.isEmpty()) {
+            return null;
+        }
+        remember(found.get(0), name);
+        return found.get(0);
+    }
+
+    public String nameOf(int id) {
+        String name;
+        synchronized (this) {
+            name = names.get(id);
+        }
+        if (name != null) {
+            return name;
+        }
+        try {
+            name = jdbcTemplate.queryForObject("SELECT name FROM services WHERE id = ?", String.class, id);
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalStateException("Unknown service id " + id, e);
+        }
+        remember(id, name);
+        return name;
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = newTransaction;
+        if (template == null) {
+            template = new TransactionTemplate(transactionManager.getObject());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            newTransaction = template;
+        }
+        return template;
+    }
+
+    private synchronized void remember(int id, String name) {
+        ids.put(name, id);
+        names.put(id, name);
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SilenceDetectionProperties;
+import com.loganomaly.detector.analysis_service.detection.HierarchicalTimingWheel;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects services that stop logging entirely.
+ *
+ * Every consumed event pushes the service's deadline forward in a hierarchical timing
+ * wheel, so the cost per event and per tick is O(1) instead of a periodic scan over all
+ * known services. When a deadline passes a SERVICE_SILENT alert is raised and the service
+ * is forgotten until it logs again.
+ */
+@Service
+public class SilenceDetectorService implements DetectorStateOwner, SnapshotParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(SilenceDetectorService.class);
+
+    private final AlertService alertService;
+    private final SilenceDetectionProperties properties;
+    private final Clock clock;
+    private final HierarchicalTimingWheel<String> wheel;
+
+    public SilenceDetectorService(AlertService alertService, SilenceDetectionProperties properties, Clock clock) {
+        this.alertService = alertService;
+        this.properties = properties;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(properties.getTickMillis(), clock.millis());
+    }
+
+    /**
+     * Record that a service is alive and push its silence deadline forward
+     */
+    public void recordActivity(LogEvent event) {
+        // The shared overflow bucket is not a service that can go silent
+        if (!properties.isEnabled() || event.getService() == null
+                || DetectorStateRegistry.isOther(event.getService())) {
+            return;
+        }
+        Duration interval = properties.intervalFor(event.getService());
+        wheel.schedule(event.getService(), clock.millis() + interval.toMillis());
+    }
+
+    /**
+     * Number of services currently tracked for silence
+     */
+    public int trackedServices() {
+        return wheel.size();
+    }
+
+    @Override
+    public String stateName() {
+        return "silence";
+    }
+
+    @Override
+    public int stateEntries() {
+        return wheel.size();
+    }
+
+    @Override
+    public long estimatedStateBytes() {
+        return wheel.size() * 128L;
+    }
+
+    /**
+     * A service evicted from the registry is no longer expected to log
+     */
+    @Override
+    public void evictService(String service) {
+        wheel.cancel(service);
+    }
+
+    @Override
+    public String snapshotName() {
+        return "silence";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        Map<String, Long> deadlines = wheel.deadlines();
+        out.writeInt(deadlines.size());
+        for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    /**
+     * Deadlines are pushed back by the downtime: nothing could be observed while stopped
+     */
+    @Override
+    public void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+        long downtime = Math.max(0, clock.millis() - takenAtMillis);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(in.readUTF(), in.readLong() + downtime);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${anomaly.silence.tick-millis:1000}")
+    public void tick() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<HierarchicalTimingWheel.Expired<String>> expired = wheel.advance(clock.millis());
+        for (HierarchicalTimingWheel.Expired<String> entry : expired) {
+            try {
+                createServiceSilentAlert(entry.key(), entry.deadlineMillis());
+            } catch (Exception e) {
+                logger.error("Failed to create SERVICE_SILENT alert for {}: {}", entry.key(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Create an alert for a service that went silent
+     */
+    private void createServiceSilentAlert(String service, long deadlineMillis) {
+        Duration interval = properties.intervalFor(service);
+        Instant lastSeen = Instant.ofEpochMilli(deadlineMillis).minus(interval);
+
+        Alert alert = Alert.builder()
+                .type("SERVICE_SILENT")
+                .severity("WARNING")
+                .message(String.format(
+                        "Service '%s' went silent: no events since %s (expected at least one every %d second(s))",
+                        service,
+                        lastSeen,
+                        interval.toSeconds()
+                ))
+                .service(service)
+                .detectedAt(clock.instant())
+                .build();
+
+        alertService.raise(alert);
+    }
+}
@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A detector whose in-memory state is saved in the {@link SnapshotService} snapshots
+ */
+public interface SnapshotParticipant {
+
+    /**
+     * Section name in the snapshot file; must stay stable across releases
+     */
+    String snapshotName();
+
+    /**
+     * Write the current state. Called while event processing is paused.
+     */
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    /**
+     * Load state written by {@link #writeSnapshot}. Called once at startup, before any
+     * event is consumed.
+     *
+     * @param takenAtMillis wall-clock time the snapshot was taken
+     */
+    void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException;
+}
@@ -0,0 +1,307 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SnapshotProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic binary snapshots of the in-memory detector state, taken together with the
+ * Kafka offsets they correspond to, so a restart resumes detection where it stopped.
+ *
+ * Event processing holds a shared lock, and the snapshot takes the exclusive lock while
+ * the participants serialize, so the state and the offsets always match. The file is
+ * written to a temporary name, forced to disk and atomically renamed over the previous
+ * snapshot; a CRC32 trailer rejects torn or corrupt files. At startup, before the Kafka
+ * listener starts, the snapshot is restored and the listener seeks to the saved offsets
+ * on its first partition assignment. Events after those offsets are replayed, which is
+ * safe because log events are saved by id and alerts are upserted by fingerprint.
+ * Events buffered by the LogEventWriter (copy mode) are flushed under the exclusive lock
+ * before the offsets are captured, so a saved offset never points past an unwritten event;
+ * if they cannot be written, no snapshot is taken.
+ */
+@Service
+public class SnapshotService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final int MAGIC = 0x4C414E53;  // "LANS"
+    // 2: watermark partitions keyed by topic and partition
+    private static final int FORMAT_VERSION = 2;
+    private static final String FILE_NAME = "detector-state.snapshot";
+
+    private final SnapshotProperties properties;
+    private final ObjectProvider<SnapshotParticipant> participants;
+    private final LogEventWriter writer;
+    private final Clock clock;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Next offset to consume per partition, updated after each processed record
+    private final Map<TopicPartition, Long> offsets = new HashMap<>();
+
+    // Offsets from the restored snapshot, consumed by the first partition assignment
+    private final Map<TopicPartition, Long> restoredOffsets = new HashMap<>();
+
+    public SnapshotService(SnapshotProperties properties, ObjectProvider<SnapshotParticipant> participants,
+                           LogEventWriter writer, Clock clock) {
+        this.properties = properties;
+        this.participants = participants;
+        this.writer = writer;
+        this.clock = clock;
+    }
+
+    /**
+     * Process one record while no snapshot is being taken, then mark its offset as done
+     */
+    public void process(String topic, int partition, long offset, Runnable work) {
+        process(new TopicPartition(topic, partition), work, () -> offset + 1);
+    }
+
+    /**
+     * Process one record whose completion may not advance the partition's offset, e.g. when
+     * records complete out of order; nextOffset is evaluated after the work (-1 for none)
+     */
+    public void process(TopicPartition partition, Runnable work, LongSupplier nextOffset) {
+        lock.readLock().lock();
+        try {
+            work.run();
+            long next = nextOffset.getAsLong();
+            if (next >= 0) {
+                synchronized (offsets) {
+                    offsets.merge(partition, next, Math::max);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Offsets to seek to for newly assigned partitions; each restored offset is used once
+     */
+    public Map<TopicPartition, Long> takeRestoredOffsets(Collection<TopicPartition> assigned) {
+        Map<TopicPartition, Long> seeks = new HashMap<>();
+        synchronized (restoredOffsets) {
+            for (TopicPartition partition : assigned) {
+                Long offset = restoredOffsets.remove(partition);
+                if (offset != null) {
+                    seeks.put(partition, offset);
+                }
+            }
+        }
+        return seeks;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.isEnabled()) {
+            restore();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${anomaly.snapshot.interval-millis:60000}")
+    public void scheduledSnapshot() {
+        if (properties.isEnabled()) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Final snapshot on shutdown, after the listener has stopped
+     */
+    @PreDestroy
+    void snapshotOnShutdown() {
+        if (properties.isEnabled()) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Take a snapshot now and return its size in bytes (0 if it failed)
+     */
+    public long snapshot() {
+        long started = System.nanoTime();
+        byte[] content;
+        try {
+            content = serialize();
+        } catch (IOException e) {
+            logger.error("Failed to serialize detector snapshot: {}", e.getMessage(), e);
+            return 0;
+        } catch (DataAccessException e) {
+            logger.warn("Skipping detector snapshot, buffered log events could not be written: {}", e.getMessage());
+            return 0;
+        }
+
+        Path target = properties.getDirectory().resolve(FILE_NAME);
+        Path temp = properties.getDirectory().resolve(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(properties.getDirectory());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Failed to write detector snapshot to {}: {}", target, e.getMessage(), e);
+            return 0;
+        }
+        logger.debug("Wrote detector snapshot ({} bytes) in {} ms", content.length, (System.nanoTime() - started) / 1_000_000);
+        return content.length;
+    }
+
+    /**
+     * Load the snapshot from disk into the participants and remember its offsets
+     */
+    public void restore() {
+        Path file = properties.getDirectory().resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            logger.info("No detector snapshot at {}, starting with empty state", file);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            byte[] content = Files.readAllBytes(file);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(verifyChecksum(content)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring detector snapshot {}: unknown format", file);
+                return;
+            }
+            long takenAt = in.readLong();
+            if (Instant.ofEpochMilli(takenAt).plus(properties.getMaxAge()).isBefore(clock.instant())) {
+                logger.warn("Ignoring detector snapshot {} taken at {}: older than {}",
+                        file, Instant.ofEpochMilli(takenAt), properties.getMaxAge());
+                return;
+            }
+
+            Map<TopicPartition, Long> savedOffsets = new HashMap<>();
+            int offsetCount = in.readInt();
+            for (int i = 0; i < offsetCount; i++) {
+                savedOffsets.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+            }
+
+            Map<String, byte[]> sections = new HashMap<>();
+            int sectionCount = in.readInt();
+            for (int i = 0; i < sectionCount; i++) {
+                String name = in.readUTF();
+                byte[] section = new byte[in.readInt()];
+                in.readFully(section);
+                sections.put(name, section);
+            }
+
+            for (SnapshotParticipant participant : participants.orderedStream().toList()) {
+                byte[] section = sections.get(participant.snapshotName());
+                if (section == null) {
+                    continue;
+                }
+                try {
+                    participant.restoreSnapshot(new DataInputStream(new ByteArrayInputStream(section)), takenAt);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not restore '{}' from the detector snapshot: {}",
+                            participant.snapshotName(), e.getMessage());
+                }
+            }
+
+            synchronized (restoredOffsets) {
+                restoredOffsets.putAll(savedOffsets);
+            }
+            synchronized (offsets) {
+                offsets.putAll(savedOffsets);
+            }
+            logger.info("Restored detector snapshot taken at {} ({} sections, {} partitions) in {} ms",
+                    Instant.ofEpochMilli(takenAt), sections.size(), savedOffsets.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable detector snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(clock.millis());
+
+        List<SnapshotParticipant> all = participants.orderedStream().toList();
+        lock.writeLock().lock();
+        try {
+            // Nothing is processed while the lock is held: every recorded offset is buffered by now
+            writer.flush();
+            Map<TopicPartition, Long> currentOffsets;
+            synchronized (offsets) {
+                currentOffsets = new LinkedHashMap<>(offsets);
+            }
+            out.writeInt(currentOffsets.size());
+            for (Map.Entry<TopicPartition, Long> entry : currentOffsets.entrySet()) {
+                out.writeUTF(entry.getKey().topic());
+                out.writeInt(entry.getKey().partition());
+                out.writeLong(entry.getValue());
+            }
+
+            out.writeInt(all.size());
+            for (SnapshotParticipant participant : all) {
+                ByteArrayOutputStream section = new ByteArrayOutputStream();
+                participant.writeSnapshot(new DataOutputStream(section));
+                out.writeUTF(participant.snapshotName());
+                out.writeInt(section.size());
+                section.writeTo(out);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] verifyChecksum(byte[] content) throws IOException {
+        if (content.length < Long.BYTES) {
+            throw new IOException("truncated");
+        }
+        int bodyLength = content.length - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, bodyLength);
+        if (crc.getValue() != ByteBuffer.wrap(content, bodyLength, Long.BYTES).getLong()) {
+            throw new IOException("checksum mismatch");
+        }
+        return Arrays.copyOf(content, bodyLength);
+    }
+}
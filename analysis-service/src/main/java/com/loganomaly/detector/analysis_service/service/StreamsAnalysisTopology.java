@@ -0,0 +1,158 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.loganomaly.detector.analysis_service.config.EventTimeProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.ContextualProcessor;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.WindowStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Kafka Streams variant of the analysis pipeline (analysis.engine=streams).
+ *
+ * Events are parsed, stored and re-keyed by service, with the record timestamp set to the
+ * event time. ERROR/FATAL events are repartitioned by service and level and counted in
+ * event-time tumbling windows held in a persistent (RocksDB) window store, so the counts
+ * survive restarts through the store's changelog and the work spreads over the topic
+ * partitions across instances. A window that passes the error threshold raises a
+ * HIGH_ERROR_RATE alert through the AlertService, which upserts by fingerprint; the
+ * fingerprint is the listener engine's, so switching engines keeps the same alert rows.
+ * The window store holds only counts, so these alerts carry no sample events.
+ *
+ * Only the error-rate rule runs in this engine; the other detectors keep their state in
+ * memory and need the listener engine.
+ */
+@Component
+@ConditionalOnProperty(name = "analysis.engine", havingValue = "streams")
+public class StreamsAnalysisTopology {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamsAnalysisTopology.class);
+
+    public static final String ERROR_COUNT_STORE = "error-counts";
+
+    private static final Set<String> ERROR_LEVELS = Set.of("ERROR", "FATAL");
+    // Between service and level in the count key; levels never contain it
+    private static final char KEY_SEPARATOR = '|';
+
+    private final LogEventParser parser;
+    private final LogEventWriter logEventWriter;
+    private final AlertService alertService;
+    private final EventRollupService rollups;
+    private final Clock clock;
+    private final String topic;
+    private final int errorThreshold;
+    private final Duration window;
+    private final Duration grace;
+
+    public StreamsAnalysisTopology(LogEventParser parser,
+                                   LogEventWriter logEventWriter,
+                                   AlertService alertService,
+                                   EventRollupService rollups,
+                                   EventTimeProperties eventTime,
+                                   Clock clock,
+                                   @Value("${spring.kafka.topic.log-events}") String topic,
+                                   @Value("${anomaly.error-threshold:5}") int errorThreshold,
+                                   @Value("${anomaly.time-window-minutes:1}") int timeWindowMinutes) {
+        this.parser = parser;
+        this.logEventWriter = logEventWriter;
+        this.alertService = alertService;
+        this.rollups = rollups;
+        this.clock = clock;
+        this.topic = topic;
+        this.errorThreshold = errorThreshold;
+        this.window = Duration.ofMinutes(timeWindowMinutes);
+        this.grace = eventTime.getAllowedLateness();
+    }
+
+    public KStream<String, LogEvent> build(StreamsBuilder builder) {
+        KStream<String, LogEvent> events = builder
+                .stream(topic, Consumed.with(Serdes.String(), Serdes.String()))
+                .process(ParseProcessor::new);
+
+        events.foreach((service, event) -> {
+            logEventWriter.store(event);
+            rollups.record(event);
+        });
+
+        // Only the level crosses the repartition topic; the count needs nothing else.
+        // ERROR and FATAL bursts are separate windows, so separate alerts
+        events.filter((service, event) -> ERROR_LEVELS.contains(event.getLevel()))
+                .selectKey((service, event) -> service + KEY_SEPARATOR + event.getLevel())
+                .mapValues(LogEvent::getLevel)
+                .groupByKey(Grouped.with("errors-by-service-level", Serdes.String(), Serdes.String()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(window, grace))
+                .count(Materialized.<String, Long, WindowStore<Bytes, byte[]>>as(ERROR_COUNT_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(Serdes.Long())
+                        .withCachingDisabled())
+                .toStream()
+                // Fire once, on the event that crosses the threshold
+                .filter((key, count) -> count != null && count == errorThreshold + 1)
+                .foreach((key, count) -> alertService.raise(createAlert(key, count)));
+
+        return events;
+    }
+
+    private Alert createAlert(Windowed<String> key, long errorCount) {
+        int separator = key.key().lastIndexOf(KEY_SEPARATOR);
+        String service = key.key().substring(0, separator);
+        String level = key.key().substring(separator + 1);
+        return Alert.builder()
+                .type("HIGH_ERROR_RATE")
+                .severity("INFO")
+                .message(String.format(
+                        "High error rate detected: %d %s events from service '%s' in the %d minute(s) starting %s",
+                        errorCount,
+                        level,
+                        service,
+                        window.toMinutes(),
+                        key.window().startTime()
+                ))
+                .service(service)
+                .fingerprint(AlertService.fingerprint("HIGH_ERROR_RATE", service, level))
+                .detectedAt(clock.instant())
+                .build();
+    }
+
+    /**
+     * Parses the raw message, keys it by service and stamps it with the event time;
+     * unparseable messages are logged and dropped
+     */
+    private class ParseProcessor extends ContextualProcessor<String, String, String, LogEvent> {
+
+        @Override
+        public void process(Record<String, String> record) {
+            try {
+                LogEvent event = parser.parse(record.value(), Instant.ofEpochMilli(record.timestamp()));
+                context().forward(record
+                        .withKey(event.getService())
+                        .withValue(event)
+                        .withTimestamp(event.getTimestamp().toEpochMilli()));
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to parse log event JSON: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("Failed to process log event: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
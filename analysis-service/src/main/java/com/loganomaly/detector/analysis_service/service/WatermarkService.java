@@ -0,0 +1,113 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.EventTimeProperties;
+import com.loganomaly.detector.analysis_service.detection.WatermarkTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the event-time watermark of the consumed partitions.
+ *
+ * Partitions are keyed by topic and partition, so the retry topics, whose partition
+ * numbers repeat those of the main topic, hold the watermark back on their own. Revoked
+ * partitions are removed by the consumers. The combined watermark and its lag behind the
+ * wall clock are exported as analysis.watermark and analysis.watermark.lag.
+ */
+@Service
+public class WatermarkService implements SnapshotParticipant {
+
+    private final EventTimeProperties properties;
+    private final Clock clock;
+    private final WatermarkTracker<TopicPartition> tracker;
+
+    public WatermarkService(EventTimeProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clock = clock;
+        this.tracker = new WatermarkTracker<>(
+                properties.getMaxOutOfOrderness().toMillis(),
+                properties.getIdlePartitionTimeout().toMillis());
+        Gauge.builder("analysis.watermark", this, WatermarkService::watermarkMillis)
+                .description("Combined event-time watermark (epoch millis)")
+                .register(meterRegistry);
+        Gauge.builder("analysis.watermark.lag", this, s -> s.clock.millis() - s.watermarkMillis())
+                .description("Wall-clock time minus the event-time watermark")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Event time used for windowing: the event's timestamp, clamped against producer clock skew
+     */
+    public long eventTime(Instant timestamp) {
+        long maxAllowed = clock.millis() + properties.getMaxFutureSkew().toMillis();
+        return Math.min(timestamp.toEpochMilli(), maxAllowed);
+    }
+
+    /**
+     * Record an event from a partition and return the combined watermark
+     */
+    public long observe(TopicPartition partition, long eventTimeMillis) {
+        return tracker.observe(partition, eventTimeMillis, clock.millis());
+    }
+
+    public long currentWatermark() {
+        return tracker.currentWatermark(clock.millis());
+    }
+
+    /**
+     * Stop waiting for partitions this consumer no longer reads
+     */
+    public void removePartitions(Collection<TopicPartition> partitions) {
+        partitions.forEach(tracker::remove);
+    }
+
+    public long allowedLatenessMillis() {
+        return properties.getAllowedLateness().toMillis();
+    }
+
+    @Override
+    public String snapshotName() {
+        return "watermark";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        long watermark = tracker.currentWatermark(clock.millis());
+        Map<TopicPartition, Long> maxEventTimes = tracker.maxEventTimes();
+        out.writeLong(watermark);
+        out.writeInt(maxEventTimes.size());
+        for (Map.Entry<TopicPartition, Long> entry : maxEventTimes.entrySet()) {
+            out.writeUTF(entry.getKey().topic());
+            out.writeInt(entry.getKey().partition());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+        long watermark = in.readLong();
+        Map<TopicPartition, Long> maxEventTimes = new HashMap<>();
+        int partitions = in.readInt();
+        for (int i = 0; i < partitions; i++) {
+            maxEventTimes.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+        }
+        tracker.restore(maxEventTimes, watermark, clock.millis());
+    }
+
+    // NaN until the first event
+    private double watermarkMillis() {
+        long watermark = currentWatermark();
+        return watermark == Long.MIN_VALUE ? Double.NaN : watermark;
+    }
+}
@@ -0,0 +1,75 @@
+-- Schema as previously created by Hibernate (ddl-auto=update).
+-- IF NOT EXISTS keeps this safe on databases that Hibernate already created.
+
+CREATE TABLE IF NOT EXISTS log_events (
+    id          uuid                        NOT NULL,
+    timestamp   timestamp(6) with time zone NOT NULL,
+    level       varchar(20)                 NOT NULL,
+    message     text                        NOT NULL,
+    service     varchar(100)                NOT NULL,
+    metadata    jsonb,
+    created_at  timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS alerts (
+    id                uuid                        NOT NULL,
+    type              varchar(50)                 NOT NULL,
+    severity          varchar(20)                 NOT NULL,
+    message           text                        NOT NULL,
+    service           varchar(100)                NOT NULL,
+    detected_at       timestamp(6) with time zone NOT NULL,
+    fingerprint       varchar(16),
+    status            varchar(20)                 NOT NULL,
+    occurrence_count  integer                     NOT NULL,
+    last_seen_at      timestamp(6) with time zone,
+    resolved_at       timestamp(6) with time zone,
+    flap_count        integer                     NOT NULL,
+    acknowledged      boolean                     NOT NULL,
+    acknowledged_at   timestamp(6) with time zone,
+    acknowledged_by   varchar(100),
+    context           jsonb,
+    samples           jsonb,
+    incident_id       uuid,
+    PRIMARY KEY (id)
+);
+
+-- Databases created by the original schema have alerts without the lifecycle,
+-- context and incident columns, so CREATE TABLE IF NOT EXISTS alone leaves them out
+ALTER TABLE alerts
+    ADD COLUMN IF NOT EXISTS fingerprint      varchar(16),
+    ADD COLUMN IF NOT EXISTS status           varchar(20) NOT NULL DEFAULT 'OPEN',
+    ADD COLUMN IF NOT EXISTS occurrence_count integer     NOT NULL DEFAULT 1,
+    ADD COLUMN IF NOT EXISTS last_seen_at     timestamp(6) with time zone,
+    ADD COLUMN IF NOT EXISTS resolved_at      timestamp(6) with time zone,
+    ADD COLUMN IF NOT EXISTS flap_count       integer     NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS context          jsonb,
+    ADD COLUMN IF NOT EXISTS samples          jsonb,
+    ADD COLUMN IF NOT EXISTS incident_id      uuid;
+
+UPDATE alerts SET last_seen_at = detected_at WHERE last_seen_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_alerts_fingerprint ON alerts (fingerprint);
+
+CREATE TABLE IF NOT EXISTS incidents (
+    id              uuid                        NOT NULL,
+    status          varchar(20)                 NOT NULL,
+    severity        varchar(20)                 NOT NULL,
+    title           text                        NOT NULL,
+    services        jsonb,
+    alert_types     jsonb,
+    alert_count     integer                     NOT NULL,
+    first_alert_at  timestamp(6) with time zone NOT NULL,
+    last_alert_at   timestamp(6) with time zone NOT NULL,
+    merged_into     uuid,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS seasonal_baselines (
+    baseline_key  varchar(130)                NOT NULL,
+    service       varchar(100)                NOT NULL,
+    level         varchar(20)                 NOT NULL,
+    slots         bytea                       NOT NULL,
+    updated_at    timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (baseline_key)
+);
@@ -0,0 +1,46 @@
+-- log_events becomes a table partitioned by day on timestamp (UTC days).
+-- The primary key has to include the partition key. Rows outside every daily partition
+-- land in log_events_default; PartitionMaintenanceService creates the upcoming days
+-- and drops expired ones.
+
+ALTER TABLE log_events RENAME TO log_events_unpartitioned;
+ALTER TABLE log_events_unpartitioned RENAME CONSTRAINT log_events_pkey TO log_events_unpartitioned_pkey;
+
+CREATE TABLE log_events (
+    id          uuid                        NOT NULL,
+    timestamp   timestamp(6) with time zone NOT NULL,
+    level       varchar(20)                 NOT NULL,
+    message     text                        NOT NULL,
+    service     varchar(100)                NOT NULL,
+    metadata    jsonb,
+    created_at  timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE log_events_default PARTITION OF log_events DEFAULT;
+
+-- One partition per day of existing data, plus the next week
+DO $$
+DECLARE
+    day date;
+    last_day date := (now() AT TIME ZONE 'UTC')::date + 7;
+BEGIN
+    SELECT COALESCE(min(timestamp AT TIME ZONE 'UTC')::date, (now() AT TIME ZONE 'UTC')::date)
+    INTO day
+    FROM log_events_unpartitioned;
+
+    WHILE day <= last_day LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF log_events FOR VALUES FROM (%L) TO (%L)',
+            'log_events_p' || to_char(day, 'YYYYMMDD'),
+            day::timestamp AT TIME ZONE 'UTC',
+            (day + 1)::timestamp AT TIME ZONE 'UTC');
+        day := day + 1;
+    END LOOP;
+END $$;
+
+INSERT INTO log_events (id, timestamp, level, message, service, metadata, created_at)
+SELECT id, timestamp, level, message, service, metadata, created_at
+FROM log_events_unpartitioned;
+
+DROP TABLE log_events_unpartitioned;
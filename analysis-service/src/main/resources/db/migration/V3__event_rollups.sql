@@ -0,0 +1,30 @@
+-- Event counts per (bucket, service, level) at minute, hour and day resolution.
+-- MINUTE rows are upserted by the consumer; HOUR and DAY rows are recomputed from the
+-- finer resolution by EventRollupService, so histograms never scan log_events.
+
+CREATE TABLE event_rollups (
+    resolution  varchar(6)                  NOT NULL,
+    bucket      timestamp(6) with time zone NOT NULL,
+    service     varchar(100)                NOT NULL,
+    level       varchar(20)                 NOT NULL,
+    count       bigint                      NOT NULL,
+    PRIMARY KEY (resolution, bucket, service, level)
+);
+
+-- Backfill from the events stored so far
+INSERT INTO event_rollups (resolution, bucket, service, level, count)
+SELECT 'MINUTE', date_bin('1 minute', timestamp, TIMESTAMPTZ '1970-01-01 00:00:00+00'), service, level, count(*)
+FROM log_events
+GROUP BY 2, 3, 4;
+
+INSERT INTO event_rollups (resolution, bucket, service, level, count)
+SELECT 'HOUR', date_bin('1 hour', bucket, TIMESTAMPTZ '1970-01-01 00:00:00+00'), service, level, sum(count)
+FROM event_rollups
+WHERE resolution = 'MINUTE'
+GROUP BY 2, 3, 4;
+
+INSERT INTO event_rollups (resolution, bucket, service, level, count)
+SELECT 'DAY', date_bin('1 day', bucket, TIMESTAMPTZ '1970-01-01 00:00:00+00'), service, level, sum(count)
+FROM event_rollups
+WHERE resolution = 'HOUR'
+GROUP BY 2, 3, 4;
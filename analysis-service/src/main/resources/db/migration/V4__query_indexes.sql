@@ -0,0 +1,28 @@
+-- Indexes matched to the repository queries (see RepositoryIndexTest).
+-- Indexes on the partitioned log_events cascade to every existing and future partition.
+
+-- findByServiceAndTimestampBetween..., retention per service
+CREATE INDEX idx_log_events_service_timestamp ON log_events (service, timestamp DESC);
+-- findByLevelAndTimestampBetween..., countByLevelAndTimestampBetween, retention per level
+CREATE INDEX idx_log_events_level_timestamp ON log_events (level, timestamp DESC);
+-- findTop100ByOrderByTimestampDesc and findByTimestampBetween...: a BRIN index cannot
+-- return rows in order, so the newest-first queries keep a B-tree
+CREATE INDEX idx_log_events_timestamp ON log_events (timestamp DESC);
+-- Large range scans over the append-ordered timestamp (default retention, backfills)
+CREATE INDEX idx_log_events_timestamp_brin ON log_events USING brin (timestamp);
+
+-- findAllByOrderByDetectedAtDesc, findByDetectedAtAfter..., findBySeverity...
+CREATE INDEX idx_alerts_detected_at ON alerts (detected_at DESC);
+-- findByAcknowledgedFalse..., countByAcknowledgedFalse: only the few open rows
+CREATE INDEX idx_alerts_unacknowledged ON alerts (detected_at DESC) WHERE acknowledged = false;
+-- existsByTypeAndServiceAndDetectedAtAfter, findByType...
+CREATE INDEX idx_alerts_type_service_detected_at ON alerts (type, service, detected_at);
+-- findByService...
+CREATE INDEX idx_alerts_service_detected_at ON alerts (service, detected_at DESC);
+-- findByStatusInAndLastSeenAtBefore (auto-resolve), findByStatus..., countByStatus
+CREATE INDEX idx_alerts_status_last_seen_at ON alerts (status, last_seen_at);
+-- findByIncidentIdOrderByDetectedAtAsc, reassignIncident
+CREATE INDEX idx_alerts_incident_id ON alerts (incident_id, detected_at);
+
+-- findByStatusOrderByLastAlertAtDesc, findByStatusNot...
+CREATE INDEX idx_incidents_status_last_alert_at ON incidents (status, last_alert_at DESC);
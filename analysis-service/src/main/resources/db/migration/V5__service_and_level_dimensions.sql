@@ -0,0 +1,36 @@
+-- log_events stores the service as an id of the services dimension table and the level
+-- as a smallint code (LogLevel: TRACE 0, DEBUG 1, INFO 2, WARN 3, ERROR 4, FATAL 5)
+-- instead of repeating both strings in every row and index entry.
+
+CREATE TABLE services (
+    id    serial       PRIMARY KEY,
+    name  varchar(100) NOT NULL UNIQUE
+);
+
+INSERT INTO services (name)
+SELECT DISTINCT service FROM log_events;
+
+ALTER TABLE log_events ADD COLUMN service_id integer, ADD COLUMN level_id smallint;
+
+-- One rewrite of the existing rows for both columns
+UPDATE log_events e
+SET service_id = s.id,
+    level_id = CASE upper(e.level)
+        WHEN 'TRACE' THEN 0
+        WHEN 'DEBUG' THEN 1
+        WHEN 'WARN' THEN 3
+        WHEN 'WARNING' THEN 3
+        WHEN 'ERROR' THEN 4
+        WHEN 'FATAL' THEN 5
+        ELSE 2
+    END
+FROM services s
+WHERE s.name = e.service;
+
+ALTER TABLE log_events ALTER COLUMN service_id SET NOT NULL, ALTER COLUMN level_id SET NOT NULL;
+
+-- Drops idx_log_events_service_timestamp and idx_log_events_level_timestamp with them
+ALTER TABLE log_events DROP COLUMN service, DROP COLUMN level;
+
+CREATE INDEX idx_log_events_service_timestamp ON log_events (service_id, timestamp DESC);
+CREATE INDEX idx_log_events_level_timestamp ON log_events (level_id, timestamp DESC);
@@ -0,0 +1,19 @@
+-- Message bodies stored once, keyed by the SHA-256 of their UTF-8 bytes; log_events keeps
+-- only the hash. last_seen is the last day a body was written and drives its retention.
+CREATE TABLE log_messages (
+    hash      bytea PRIMARY KEY,
+    body      text NOT NULL,
+    last_seen date NOT NULL DEFAULT CURRENT_DATE
+);
+
+CREATE INDEX idx_log_messages_last_seen ON log_messages (last_seen);
+
+INSERT INTO log_messages (hash, body)
+SELECT sha256(convert_to(message, 'UTF8')), message FROM log_events
+ON CONFLICT (hash) DO NOTHING;
+
+-- Rewrites every row, like V5
+ALTER TABLE log_events ADD COLUMN message_hash bytea;
+UPDATE log_events SET message_hash = sha256(convert_to(message, 'UTF8'));
+ALTER TABLE log_events ALTER COLUMN message_hash SET NOT NULL;
+ALTER TABLE log_events DROP COLUMN message;
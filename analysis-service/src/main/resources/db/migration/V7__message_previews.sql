@@ -0,0 +1,15 @@
+-- Queries read a short preview of each message instead of the full body (up to 64KB);
+-- the body is read only for a single event. preview and length count characters (code points).
+ALTER TABLE log_messages ADD COLUMN preview varchar(200), ADD COLUMN length integer;
+
+UPDATE log_messages SET preview = left(body, 200), length = char_length(body);
+
+ALTER TABLE log_messages ALTER COLUMN preview SET NOT NULL, ALTER COLUMN length SET NOT NULL;
+
+-- TOAST only starts on rows above about 2KB (TOAST_TUPLE_THRESHOLD, fixed at compile time);
+-- such a row then has its body compressed with lz4 and, with the lower target, moved out of
+-- line until the row is under 512 bytes, so a preview scan does not read large bodies.
+-- Shorter bodies stay inline. Applies to rows written from now on; VACUUM FULL
+-- log_messages rewrites the others.
+ALTER TABLE log_messages ALTER COLUMN body SET COMPRESSION lz4;
+ALTER TABLE log_messages SET (toast_tuple_target = 512);
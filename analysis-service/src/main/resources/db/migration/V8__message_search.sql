@@ -0,0 +1,10 @@
+-- Message search. Bodies are indexed once in log_messages (deduplicated), not per event:
+-- a generated tsvector for word search and trigrams for substring and regex search.
+-- The 'simple' configuration keeps identifiers and stop words as they are.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE log_messages ADD COLUMN body_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', body)) STORED;
+
+CREATE INDEX idx_log_messages_body_tsv ON log_messages USING gin (body_tsv);
+CREATE INDEX idx_log_messages_body_trgm ON log_messages USING gin (body gin_trgm_ops);
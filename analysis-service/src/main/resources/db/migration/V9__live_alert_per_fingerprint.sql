@@ -0,0 +1,13 @@
+-- At most one live (not resolved) alert per fingerprint, so two consumers raising the same
+-- new alert at once cannot both insert it; AlertService inserts with ON CONFLICT against it.
+-- Older duplicates are resolved first, keeping the most recently seen row live.
+UPDATE alerts a
+SET status = 'RESOLVED', resolved_at = a.last_seen_at
+WHERE a.status <> 'RESOLVED'
+  AND a.fingerprint IS NOT NULL
+  AND EXISTS (SELECT 1 FROM alerts b
+              WHERE b.fingerprint = a.fingerprint
+                AND b.status <> 'RESOLVED'
+                AND (b.last_seen_at, b.id) > (a.last_seen_at, a.id));
+
+CREATE UNIQUE INDEX idx_alerts_live_fingerprint ON alerts (fingerprint) WHERE status <> 'RESOLVED';
@@ -5,7 +5,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
 @SpringBootTest(properties = {
-	"spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration"
+	"spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
+	"anomaly.snapshot.enabled=false",
+	"analysis.partitions.enabled=false",
+	"analysis.retention.enabled=false",
+	"analysis.rollups.enabled=false",
+	"spring.flyway.enabled=false"
 })
 @TestPropertySource(properties = {
 	"spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
@@ -0,0 +1,42 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+    @Test
+    void shouldNeverUnderestimate() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(5, 256);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("svc-" + (i % 500), 1);
+        }
+        sketch.add("db-service", 1_000);
+
+        // Then
+        assertThat(sketch.estimate("db-service")).isGreaterThanOrEqualTo(1_000L);
+        assertThat(sketch.estimate("db-service")).isLessThan(1_000L + 2 * 6_000L / 256);
+        assertThat(sketch.estimate("svc-7")).isGreaterThanOrEqualTo(10L);
+        assertThat(sketch.getTotalCount()).isEqualTo(6_000L);
+    }
+
+    @Test
+    void shouldMergeCounts() {
+        // Given
+        CountMinSketch left = new CountMinSketch(4, 128);
+        CountMinSketch right = new CountMinSketch(4, 128);
+        left.add("a", 3);
+        right.add("a", 4);
+
+        // When
+        left.merge(right);
+
+        // Then
+        assertThat(left.estimate("a")).isGreaterThanOrEqualTo(7L);
+        assertThat(left.getTotalCount()).isEqualTo(7L);
+    }
+}
@@ -0,0 +1,52 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTimeWindowsTest {
+
+    @Test
+    void shouldAssignEventsByTheirOwnTimestamp() {
+        // Given
+        EventTimeWindows<String, AtomicLong> windows = new EventTimeWindows<>(60_000, 0, AtomicLong::new);
+
+        // When
+        windows.windowFor("svc", 61_000, 0).aggregate().incrementAndGet();
+        windows.windowFor("svc", 119_999, 0).aggregate().incrementAndGet();
+        EventTimeWindows.Window<String, AtomicLong> other = windows.windowFor("svc", 120_000, 0);
+
+        // Then
+        assertThat(windows.windowFor("svc", 90_000, 0).aggregate().get()).isEqualTo(2);
+        assertThat(other.start()).isEqualTo(120_000);
+        assertThat(windows.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAcceptLateEventsWithinAllowedLateness() {
+        // Given
+        EventTimeWindows<String, AtomicLong> windows = new EventTimeWindows<>(60_000, 30_000, AtomicLong::new);
+
+        // Then - window [0, 60s) closes once the watermark reaches 90s
+        assertThat(windows.windowFor("svc", 10_000, 89_999)).isNotNull();
+        assertThat(windows.windowFor("svc", 10_000, 90_000)).isNull();
+    }
+
+    @Test
+    void shouldCloseWindowsPassedByTheWatermark() {
+        // Given
+        EventTimeWindows<String, AtomicLong> windows = new EventTimeWindows<>(60_000, 10_000, AtomicLong::new);
+        windows.windowFor("a", 5_000, 0);
+        windows.windowFor("b", 65_000, 0);
+
+        // When
+        List<EventTimeWindows.Window<String, AtomicLong>> closed = windows.closeUpTo(70_000);
+
+        // Then
+        assertThat(closed).extracting(EventTimeWindows.Window::key).containsExactly("a");
+        assertThat(windows.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    private HierarchicalTimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HierarchicalTimingWheel<>(TICK, 0);
+    }
+
+    @Test
+    void shouldExpireKeyWhenDeadlinePasses() {
+        // Given
+        wheel.schedule("svc", 5_000);
+
+        // When
+        List<HierarchicalTimingWheel.Expired<String>> early = wheel.advance(4_000);
+        List<HierarchicalTimingWheel.Expired<String>> due = wheel.advance(5_000);
+
+        // Then
+        assertThat(early).isEmpty();
+        assertThat(due).extracting(HierarchicalTimingWheel.Expired::key).containsExactly("svc");
+        assertThat(due.get(0).deadlineMillis()).isEqualTo(5_000);
+        assertThat(wheel.contains("svc")).isFalse();
+    }
+
+    @Test
+    void shouldPushDeadlineForwardWhenRescheduled() {
+        // Given
+        wheel.schedule("svc", 5_000);
+        wheel.advance(3_000);
+
+        // When
+        wheel.schedule("svc", 10_000);
+
+        // Then
+        assertThat(wheel.advance(9_000)).isEmpty();
+        assertThat(wheel.advance(10_000)).hasSize(1);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldNotExpireCancelledKey() {
+        // Given
+        wheel.schedule("svc", 2_000);
+
+        // When
+        boolean cancelled = wheel.cancel("svc");
+
+        // Then
+        assertThat(cancelled).isTrue();
+        assertThat(wheel.advance(10_000)).isEmpty();
+        assertThat(wheel.cancel("svc")).isFalse();
+    }
+
+    @Test
+    void shouldCascadeLongDeadlinesThroughHigherLevels() {
+        // Given - deadlines landing on level 1, 2 and 3 of the wheel
+        wheel.schedule("minutes", 100 * TICK);
+        wheel.schedule("hours", 5_000 * TICK);
+        wheel.schedule("days", 300_000 * TICK);
+
+        // When / Then
+        assertThat(wheel.advance(99 * TICK)).isEmpty();
+        assertThat(wheel.advance(100 * TICK)).extracting(HierarchicalTimingWheel.Expired::key).containsExactly("minutes");
+        assertThat(wheel.advance(4_999 * TICK)).isEmpty();
+        assertThat(wheel.advance(5_000 * TICK)).extracting(HierarchicalTimingWheel.Expired::key).containsExactly("hours");
+        assertThat(wheel.advance(299_999 * TICK)).isEmpty();
+        assertThat(wheel.advance(300_000 * TICK)).extracting(HierarchicalTimingWheel.Expired::key).containsExactly("days");
+    }
+
+    @Test
+    void shouldExpireEveryKeyExactlyOnceAtItsTick() {
+        // Given
+        int keys = 20_000;
+        for (int i = 0; i < keys; i++) {
+            wheel.schedule("svc-" + i, (1 + (i * 7919L) % 10_000) * TICK);
+        }
+
+        // When
+        int total = 0;
+        for (long t = 1; t <= 10_000; t++) {
+            List<HierarchicalTimingWheel.Expired<String>> expired = wheel.advance(t * TICK);
+            for (HierarchicalTimingWheel.Expired<String> entry : expired) {
+                assertThat(entry.deadlineMillis()).isEqualTo(t * TICK);
+            }
+            total += expired.size();
+        }
+
+        // Then
+        assertThat(total).isEqualTo(keys);
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HourOfWeekBaselineTest {
+
+    @Test
+    void shouldMapTimesToHourOfWeekSlots() {
+        // Given - 2026-10-19 is a Monday
+        ZonedDateTime mondayMidnight = ZonedDateTime.of(2026, 10, 19, 0, 30, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime sundayNight = ZonedDateTime.of(2026, 10, 25, 23, 59, 0, 0, ZoneOffset.UTC);
+
+        // Then
+        assertThat(HourOfWeekBaseline.slotOf(mondayMidnight)).isZero();
+        assertThat(HourOfWeekBaseline.slotOf(sundayNight)).isEqualTo(167);
+    }
+
+    @Test
+    void shouldLearnSlotsIndependently() {
+        // Given
+        HourOfWeekBaseline baseline = new HourOfWeekBaseline();
+
+        // When - busy Monday 9am, quiet Monday 3am
+        for (int i = 0; i < 300; i++) {
+            baseline.update(9, 100 + (i % 11) - 5);
+            baseline.update(3, 2 + (i % 3) - 1);
+        }
+
+        // Then
+        assertThat(baseline.median(9)).isCloseTo(100, within(3.0));
+        assertThat(baseline.median(3)).isCloseTo(2, within(1.0));
+        assertThat(baseline.threshold(3, 4.0, 5)).isLessThan(100);
+        assertThat(baseline.threshold(9, 4.0, 5)).isGreaterThan(100);
+        assertThat(baseline.samples(9)).isEqualTo(300);
+        assertThat(baseline.samples(100)).isZero();
+    }
+
+    @Test
+    void shouldResistOutliers() {
+        // Given
+        HourOfWeekBaseline baseline = new HourOfWeekBaseline();
+        for (int i = 0; i < 200; i++) {
+            baseline.update(10, 20);
+        }
+
+        // When - a short storm of huge values
+        for (int i = 0; i < 5; i++) {
+            baseline.update(10, 10_000);
+        }
+
+        // Then
+        assertThat(baseline.median(10)).isLessThan(25);
+    }
+
+    @Test
+    void shouldRoundTripThroughBytes() {
+        // Given
+        HourOfWeekBaseline baseline = new HourOfWeekBaseline();
+        for (int i = 0; i < 50; i++) {
+            baseline.update(i % HourOfWeekBaseline.SLOTS, i);
+        }
+
+        // When
+        byte[] bytes = baseline.toBytes();
+        HourOfWeekBaseline copy = HourOfWeekBaseline.fromBytes(bytes);
+
+        // Then
+        assertThat(bytes).hasSize(1 + HourOfWeekBaseline.SLOTS * 12);
+        assertThat(copy.median(42)).isEqualTo(baseline.median(42));
+        assertThat(copy.mad(42)).isEqualTo(baseline.mad(42));
+        assertThat(copy.samples(42)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void shouldCountSmallCardinalitiesAlmostExactly() {
+        // Given
+        HyperLogLog hll = new HyperLogLog(10);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            hll.add("user-" + (i % 50));
+        }
+
+        // Then
+        assertThat(hll.estimate()).isCloseTo(50L, within(2L));
+    }
+
+    @Test
+    void shouldEstimateLargeCardinalityWithinErrorBound() {
+        // Given
+        HyperLogLog hll = new HyperLogLog(12);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            hll.add("10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        // Then - standard error at p=12 is ~1.6%, allow 5%
+        assertThat(hll.estimate()).isCloseTo(200_000L, within(10_000L));
+    }
+
+    @Test
+    void shouldMergeAsUnion() {
+        // Given
+        HyperLogLog left = new HyperLogLog(10);
+        HyperLogLog right = new HyperLogLog(10);
+        for (int i = 0; i < 3_000; i++) left.add("id-" + i);
+        for (int i = 2_000; i < 5_000; i++) right.add("id-" + i);
+
+        // When
+        left.merge(right);
+
+        // Then
+        assertThat(left.estimate()).isCloseTo(5_000L, within(400L));
+    }
+}
@@ -0,0 +1,68 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalUnionFindTest {
+
+    @Test
+    void shouldLinkElementsIntoClusters() {
+        // Given
+        IncrementalUnionFind<String> clusters = new IncrementalUnionFind<>();
+        for (long id = 1; id <= 5; id++) {
+            clusters.add(id, id * 1_000);
+        }
+
+        // When
+        clusters.union(1, 2);
+        clusters.union(3, 4);
+        clusters.union(2, 4);
+
+        // Then
+        assertThat(clusters.find(1)).isEqualTo(clusters.find(3));
+        assertThat(clusters.find(5)).isNotEqualTo(clusters.find(1));
+        assertThat(clusters.clusterSize(4)).isEqualTo(4);
+        assertThat(clusters.lastActivity(1)).isEqualTo(4_000);
+        assertThat(clusters.clusters()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepValueAtRoot() {
+        // Given
+        IncrementalUnionFind<String> clusters = new IncrementalUnionFind<>();
+        clusters.add(1, 0);
+        clusters.add(2, 0);
+        clusters.setValue(1, "incident-a");
+
+        // When
+        long root = clusters.union(2, 1);
+        clusters.setValue(root, "incident-a");
+
+        // Then
+        assertThat(clusters.value(2)).isEqualTo("incident-a");
+    }
+
+    @Test
+    void shouldExpireWholeClustersOutsideWindow() {
+        // Given
+        IncrementalUnionFind<String> clusters = new IncrementalUnionFind<>();
+        clusters.add(1, 1_000);
+        clusters.add(2, 2_000);
+        clusters.add(3, 9_000);
+        clusters.union(1, 2);
+        clusters.setValue(1, "old");
+        clusters.setValue(3, "recent");
+
+        // When
+        List<String> expired = clusters.expire(5_000);
+
+        // Then
+        assertThat(expired).containsExactly("old");
+        assertThat(clusters.contains(1)).isFalse();
+        assertThat(clusters.contains(2)).isFalse();
+        assertThat(clusters.value(3)).isEqualTo("recent");
+    }
+}
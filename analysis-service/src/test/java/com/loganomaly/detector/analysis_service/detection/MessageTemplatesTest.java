@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageTemplatesTest {
+
+    @Test
+    void shouldMaskVariableParts() {
+        // When
+        String first = MessageTemplates.templateOf("Timeout after 3012ms calling 10.0.0.12:5432 for order 991");
+        String second = MessageTemplates.templateOf("Timeout after 45ms calling 10.0.3.7:5432 for order 17");
+
+        // Then
+        assertThat(first).isEqualTo("Timeout after <*>ms calling <*> for order <*>");
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void shouldMaskUuidsAndHexValues() {
+        // When
+        String template = MessageTemplates.templateOf(
+                "Request 3f2c1b9e-8d7a-4c6b-9e5f-1a2b3c4d5e6f failed at 0x7ffd1a2b");
+
+        // Then
+        assertThat(template).isEqualTo("Request <*> failed at <*>");
+    }
+}
@@ -0,0 +1,49 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetTrackerTest {
+
+    @Test
+    void shouldCommitUpToLowestRecordInFlight() {
+        // Given
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.track(offset);
+        }
+
+        // When - 11..14 finish before 10
+        tracker.complete(12);
+        tracker.complete(11);
+        long committable = tracker.complete(14);
+
+        // Then
+        assertThat(committable).isEqualTo(10);
+        assertThat(tracker.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCommitPastHighestWhenAllComplete() {
+        // Given
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(10);
+        tracker.track(11);
+        tracker.track(12);
+        tracker.complete(11);
+        tracker.complete(12);
+
+        // When
+        long committable = tracker.complete(10);
+
+        // Then
+        assertThat(committable).isEqualTo(13);
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    void shouldHaveNothingToCommitBeforeFirstRecord() {
+        assertThat(new OffsetTracker().committable()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    @Test
+    void shouldReturnQuantilesWithinRelativeAccuracy() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch(0.01);
+
+        // When
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        // Then
+        assertThat(sketch.getCount()).isEqualTo(10_000);
+        assertThat(sketch.quantile(0.5)).isCloseTo(5_000, within(5_000 * 0.011));
+        assertThat(sketch.quantile(0.99)).isCloseTo(9_900, within(9_900 * 0.011));
+        assertThat(sketch.quantile(1.0)).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldMergeLikeASingleSketch() {
+        // Given
+        QuantileSketch fast = new QuantileSketch(0.02);
+        QuantileSketch slow = new QuantileSketch(0.02);
+        for (int i = 0; i < 900; i++) fast.add(10 + i % 10);
+        for (int i = 0; i < 100; i++) slow.add(2_000 + i);
+
+        // When
+        fast.merge(slow);
+
+        // Then
+        assertThat(fast.getCount()).isEqualTo(1_000);
+        assertThat(fast.quantile(0.5)).isLessThan(25);
+        assertThat(fast.quantile(0.99)).isCloseTo(2_090, within(2_090 * 0.021));
+    }
+
+    @Test
+    void shouldRoundTripThroughBytes() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch(0.02);
+        sketch.add(0);
+        for (int i = 0; i < 500; i++) sketch.add(Math.pow(1.1, i % 80));
+
+        // When
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        // Then
+        assertThat(copy.getCount()).isEqualTo(sketch.getCount());
+        assertThat(copy.quantile(0.0)).isZero();
+        assertThat(copy.quantile(0.95)).isEqualTo(sketch.quantile(0.95));
+        assertThat(copy.getMax()).isEqualTo(sketch.getMax());
+    }
+
+    @Test
+    void shouldIgnoreNegativeValuesAndCollapseExtremeRanges() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch(0.01);
+
+        // When
+        boolean negativeAccepted = sketch.add(-5);
+        sketch.add(1e-6);
+        sketch.add(1e12);
+
+        // Then
+        assertThat(negativeAccepted).isFalse();
+        assertThat(sketch.getCount()).isEqualTo(2);
+        assertThat(sketch.quantile(1.0)).isCloseTo(1e12, within(1e12 * 0.011));
+    }
+}
@@ -0,0 +1,67 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ReservoirTest {
+
+    @Test
+    void shouldKeepAllItemsUntilFull() {
+        // Given
+        Reservoir<Integer> reservoir = new Reservoir<>(5);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            reservoir.offer(i);
+        }
+
+        // Then
+        assertThat(reservoir.sample()).containsExactly(0, 1, 2);
+        assertThat(reservoir.getSeen()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSampleUniformly() {
+        // Given
+        SplittableRandom random = new SplittableRandom(42);
+        int[] hits = new int[100];
+
+        // When - 10,000 reservoirs of 10 out of 100 items
+        for (int run = 0; run < 10_000; run++) {
+            Reservoir<Integer> reservoir = new Reservoir<>(10, random);
+            for (int i = 0; i < 100; i++) {
+                reservoir.offer(i);
+            }
+            reservoir.sample().forEach(item -> hits[item]++);
+        }
+
+        // Then - every item is kept ~10% of the time, early and late alike
+        assertThat(hits[0] / 10_000.0).isCloseTo(0.1, within(0.02));
+        assertThat(hits[50] / 10_000.0).isCloseTo(0.1, within(0.02));
+        assertThat(hits[99] / 10_000.0).isCloseTo(0.1, within(0.02));
+    }
+
+    @Test
+    void shouldOnlyMapItemsThatAreKept() {
+        // Given
+        Reservoir<String> reservoir = new Reservoir<>(2, new SplittableRandom(7));
+        AtomicInteger mapped = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            reservoir.offer(i, item -> {
+                mapped.incrementAndGet();
+                return "event-" + item;
+            });
+        }
+
+        // Then
+        assertThat(reservoir.sample()).hasSize(2);
+        assertThat(mapped.get()).isLessThan(50);
+    }
+}
@@ -0,0 +1,48 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTopKTest {
+
+    @Test
+    void shouldReturnExactCountsWhileUnderCapacity() {
+        // Given
+        SpaceSavingTopK<String> topK = new SpaceSavingTopK<>(10);
+
+        // When
+        for (int i = 0; i < 5; i++) topK.offer("a");
+        for (int i = 0; i < 3; i++) topK.offer("b");
+        topK.offer("c");
+
+        // Then
+        List<SpaceSavingTopK.Estimate<String>> top = topK.top(3);
+        assertThat(top).extracting(SpaceSavingTopK.Estimate::key).containsExactly("a", "b", "c");
+        assertThat(top).extracting(SpaceSavingTopK.Estimate::count).containsExactly(5L, 3L, 1L);
+        assertThat(top).extracting(SpaceSavingTopK.Estimate::error).containsOnly(0L);
+    }
+
+    @Test
+    void shouldKeepHeavyHittersUnderHighCardinalityNoise() {
+        // Given
+        SpaceSavingTopK<String> topK = new SpaceSavingTopK<>(20);
+
+        // When - two dominant keys interleaved with 10k unique keys
+        for (int i = 0; i < 10_000; i++) {
+            topK.offer("noise-" + i);
+            if (i % 4 == 0) topK.offer("db-service");
+            if (i % 10 == 0) topK.offer("api-gateway");
+        }
+
+        // Then
+        assertThat(topK.size()).isEqualTo(20);
+        List<SpaceSavingTopK.Estimate<String>> top = topK.top(2);
+        assertThat(top).extracting(SpaceSavingTopK.Estimate::key).containsExactly("db-service", "api-gateway");
+        SpaceSavingTopK.Estimate<String> first = top.get(0);
+        assertThat(first.count() - first.error()).isLessThanOrEqualTo(2_500L);
+        assertThat(first.count()).isGreaterThanOrEqualTo(2_500L);
+    }
+}
@@ -0,0 +1,40 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringInternerTest {
+
+    @Test
+    void shouldReturnCanonicalInstance() {
+        // Given
+        StringInterner interner = new StringInterner(10);
+        String first = new String("payment-service");
+
+        // When
+        interner.intern(first);
+        String second = interner.intern(new String("payment-service"));
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStopGrowingAtCapacity() {
+        // Given
+        StringInterner interner = new StringInterner(2);
+        interner.intern("a");
+        interner.intern("b");
+        String unseen = new String("c");
+
+        // When
+        String result = interner.intern(unseen);
+
+        // Then - returned as is, not retained
+        assertThat(result).isSameAs(unseen);
+        assertThat(interner.size()).isEqualTo(2);
+        assertThat(interner.intern(new String("a"))).isEqualTo("a");
+    }
+}
@@ -0,0 +1,103 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransitionModelTest {
+
+    @Test
+    void shouldLearnFrequentTransitions() {
+        // Given
+        TransitionModel model = new TransitionModel(100, 16);
+
+        // When - login is followed by query 99 times out of 100
+        for (int i = 0; i < 99; i++) {
+            model.learn(1L, 2L);
+        }
+        model.learn(1L, 3L);
+
+        // Then
+        assertThat(model.observations(1L)).isEqualTo(100);
+        assertThat(model.probability(1L, 2L)).isGreaterThan(0.9);
+        assertThat(model.probability(1L, 3L)).isLessThan(0.05);
+        assertThat(model.probability(1L, 4L)).isLessThan(model.probability(1L, 3L));
+    }
+
+    @Test
+    void shouldCapSuccessorsPerState() {
+        // Given
+        TransitionModel model = new TransitionModel(100, 2);
+
+        // When
+        for (long to = 10; to < 20; to++) {
+            model.learn(1L, to);
+        }
+
+        // Then - successors beyond the cap count towards the total but stay unlikely
+        assertThat(model.observations(1L)).isEqualTo(10);
+        assertThat(model.probability(1L, 10L)).isEqualTo(2.0 / 13.0);
+        assertThat(model.probability(1L, 15L)).isEqualTo(1.0 / 13.0);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedStates() {
+        // Given
+        TransitionModel model = new TransitionModel(2, 4);
+        model.learn(1L, 2L);
+        model.learn(2L, 3L);
+
+        // When
+        model.observations(1L);
+        model.learn(3L, 4L);
+
+        // Then
+        assertThat(model.size()).isEqualTo(2);
+        assertThat(model.observations(1L)).isEqualTo(1);
+        assertThat(model.observations(2L)).isZero();
+    }
+
+    @Test
+    void shouldRoundTripThroughSnapshot() throws IOException {
+        // Given
+        TransitionModel model = new TransitionModel(100, 16);
+        for (int i = 0; i < 20; i++) {
+            model.learn(TransitionModel.START, 1L);
+            model.learn(1L, i % 4 == 0 ? 3L : 2L);
+        }
+
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeTo(new DataOutputStream(bytes));
+        TransitionModel restored = TransitionModel.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 100, 16);
+
+        // Then
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.observations(1L)).isEqualTo(20);
+        assertThat(restored.probability(1L, 3L)).isEqualTo(model.probability(1L, 3L));
+    }
+
+    @Test
+    void shouldExpireIdleSequences() {
+        // Given
+        ExpiringLruMap<String, Integer> map = new ExpiringLruMap<>(10, 1_000);
+        map.put("a", 1, 0);
+        map.put("b", 2, 500);
+
+        // When
+        int removed = map.evictExpired(1_200);
+
+        // Then
+        assertThat(removed).isEqualTo(1);
+        assertThat(map.get("a", 1_200)).isNull();
+        assertThat(map.get("b", 1_200)).isEqualTo(2);
+        assertThat(map.get("b", 2_300)).isNull();
+    }
+}
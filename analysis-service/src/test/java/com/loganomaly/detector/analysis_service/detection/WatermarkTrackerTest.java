@@ -0,0 +1,49 @@
+package com.loganomaly.detector.analysis_service.detection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WatermarkTrackerTest {
+
+    @Test
+    void shouldFollowSlowestActivePartition() {
+        // Given
+        WatermarkTracker<Integer> tracker = new WatermarkTracker<>(1_000, 60_000);
+
+        // When
+        tracker.observe(1, 20_000, 0);
+        long watermark = tracker.observe(0, 50_000, 0);
+
+        // Then
+        assertThat(watermark).isEqualTo(19_000);
+        assertThat(tracker.maxEventTimes()).containsEntry(0, 50_000L).containsEntry(1, 20_000L);
+    }
+
+    @Test
+    void shouldNeverMoveBackwards() {
+        // Given
+        WatermarkTracker<Integer> tracker = new WatermarkTracker<>(0, 60_000);
+        tracker.observe(0, 50_000, 0);
+
+        // When - a new, lagging partition is assigned
+        long watermark = tracker.observe(1, 10_000, 0);
+
+        // Then
+        assertThat(watermark).isEqualTo(50_000);
+    }
+
+    @Test
+    void shouldIgnoreIdlePartitions() {
+        // Given
+        WatermarkTracker<Integer> tracker = new WatermarkTracker<>(0, 60_000);
+        tracker.observe(0, 10_000, 0);
+        tracker.observe(1, 30_000, 0);
+
+        // When - partition 0 delivers nothing for longer than the idle timeout
+        long watermark = tracker.observe(1, 90_000, 61_000);
+
+        // Then
+        assertThat(watermark).isEqualTo(90_000);
+    }
+}
@@ -0,0 +1,48 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import com.loganomaly.detector.analysis_service.service.ServiceDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConvertersTest {
+
+    @Mock
+    private ServiceDirectory services;
+
+    @Test
+    void shouldStoreLevelsAsCodes() {
+        // Given
+        LogLevelConverter converter = new LogLevelConverter();
+
+        // When / Then
+        assertThat(converter.convertToDatabaseColumn("warning")).isEqualTo(LogLevel.WARN.getCode());
+        assertThat(converter.convertToEntityAttribute(LogLevel.FATAL.getCode())).isEqualTo("FATAL");
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThatThrownBy(() -> converter.convertToDatabaseColumn("LOUD")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldLookServiceIdsUpWithoutRegistering() {
+        // Given
+        ServiceIdConverter converter = new ServiceIdConverter(services);
+        when(services.find("api")).thenReturn(7);
+        when(services.find("unknown")).thenReturn(null);
+        when(services.nameOf(7)).thenReturn("api");
+
+        // When / Then
+        assertThat(converter.convertToDatabaseColumn("api")).isEqualTo(7);
+        assertThat(converter.convertToDatabaseColumn("unknown")).isEqualTo(ServiceIdConverter.UNKNOWN_SERVICE_ID);
+        assertThat(converter.convertToEntityAttribute(7)).isEqualTo("api");
+        verify(services, never()).idOf(anyString());
+    }
+}
@@ -0,0 +1,29 @@
+package com.loganomaly.detector.analysis_service.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSampleTest {
+
+    @Test
+    void shouldTruncateLongMessagesAtCodePoints() {
+        // Given - 501 code points, 1002 chars
+        String emoji = "\uD83D\uDE00";
+        LogEvent event = LogEvent.builder()
+                .id(UUID.randomUUID())
+                .timestamp(Instant.parse("2026-10-19T12:00:00Z"))
+                .level("ERROR")
+                .message(emoji.repeat(501))
+                .build();
+
+        // When
+        EventSample sample = EventSample.of(event);
+
+        // Then - no emoji is split
+        assertThat(sample.message()).isEqualTo(emoji.repeat(500) + "...");
+    }
+}
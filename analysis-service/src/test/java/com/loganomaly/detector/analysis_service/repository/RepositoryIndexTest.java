@@ -0,0 +1,177 @@
+package com.loganomaly.detector.analysis_service.repository;
+
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.service.LogSearchService;
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fails when a repository query can no longer be answered from an index.
+ *
+ * The schema comes from the Flyway migrations on a real PostgreSQL. Every repository
+ * query is run once to capture the SQL Hibernate generates, which is then explained as a
+ * generic plan with sequential scans disabled: a plan that still contains a Seq Scan has
+ * no usable index. The message search statements are checked the same way. Skipped when
+ * Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.loganomaly.detector.analysis_service.repository.RepositoryIndexTest$RecordingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryIndexTest {
+
+    // EXPLAIN (GENERIC_PLAN) needs PostgreSQL 16, while docker-compose runs 14: this checks
+    // that a usable index exists for every query, not the exact plan 14 picks. The
+    // migrations themselves are run on 14 by SchemaMigrationTest.
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private LogEventRepository logEvents;
+
+    @Autowired
+    private AlertRepository alerts;
+
+    @Autowired
+    private IncidentRepository incidents;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldAnswerEveryRepositoryQueryFromAnIndex() {
+        // Given
+        Instant end = Instant.now();
+        Instant start = end.minus(1, ChronoUnit.HOURS);
+        UUID id = UUID.randomUUID();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("LogEventRepository.findById", () -> logEvents.findById(id));
+        queries.put("LogEventRepository.findTop100ByOrderByTimestampDesc", logEvents::findTop100ByOrderByTimestampDesc);
+        queries.put("LogEventRepository.findByTimestampBetween", () -> logEvents.findByTimestampBetweenOrderByTimestampDesc(start, end));
+        queries.put("LogEventRepository.findByServiceAndTimestampBetween",
+                () -> logEvents.findByServiceAndTimestampBetweenOrderByTimestampDesc("api", start, end));
+        queries.put("LogEventRepository.findByLevelAndTimestampBetween",
+                () -> logEvents.findByLevelAndTimestampBetweenOrderByTimestampDesc("ERROR", start, end));
+        queries.put("LogEventRepository.countByLevelAndTimestampBetween",
+                () -> logEvents.countByLevelAndTimestampBetween("ERROR", start, end));
+        queries.put("AlertRepository.findAllByOrderByDetectedAtDesc", alerts::findAllByOrderByDetectedAtDesc);
+        queries.put("AlertRepository.findByAcknowledgedFalse", alerts::findByAcknowledgedFalseOrderByDetectedAtDesc);
+        queries.put("AlertRepository.countByAcknowledgedFalse", alerts::countByAcknowledgedFalse);
+        queries.put("AlertRepository.findBySeverity", () -> alerts.findBySeverityOrderByDetectedAtDesc("CRITICAL"));
+        queries.put("AlertRepository.findByService", () -> alerts.findByServiceOrderByDetectedAtDesc("api"));
+        queries.put("AlertRepository.findByType", () -> alerts.findByTypeOrderByDetectedAtDesc("HIGH_ERROR_RATE"));
+        queries.put("AlertRepository.findByDetectedAtAfter", () -> alerts.findByDetectedAtAfterOrderByDetectedAtDesc(start));
+        queries.put("AlertRepository.existsByTypeAndServiceAndDetectedAtAfter",
+                () -> alerts.existsByTypeAndServiceAndDetectedAtAfter("HIGH_ERROR_RATE", "api", start));
+        queries.put("AlertRepository.findFirstByFingerprint", () -> alerts.findFirstByFingerprintOrderByLastSeenAtDesc("abc"));
+        queries.put("AlertRepository.findByStatusInAndLastSeenAtBefore",
+                () -> alerts.findByStatusInAndLastSeenAtBefore(List.of("OPEN", "UPDATING"), start));
+        queries.put("AlertRepository.findByStatus", () -> alerts.findByStatusOrderByDetectedAtDesc("OPEN"));
+        queries.put("AlertRepository.countByStatus", () -> alerts.countByStatus("OPEN"));
+        queries.put("AlertRepository.findByIncidentId", () -> alerts.findByIncidentIdOrderByDetectedAtAsc(id));
+        queries.put("AlertRepository.reassignIncident", () -> alerts.reassignIncident(id, UUID.randomUUID()));
+        queries.put("AlertRepository.insertIfNotLive", () -> alerts.insertIfNotLive(Alert.builder()
+                .id(id).type("HIGH_ERROR_RATE").severity("INFO").message("m").service("api")
+                .detectedAt(start).fingerprint("abc").build()));
+        queries.put("IncidentRepository.findByStatus", () -> incidents.findByStatusOrderByLastAlertAtDesc("OPEN"));
+
+        // When
+        Map<String, List<String>> plans = new LinkedHashMap<>();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET enable_seqscan = off");
+        queries.forEach((name, query) -> {
+            RecordingInspector.statements.clear();
+            query.run();
+            List<String> plan = new ArrayList<>();
+            for (String sql : RecordingInspector.statements) {
+                plan.addAll(jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+            }
+            plans.put(name, plan);
+        });
+
+        // Then
+        SoftAssertions softly = new SoftAssertions();
+        plans.forEach((name, plan) -> {
+            softly.assertThat(plan).as("plan of %s", name).isNotEmpty();
+            softly.assertThat(String.join("\n", plan)).as("plan of %s", name).doesNotContain("Seq Scan");
+        });
+        softly.assertAll();
+    }
+
+    @Test
+    void shouldAnswerMessageSearchesFromIndexes() {
+        // Given
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET enable_seqscan = off");
+
+        // When
+        Map<LogSearchService.Mode, String> plans = new LinkedHashMap<>();
+        for (LogSearchService.Mode mode : LogSearchService.Mode.values()) {
+            String sql = numberParameters(LogSearchService.sql(mode, true, true));
+            plans.put(mode, String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + sql, String.class)));
+        }
+
+        // Then
+        SoftAssertions softly = new SoftAssertions();
+        plans.forEach((mode, plan) -> softly.assertThat(plan).as("plan of %s search", mode).doesNotContain("Seq Scan"));
+        softly.assertAll();
+    }
+
+    /**
+     * JDBC placeholders to the $n parameters EXPLAIN (GENERIC_PLAN) expects
+     */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
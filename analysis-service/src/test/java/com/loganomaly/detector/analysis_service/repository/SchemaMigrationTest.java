@@ -0,0 +1,68 @@
+package com.loganomaly.detector.analysis_service.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database created by the original Hibernate schema (ddl-auto=update, before
+ * Flyway) with all migrations, as the service does on its first start after the upgrade.
+ * Runs on the PostgreSQL version of docker-compose; skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @Test
+    void shouldMigrateTheOriginalSchema() {
+        // Given - the tables and a row of each as the original entities created them
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute("""
+                CREATE TABLE log_events (id uuid NOT NULL PRIMARY KEY, timestamp timestamp(6) with time zone NOT NULL,
+                    level varchar(20) NOT NULL, message text NOT NULL, service varchar(100) NOT NULL,
+                    metadata jsonb, created_at timestamp(6) with time zone NOT NULL)""");
+        jdbcTemplate.execute("""
+                CREATE TABLE alerts (id uuid NOT NULL PRIMARY KEY, type varchar(50) NOT NULL,
+                    severity varchar(20) NOT NULL, message text NOT NULL, service varchar(100) NOT NULL,
+                    detected_at timestamp(6) with time zone NOT NULL, acknowledged boolean NOT NULL,
+                    acknowledged_at timestamp(6) with time zone, acknowledged_by varchar(100))""");
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("INSERT INTO log_events VALUES (?, ?, 'WARNING', 'Disk almost full', 'api', NULL, ?)",
+                UUID.randomUUID(), now, now);
+        jdbcTemplate.update("INSERT INTO alerts (id, type, severity, message, service, detected_at, acknowledged)"
+                + " VALUES (?, 'HIGH_ERROR_RATE', 'CRITICAL', 'errors', 'api', ?, false)", UUID.randomUUID(), now);
+
+        // When
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .table("analysis_schema_history")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT status || ':' || occurrence_count || ':' || flap_count"
+                + " FROM alerts WHERE last_seen_at = detected_at", String.class)).isEqualTo("OPEN:1:0");
+        assertThat(jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns"
+                + " WHERE table_name = 'alerts'", String.class))
+                .contains("fingerprint", "status", "occurrence_count", "last_seen_at", "resolved_at",
+                        "flap_count", "context", "samples", "incident_id");
+        assertThat(jdbcTemplate.queryForObject("SELECT s.name || ':' || e.level_id || ':' || m.body FROM log_events e"
+                + " JOIN services s ON s.id = e.service_id JOIN log_messages m ON m.hash = e.message_hash", String.class))
+                .isEqualTo("api:3:Disk almost full");
+    }
+}
@@ -0,0 +1,154 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.AlertLifecycleProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.repository.AlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private HeavyHitterService heavyHitters;
+
+    @Mock
+    private IncidentService incidents;
+
+    private AlertService alertService;
+
+    @BeforeEach
+    void setUp() {
+        AlertLifecycleProperties properties = new AlertLifecycleProperties();
+        alertService = new AlertService(alertRepository, heavyHitters, incidents, properties,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        lenient().when(heavyHitters.alertContext(anyString())).thenReturn(Map.of());
+        lenient().when(alertRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldInsertNewFingerprint() {
+        // Given
+        when(alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(anyString())).thenReturn(Optional.empty());
+        when(alertRepository.insertIfNotLive(any())).thenReturn(1);
+
+        // When
+        Alert saved = alertService.raise(alert("WARNING"));
+
+        // Then
+        assertThat(saved.getStatus()).isEqualTo("OPEN");
+        assertThat(saved.getFingerprint()).isEqualTo(AlertService.fingerprint("HIGH_ERROR_RATE", "db-service"));
+        assertThat(saved.getOccurrenceCount()).isEqualTo(1);
+        assertThat(saved.getId()).isNotNull();
+        verify(alertRepository).insertIfNotLive(saved);
+        verify(incidents).correlate(saved);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldUpdateAlertOpenedConcurrentlyInsteadOfInsertingASecondOne() {
+        // Given - another consumer inserted the same fingerprint after our lookup
+        Alert concurrent = alert("WARNING");
+        when(alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(anyString()))
+                .thenReturn(Optional.empty(), Optional.of(concurrent));
+        when(alertRepository.insertIfNotLive(any())).thenReturn(0);
+
+        // When
+        Alert saved = alertService.raise(alert("CRITICAL"));
+
+        // Then
+        assertThat(saved).isSameAs(concurrent);
+        assertThat(saved.getStatus()).isEqualTo("UPDATING");
+        assertThat(saved.getOccurrenceCount()).isEqualTo(2);
+        assertThat(saved.getSeverity()).isEqualTo("CRITICAL");
+        verifyNoInteractions(incidents);
+    }
+
+    @Test
+    void shouldUpdateOpenAlertInsteadOfInserting() {
+        // Given
+        Alert open = alert("WARNING");
+        open.setDetectedAt(NOW.minus(Duration.ofMinutes(6)));
+        open.setLastSeenAt(open.getDetectedAt());
+        when(alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(anyString())).thenReturn(Optional.of(open));
+
+        // When
+        Alert saved = alertService.raise(alert("CRITICAL"));
+
+        // Then
+        assertThat(saved).isSameAs(open);
+        assertThat(saved.getStatus()).isEqualTo("UPDATING");
+        assertThat(saved.getOccurrenceCount()).isEqualTo(2);
+        assertThat(saved.getLastSeenAt()).isEqualTo(NOW);
+        assertThat(saved.getSeverity()).isEqualTo("CRITICAL");
+        verifyNoInteractions(incidents);
+    }
+
+    @Test
+    void shouldReopenRecentlyResolvedAlertAsFlap() {
+        // Given
+        Alert resolved = alert("WARNING");
+        resolved.setStatus("RESOLVED");
+        resolved.setResolvedAt(NOW.minus(Duration.ofMinutes(5)));
+        when(alertRepository.findFirstByFingerprintOrderByLastSeenAtDesc(anyString())).thenReturn(Optional.of(resolved));
+
+        // When
+        Alert saved = alertService.raise(alert("WARNING"));
+
+        // Then
+        assertThat(saved).isSameAs(resolved);
+        assertThat(saved.getStatus()).isEqualTo("OPEN");
+        assertThat(saved.getFlapCount()).isEqualTo(1);
+        assertThat(saved.getResolvedAt()).isNull();
+    }
+
+    @Test
+    void shouldKeepFlappingAlertsOpenLonger() {
+        // Given - both quiet for 15 minutes, one of them flapping
+        Alert steady = alert("WARNING");
+        steady.setLastSeenAt(NOW.minus(Duration.ofMinutes(15)));
+        Alert flapping = alert("WARNING");
+        flapping.setLastSeenAt(NOW.minus(Duration.ofMinutes(15)));
+        flapping.setFlapCount(3);
+        when(alertRepository.findByStatusInAndLastSeenAtBefore(any(), any())).thenReturn(List.of(steady, flapping));
+
+        // When
+        alertService.resolveQuietAlerts();
+
+        // Then
+        assertThat(steady.getStatus()).isEqualTo("RESOLVED");
+        assertThat(steady.getResolvedAt()).isEqualTo(NOW);
+        assertThat(flapping.getStatus()).isEqualTo("OPEN");
+    }
+
+    private Alert alert(String severity) {
+        return Alert.builder()
+                .type("HIGH_ERROR_RATE")
+                .severity(severity)
+                .message("High error rate detected")
+                .service("db-service")
+                .detectedAt(NOW)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.EventTimeProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnomalyDetectorServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+    private static final TopicPartition PARTITION = new TopicPartition("log-events", 0);
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private SilenceDetectorService silenceDetector;
+
+    @Mock
+    private HeavyHitterService heavyHitters;
+
+    @Mock
+    private QuantileDetectorService quantileDetector;
+
+    @Mock
+    private SeasonalBaselineService seasonalBaselines;
+
+    @Mock
+    private SequenceDetectorService sequenceDetector;
+
+    @Mock
+    private DetectorStateRegistry stateRegistry;
+
+    private AnomalyDetectorService anomalyDetector;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        EventTimeProperties eventTime = new EventTimeProperties();
+        eventTime.setMaxOutOfOrderness(Duration.ZERO);
+        eventTime.setAllowedLateness(Duration.ofSeconds(30));
+
+        anomalyDetector = new AnomalyDetectorService(alertService, silenceDetector, heavyHitters,
+                quantileDetector, seasonalBaselines, sequenceDetector, new WatermarkService(eventTime, clock, new SimpleMeterRegistry()),
+                stateRegistry, clock);
+        ReflectionTestUtils.setField(anomalyDetector, "errorThreshold", 5);
+        ReflectionTestUtils.setField(anomalyDetector, "timeWindowMinutes", 1);
+        ReflectionTestUtils.setField(anomalyDetector, "cooldownMinutes", 5);
+        ReflectionTestUtils.setField(anomalyDetector, "sampleSize", 3);
+        ReflectionTestUtils.setField(anomalyDetector, "analyzedEventIds", 100);
+        ReflectionTestUtils.invokeMethod(anomalyDetector, "initWindows");
+        lenient().when(stateRegistry.admit(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldAlertOnErrorBurstInReplayedHistory() {
+        // Given - errors from yesterday, replayed at full speed
+        Instant burst = NOW.minus(Duration.ofDays(1));
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            anomalyDetector.analyze(errorEvent("db-service", burst.plusSeconds(i)), PARTITION);
+        }
+
+        // Then
+        ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+        verify(alertService).raise(alert.capture());
+        assertThat(alert.getValue().getType()).isEqualTo("HIGH_ERROR_RATE");
+        assertThat(alert.getValue().getService()).isEqualTo("db-service");
+        assertThat(alert.getValue().getFingerprint())
+                .isEqualTo(AlertService.fingerprint("HIGH_ERROR_RATE", "db-service", "ERROR"));
+        assertThat(alert.getValue().getSamples()).hasSize(3)
+                .allSatisfy(sample -> assertThat(sample.message()).isEqualTo("Connection refused"));
+    }
+
+    @Test
+    void shouldNotAlertWhenReplayedErrorsAreSpreadOverTime() {
+        // Given - one error per minute, all processed within the same wall-clock second
+        Instant start = NOW.minus(Duration.ofHours(2));
+
+        // When
+        for (int i = 0; i < 30; i++) {
+            anomalyDetector.analyze(errorEvent("db-service", start.plus(Duration.ofMinutes(i))), PARTITION);
+        }
+
+        // Then
+        verify(alertService, never()).raise(any());
+    }
+
+    @Test
+    void shouldCountErrorsPerService() {
+        // Given
+        Instant start = NOW.minusSeconds(50);
+
+        // When - 10 errors in one window, but split over two services
+        for (int i = 0; i < 5; i++) {
+            anomalyDetector.analyze(errorEvent("svc-a", start.plusSeconds(i)), PARTITION);
+            anomalyDetector.analyze(errorEvent("svc-b", start.plusSeconds(i)), PARTITION);
+        }
+
+        // Then
+        verify(alertService, never()).raise(any());
+    }
+
+    @Test
+    void shouldDropEventsBehindTheWatermark() {
+        // Given - the watermark has moved two minutes past the first window
+        Instant start = NOW.minus(Duration.ofMinutes(10));
+        anomalyDetector.analyze(errorEvent("db-service", start.plus(Duration.ofMinutes(3))), PARTITION);
+
+        // When
+        for (int i = 0; i < 6; i++) {
+            anomalyDetector.analyze(errorEvent("db-service", start.plusSeconds(i)), PARTITION);
+        }
+
+        // Then
+        verify(alertService, never()).raise(any());
+        assertThat(anomalyDetector.getLateEvents()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldAnalyzeARetriedEventOnce() {
+        // Given - five errors, then the fifth is retried after its transaction rolled back
+        Instant start = NOW.minusSeconds(50);
+        LogEvent retried = errorEvent("db-service", start.plusSeconds(5));
+        for (int i = 0; i < 4; i++) {
+            anomalyDetector.analyze(errorEvent("db-service", start.plusSeconds(i)), PARTITION);
+        }
+        anomalyDetector.analyze(retried, PARTITION);
+
+        // When
+        anomalyDetector.analyze(retried, PARTITION);
+        anomalyDetector.analyze(retried, PARTITION);
+
+        // Then - still five errors, below the threshold
+        verify(alertService, never()).raise(any());
+        verify(heavyHitters, times(5)).record(any());
+    }
+
+    private LogEvent errorEvent(String service, Instant timestamp) {
+        return LogEvent.builder()
+                .id(UUID.randomUUID())
+                .timestamp(timestamp)
+                .level("ERROR")
+                .message("Connection refused")
+                .service(service)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.CatchUpProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatchUpModeServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    private CatchUpProperties properties;
+    private CatchUpModeService catchUp;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CatchUpProperties();
+        properties.setEnterLag(Duration.ofMinutes(2));
+        properties.setExitLag(Duration.ofSeconds(15));
+        properties.setLowLevelSampleRate(0.0);
+        properties.setLagSmoothing(1.0);
+        catchUp = new CatchUpModeService(properties, Clock.fixed(NOW, ZoneOffset.UTC), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldStoreOnlyWarnAndAboveWhileBehind() {
+        // When
+        catchUp.observe(NOW.minus(Duration.ofMinutes(5)).toEpochMilli());
+
+        // Then
+        assertThat(catchUp.isActive()).isTrue();
+        assertThat(catchUp.shouldStore(event("DEBUG"))).isFalse();
+        assertThat(catchUp.shouldStore(event("INFO"))).isFalse();
+        assertThat(catchUp.shouldStore(event("WARN"))).isTrue();
+        assertThat(catchUp.shouldStore(event("ERROR"))).isTrue();
+    }
+
+    @Test
+    void shouldLeaveOnlyBelowExitLag() {
+        // Given
+        catchUp.observe(NOW.minus(Duration.ofMinutes(5)).toEpochMilli());
+
+        // When - between the exit and enter lag the mode is kept
+        catchUp.observe(NOW.minus(Duration.ofMinutes(1)).toEpochMilli());
+        boolean stillActive = catchUp.isActive();
+        catchUp.observe(NOW.minus(Duration.ofSeconds(5)).toEpochMilli());
+
+        // Then
+        assertThat(stillActive).isTrue();
+        assertThat(catchUp.isActive()).isFalse();
+        assertThat(catchUp.shouldStore(event("DEBUG"))).isTrue();
+    }
+
+    @Test
+    void shouldIgnoreSingleOldRecordWhenSmoothed() {
+        // Given
+        properties.setLagSmoothing(0.05);
+
+        // When - one replayed record among current ones
+        catchUp.observe(NOW.minus(Duration.ofMinutes(10)).toEpochMilli());
+        for (int i = 0; i < 10; i++) {
+            catchUp.observe(NOW.toEpochMilli());
+        }
+
+        // Then
+        assertThat(catchUp.isActive()).isFalse();
+    }
+
+    private static LogEvent event(String level) {
+        return LogEvent.builder().level(level).service("api").message("m").timestamp(NOW).build();
+    }
+}
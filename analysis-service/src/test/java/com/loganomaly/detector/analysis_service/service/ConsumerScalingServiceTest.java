@@ -0,0 +1,65 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.ConsumerScalingProperties;
+import com.loganomaly.detector.analysis_service.config.ParallelConsumerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsumerScalingServiceTest {
+
+    private ConsumerScalingService scaling;
+
+    @BeforeEach
+    void setUp() {
+        ConsumerScalingProperties properties = new ConsumerScalingProperties();
+        properties.setMinConcurrency(1);
+        properties.setMaxConcurrency(8);
+        properties.setMinPollRecords(100);
+        properties.setMaxPollRecords(800);
+        properties.setTargetDrainTime(Duration.ofMinutes(1));
+        properties.setScaleDownLag(1_000);
+        scaling = new ConsumerScalingService(properties, new ParallelConsumerProperties(),
+                new KafkaListenerEndpointRegistry(), new KafkaAdmin(Map.of()), new SimpleMeterRegistry(),
+                Clock.systemUTC(), "log-events", "analysis-service-group");
+    }
+
+    @Test
+    void shouldDoubleWhileLagWouldNotDrainInTime() {
+        // 100k behind at 500 records/s = 200s to drain
+        assertThat(scaling.targetConcurrency(100_000, 500, 2, 12)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldHoldWhenLagDrainsInTime() {
+        // 20k behind at 1000 records/s = 20s to drain
+        assertThat(scaling.targetConcurrency(20_000, 1_000, 2, 12)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStepDownWhenCaughtUp() {
+        assertThat(scaling.targetConcurrency(200, 1_000, 4, 12)).isEqualTo(3);
+        assertThat(scaling.targetConcurrency(0, 0, 1, 12)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotExceedPartitionCountOrBound() {
+        assertThat(scaling.targetConcurrency(1_000_000, 10, 4, 6)).isEqualTo(6);
+        assertThat(scaling.targetConcurrency(1_000_000, 10, 8, 32)).isEqualTo(8);
+    }
+
+    @Test
+    void shouldScaleBatchSizeWithConcurrency() {
+        assertThat(scaling.pollRecordsFor(1)).isEqualTo(100);
+        assertThat(scaling.pollRecordsFor(8)).isEqualTo(800);
+        assertThat(scaling.pollRecordsFor(4)).isEqualTo(400);
+    }
+}
@@ -0,0 +1,134 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    private static final TopicPartition DLT = new TopicPartition("log-events-dlt", 0);
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private ConsumerFactory<String, String> consumerFactory;
+
+    // Kept open after the replay so the committed offsets can be checked
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+        @Override
+        public synchronized void close() {
+        }
+    };
+
+    private DeadLetterService deadLetters;
+
+    @BeforeEach
+    void setUp() {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("kafkaTemplate", kafkaTemplate);
+        beans.registerSingleton("consumerFactory", consumerFactory);
+        deadLetters = new DeadLetterService(
+                cast(beans.getBeanProvider(KafkaTemplate.class)),
+                cast(beans.getBeanProvider(ConsumerFactory.class)),
+                new SimpleMeterRegistry(), "log-events", "analysis-service-group");
+        lenient().when(consumerFactory.createConsumer(anyString(), anyString(), isNull(), any())).thenReturn(consumer);
+        lenient().when(kafkaTemplate.send(anyString(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void shouldReplayUpToLimitAndCommitReplayedRecordsOnly() throws Exception {
+        // Given
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(DLT));
+            consumer.updateBeginningOffsets(Map.of(DLT, 0L));
+            consumer.updateEndOffsets(Map.of(DLT, 5L));
+            for (int i = 0; i < 5; i++) {
+                consumer.addRecord(new ConsumerRecord<>(DLT.topic(), DLT.partition(), i, "key-" + i, "event-" + i));
+            }
+        });
+
+        // When
+        int replayed = deadLetters.replay(3);
+
+        // Then
+        assertThat(replayed).isEqualTo(3);
+        verify(kafkaTemplate).send("log-events", "key-0", "event-0");
+        verify(kafkaTemplate).send("log-events", "key-2", "event-2");
+        verify(kafkaTemplate, never()).send(eq("log-events"), eq("key-3"), anyString());
+        assertThat(consumer.committed(Set.of(DLT)).get(DLT).offset()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldWaitForTheDelayedAssignmentAndStopAtTheEndOffsets() throws Exception {
+        // Given - a new group is assigned only after a few empty polls
+        consumer.schedulePollTask(() -> {
+        });
+        consumer.schedulePollTask(() -> {
+        });
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(DLT));
+            consumer.updateBeginningOffsets(Map.of(DLT, 0L));
+            consumer.updateEndOffsets(Map.of(DLT, 2L));
+            consumer.addRecord(new ConsumerRecord<>(DLT.topic(), DLT.partition(), 0, "key-0", "event-0"));
+            consumer.addRecord(new ConsumerRecord<>(DLT.topic(), DLT.partition(), 1, "key-1", "event-1"));
+        });
+
+        // When
+        int replayed = deadLetters.replay(100);
+
+        // Then
+        assertThat(replayed).isEqualTo(2);
+        assertThat(consumer.committed(Set.of(DLT)).get(DLT).offset()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReadFailureHeaders() {
+        // Given
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(DLT.topic(), 0, 7, null, "{}");
+        record.headers()
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "log-events".getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(2).array())
+                .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(1234L).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_FQCN, "org.springframework.dao.DataAccessResourceFailureException".getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "connection refused".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        DeadLetterService.Failure failure = DeadLetterService.failureOf(record);
+
+        // Then
+        assertThat(failure).isEqualTo(new DeadLetterService.Failure("log-events", 2, 1234L,
+                "org.springframework.dao.DataAccessResourceFailureException", "connection refused"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+}
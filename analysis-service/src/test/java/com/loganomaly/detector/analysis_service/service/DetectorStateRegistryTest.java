@@ -0,0 +1,152 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.StateBudgetProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.unit.DataSize;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DetectorStateRegistryTest {
+
+    @Mock
+    private ObjectProvider<DetectorStateOwner> owners;
+
+    @Mock
+    private DetectorStateOwner owner;
+
+    private StateBudgetProperties properties;
+    private DetectorStateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StateBudgetProperties();
+        properties.setMaxServices(3);
+        lenient().when(owners.orderedStream()).thenAnswer(invocation -> Stream.of(owner));
+        registry = new DetectorStateRegistry(properties, owners, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldSpillRandomServiceNamesToOther() {
+        // Given - three established services
+        for (int i = 0; i < 10; i++) {
+            registry.admit("api-gateway");
+            registry.admit("auth-service");
+            registry.admit("db-service");
+        }
+
+        // When - a client sends one event per random service name next to normal traffic
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(registry.admit("random-" + i)).isEqualTo(DetectorStateRegistry.OTHER_SERVICE);
+            registry.admit("api-gateway");
+            registry.admit("auth-service");
+            registry.admit("db-service");
+        }
+
+        // Then
+        assertThat(registry.trackedServices()).isEqualTo(3);
+        assertThat(registry.getSpilledEvents()).isEqualTo(1_000);
+        assertThat(registry.admit("db-service")).isEqualTo("db-service");
+        verify(owner, never()).evictService(anyString());
+    }
+
+    @Test
+    void shouldReplaceColdServiceWithFrequentNewcomer() {
+        // Given
+        registry.admit("old-service");
+        registry.admit("api-gateway");
+        registry.admit("auth-service");
+
+        // When - a new service keeps logging
+        String admitted = null;
+        for (int i = 0; i < 5 && !"new-service".equals(admitted); i++) {
+            admitted = registry.admit("new-service");
+        }
+
+        // Then - the least recently seen service made room
+        assertThat(admitted).isEqualTo("new-service");
+        verify(owner).evictService("old-service");
+    }
+
+    @Test
+    void shouldEvictColdestServicesOverBudget() {
+        // Given
+        properties.setMemoryBudget(DataSize.ofBytes(1_000));
+        properties.setEvictFraction(0.5);
+        registry.admit("old-service");
+        registry.admit("api-gateway");
+        when(owner.estimatedStateBytes()).thenReturn(5_000L);
+
+        // When
+        registry.enforceBudget();
+
+        // Then
+        verify(owner).evictService("old-service");
+        verify(owner, never()).evictService("api-gateway");
+        assertThat(registry.trackedServices()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRefillEvictedRoomWhileOverBudget() {
+        // Given - over budget with three services, one of them evicted
+        properties.setMemoryBudget(DataSize.ofBytes(1_000));
+        properties.setEvictFraction(0.34);
+        registry.admit("old-service");
+        registry.admit("api-gateway");
+        registry.admit("auth-service");
+        when(owner.estimatedStateBytes()).thenReturn(5_000L);
+        registry.enforceBudget();
+
+        // When - a one-off service arrives
+        String admitted = registry.admit("new-service");
+
+        // Then
+        assertThat(admitted).isEqualTo(DetectorStateRegistry.OTHER_SERVICE);
+        assertThat(registry.getAdmissionLimit()).isEqualTo(2);
+        assertThat(registry.trackedServices()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRaiseAdmissionLimitAgainWellBelowBudget() {
+        // Given
+        properties.setMemoryBudget(DataSize.ofBytes(1_000));
+        properties.setEvictFraction(0.34);
+        registry.admit("old-service");
+        registry.admit("api-gateway");
+        registry.admit("auth-service");
+        when(owner.estimatedStateBytes()).thenReturn(5_000L, 100L);
+        registry.enforceBudget();
+
+        // When
+        registry.enforceBudget();
+
+        // Then
+        assertThat(registry.getAdmissionLimit()).isEqualTo(3);
+        assertThat(registry.admit("new-service")).isEqualTo("new-service");
+    }
+
+    @Test
+    void shouldLeaveSelfBoundedStateOutOfTheBudget() {
+        // Given - the only large state belongs to a detector that evicting services cannot shrink
+        properties.setMemoryBudget(DataSize.ofBytes(1_000));
+        registry.admit("api-gateway");
+        when(owner.boundedByOwnCaps()).thenReturn(true);
+        lenient().when(owner.estimatedStateBytes()).thenReturn(5_000L);
+
+        // When
+        registry.enforceBudget();
+
+        // Then
+        verify(owner, never()).evictService(anyString());
+        assertThat(registry.trackedServices()).isEqualTo(1);
+    }
+}
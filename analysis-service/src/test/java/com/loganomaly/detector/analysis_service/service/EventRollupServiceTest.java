@@ -0,0 +1,192 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.RetentionProperties;
+import com.loganomaly.detector.analysis_service.config.RollupProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventRollupServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T10:30:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RollupProperties properties;
+    private EventRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RollupProperties();
+        service = new EventRollupService(properties, new RetentionProperties(), jdbcTemplate, new SimpleMeterRegistry(),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFlushOneUpsertPerMinuteServiceAndLevel() {
+        // Given
+        service.record(event("api", "ERROR", NOW.plusSeconds(5)));
+        service.record(event("api", "ERROR", NOW.plusSeconds(20)));
+        service.record(event("api", "INFO", NOW.plusSeconds(20)));
+        service.record(event("api", "ERROR", NOW.plusSeconds(75)));
+
+        // When
+        service.flush();
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[0] + " " + row[2] + " " + row[3]).containsExactly(
+                Timestamp.from(NOW) + " ERROR 2",
+                Timestamp.from(NOW) + " INFO 1",
+                Timestamp.from(NOW.plusSeconds(60)) + " ERROR 1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepCountsWhenFlushFails() {
+        // Given
+        service.record(event("api", "ERROR", NOW));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[]{1});
+        service.flush();
+        service.record(event("api", "ERROR", NOW));
+
+        // When
+        service.flush();
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(rows.getValue().get(0)[3]).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldCountEventsOnlyOnceTheirTransactionCommits() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.record(event("api", "ERROR", NOW));
+            service.flush();
+            verifyNoInteractions(jdbcTemplate);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRecomputeExactlyTheHoursAndDaysAFlushTouched() {
+        // Given - a current event, one two days late, and one older than the minute retention
+        service.record(event("api", "ERROR", NOW));
+        service.record(event("api", "ERROR", NOW.minus(Duration.ofDays(2))));
+        service.record(event("api", "ERROR", NOW.minus(Duration.ofDays(30))));
+        service.flush();
+
+        // When
+        service.compact();
+        service.compact();
+
+        // Then - once, hours first
+        ArgumentCaptor<List<Object[]>> buckets = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), buckets.capture());
+        assertThat(buckets.getAllValues().get(1)).extracting(row -> row[0] + " " + row[3] + " " + row[4]).containsExactly(
+                "HOUR " + Timestamp.from(Instant.parse("2024-01-13T10:00:00Z")) + " " + Timestamp.from(Instant.parse("2024-01-13T11:00:00Z")),
+                "HOUR " + Timestamp.from(Instant.parse("2024-01-15T10:00:00Z")) + " " + Timestamp.from(Instant.parse("2024-01-15T11:00:00Z")));
+        assertThat(buckets.getAllValues().get(2)).extracting(row -> row[0] + " " + row[3]).containsExactly(
+                "DAY " + Timestamp.from(Instant.parse("2024-01-13T00:00:00Z")),
+                "DAY " + Timestamp.from(Instant.parse("2024-01-15T00:00:00Z")));
+    }
+
+    @Test
+    void shouldKeepTouchedHoursWhenCompactionFails() {
+        // Given
+        service.record(event("api", "ERROR", NOW));
+        service.flush();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[]{1});
+        service.compact();
+
+        // When
+        service.compact();
+
+        // Then - the upsert, the failed hour, then the hour and day again
+        verify(jdbcTemplate, times(4)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void shouldPickCoarsestResolutionThatTilesTheStep() {
+        assertThat(EventRollupService.resolutionFor(Duration.ofMinutes(5))).isEqualTo(EventRollupService.Resolution.MINUTE);
+        assertThat(EventRollupService.resolutionFor(Duration.ofHours(6))).isEqualTo(EventRollupService.Resolution.HOUR);
+        assertThat(EventRollupService.resolutionFor(Duration.ofDays(1))).isEqualTo(EventRollupService.Resolution.DAY);
+        assertThat(EventRollupService.resolutionFor(Duration.ofMinutes(90))).isEqualTo(EventRollupService.Resolution.MINUTE);
+        assertThatThrownBy(() -> EventRollupService.resolutionFor(Duration.ofSeconds(30)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldZeroFillMissingBuckets() {
+        // Given
+        Instant start = Instant.parse("2024-01-15T00:00:00Z");
+        Map<Instant, Long> counts = Map.of(start.plus(Duration.ofHours(1)), 7L);
+
+        // When
+        List<EventRollupService.Bucket> buckets =
+                EventRollupService.fill(counts, start, start.plus(Duration.ofHours(3)), Duration.ofHours(1));
+
+        // Then
+        assertThat(buckets).extracting(EventRollupService.Bucket::count).containsExactly(0L, 7L, 0L);
+    }
+
+    @Test
+    void shouldRejectHistogramsAboveTheBucketLimit() {
+        properties.setMaxBuckets(100);
+
+        assertThatThrownBy(() -> service.histogram(null, null, NOW.minus(Duration.ofDays(1)), NOW, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1440 buckets");
+    }
+
+    private static LogEvent event(String service, String level, Instant timestamp) {
+        return LogEvent.builder().service(service).level(level).message("m").timestamp(timestamp).build();
+    }
+}
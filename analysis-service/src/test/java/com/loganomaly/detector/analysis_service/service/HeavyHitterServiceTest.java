@@ -0,0 +1,74 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SketchProperties;
+import com.loganomaly.detector.analysis_service.detection.MessageTemplates;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHitterServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:30Z");
+
+    private HeavyHitterService heavyHitters;
+
+    @BeforeEach
+    void setUp() {
+        SketchProperties properties = new SketchProperties();
+        properties.setTopKCapacity(2);
+        heavyHitters = new HeavyHitterService(properties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldKeepQuietServiceTemplatesWhenNoisyServicesFillTheGlobalTopK() {
+        // Given - one error from a quiet service, then two services with many errors each
+        heavyHitters.record(event("billing", "Invoice export failed"));
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.record(event("api", "Upstream timeout"));
+            heavyHitters.record(event("db", "Connection refused"));
+        }
+
+        // When
+        List<String> templates = heavyHitters.topTemplates(5, "billing", false).stream()
+                .map(estimate -> estimate.key().template())
+                .toList();
+        Map<String, Object> context = heavyHitters.alertContext("billing");
+
+        // Then
+        assertThat(heavyHitters.topTemplates(5, null, false))
+                .noneMatch(estimate -> estimate.key().service().equals("billing"));
+        assertThat(templates).containsExactly(MessageTemplates.templateOf("Invoice export failed"));
+        assertThat((List<?>) context.get("topTemplates")).hasSize(1);
+    }
+
+    @Test
+    void shouldReleasePerServiceStateOnEviction() {
+        // Given
+        heavyHitters.record(event("billing", "Invoice export failed"));
+        long withService = heavyHitters.estimatedStateBytes();
+
+        // When
+        heavyHitters.evictService("billing");
+
+        // Then - only the fixed-size global sketches remain
+        assertThat(heavyHitters.stateEntries()).isZero();
+        assertThat(heavyHitters.estimatedStateBytes()).isLessThan(withService);
+    }
+
+    private static LogEvent event(String service, String message) {
+        return LogEvent.builder()
+                .service(service)
+                .level("ERROR")
+                .message(message)
+                .timestamp(NOW)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.IncidentProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.Incident;
+import com.loganomaly.detector.analysis_service.repository.AlertRepository;
+import com.loganomaly.detector.analysis_service.repository.IncidentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncidentServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private IncidentRepository incidentRepository;
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Clock clock;
+
+    private final Map<UUID, Incident> incidents = new HashMap<>();
+    private IncidentService incidentService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(incidentRepository.save(any())).thenAnswer(invocation -> {
+            Incident incident = invocation.getArgument(0);
+            if (incident.getId() == null) {
+                incident.setId(UUID.randomUUID());
+            }
+            incidents.put(incident.getId(), incident);
+            return incident;
+        });
+        lenient().when(incidentRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(incidents.get(invocation.<UUID>getArgument(0))));
+        lenient().when(incidentRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<UUID> ids = invocation.getArgument(0);
+            List<Incident> found = new ArrayList<>();
+            ids.forEach(id -> found.add(incidents.get(id)));
+            return found;
+        });
+        IncidentProperties properties = new IncidentProperties();
+        properties.setWindow(Duration.ofMinutes(10));
+        incidentService = new IncidentService(properties, incidentRepository, alertRepository, jdbcTemplate, clock);
+    }
+
+    @Test
+    void shouldMergeIncidentsWhenAnAlertBridgesTwoClusters() {
+        // Given - two unrelated alerts, each with its own incident
+        Alert database = alert("db-service", null, NOW);
+        Alert gateway = alert("api-gateway", "Connection refused", NOW.plusSeconds(60));
+        incidentService.correlate(database);
+        incidentService.correlate(gateway);
+        assertThat(gateway.getIncidentId()).isNotEqualTo(database.getIncidentId());
+
+        // When - an alert shares the service of the first and the template of the second
+        Alert bridge = alert("db-service", "Connection refused", NOW.plusSeconds(120));
+        incidentService.correlate(bridge);
+
+        // Then - the older incident absorbs the newer one
+        Incident survivor = incidents.get(database.getIncidentId());
+        Incident absorbed = incidents.get(gateway.getIncidentId());
+        assertThat(bridge.getIncidentId()).isEqualTo(survivor.getId());
+        assertThat(survivor.getAlertCount()).isEqualTo(3);
+        assertThat(survivor.getServices()).containsExactlyInAnyOrder("db-service", "api-gateway");
+        assertThat(absorbed.getStatus()).isEqualTo("MERGED");
+        assertThat(absorbed.getMergedInto()).isEqualTo(survivor.getId());
+        verify(alertRepository).reassignIncident(absorbed.getId(), survivor.getId());
+        verify(jdbcTemplate, times(3)).queryForList(eq("SELECT pg_advisory_xact_lock(?)"), anyLong());
+    }
+
+    @Test
+    void shouldCloseIncidentsWithoutAlertsInTheWindowAndStartANewOne() {
+        // Given
+        Alert first = alert("db-service", null, NOW);
+        incidentService.correlate(first);
+
+        // When - the window passes without a related alert
+        when(clock.millis()).thenReturn(NOW.plus(Duration.ofMinutes(11)).toEpochMilli());
+        incidentService.closeInactive();
+        Alert later = alert("db-service", null, NOW.plus(Duration.ofMinutes(12)));
+        incidentService.correlate(later);
+
+        // Then
+        assertThat(incidents.get(first.getIncidentId()).getStatus()).isEqualTo("CLOSED");
+        assertThat(later.getIncidentId()).isNotEqualTo(first.getIncidentId());
+        assertThat(incidents.get(later.getIncidentId()).getStatus()).isEqualTo("OPEN");
+    }
+
+    private static Alert alert(String service, String template, Instant detectedAt) {
+        return Alert.builder()
+                .type("HIGH_ERROR_RATE")
+                .severity("WARNING")
+                .message("High error rate detected")
+                .service(service)
+                .detectedAt(detectedAt)
+                .context(template == null ? null : Map.of("topTemplates", List.of(Map.of("template", template, "count", 3))))
+                .build();
+    }
+}
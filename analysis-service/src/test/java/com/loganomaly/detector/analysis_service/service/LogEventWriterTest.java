@@ -0,0 +1,176 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import com.loganomaly.detector.analysis_service.repository.LogEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LogEventWriterTest {
+
+    @Mock
+    private LogEventRepository logEventRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ServiceDirectory services;
+
+    @Mock
+    private MessageStore messages;
+
+    @Test
+    void shouldSaveEachEventInJpaMode() {
+        // Given
+        LogEventWriter writer = writer("jpa", "record");
+        LogEvent event = event();
+
+        // When
+        writer.store(event);
+
+        // Then
+        verify(messages).store(List.of(event));
+        verify(logEventRepository).save(event);
+    }
+
+    @Test
+    void shouldBufferEventsInCopyMode() {
+        // Given
+        LogEventWriter writer = writer("copy", "parallel");
+
+        // When
+        writer.store(event());
+
+        // Then - written by the next flush, not by the repository
+        verifyNoInteractions(logEventRepository, messages, transactionTemplate);
+    }
+
+    @Test
+    void shouldRejectCopyModeWithRecordListener() {
+        assertThatThrownBy(() -> writer("copy", "record"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("analysis.consumer.mode=parallel");
+    }
+
+    @Test
+    void shouldRejectCopyModeWithStreamsEngine() {
+        assertThatThrownBy(() -> writer("copy", "parallel", "streams"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("analysis.engine=listener");
+    }
+
+    @Test
+    void shouldResolveServiceIdsBeforeCopying() {
+        // Given
+        LogEventWriter writer = writer("copy", "parallel");
+        writer.store(event());
+        writer.store(event());
+
+        // When
+        writer.flush();
+
+        // Then - once per service, and outside the transaction that runs the COPY
+        InOrder inOrder = inOrder(services, transactionTemplate);
+        inOrder.verify(services, times(1)).idOf("api");
+        inOrder.verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void shouldEncodeBinaryCopyFormat() throws Exception {
+        // Given
+        LogEvent event = event();
+        event.setMessageHash(MessageStore.hash(event.getMessage()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // When
+        writer("copy", "parallel").encode(List.of(event), Map.of("api", 42), new DataOutputStream(bytes));
+
+        // Then
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        byte[] signature = new byte[11];
+        buffer.get(signature);
+        assertThat(signature).isEqualTo(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getInt()).isZero();
+        assertThat(buffer.getShort()).isEqualTo((short) 7);
+        assertThat(buffer.getInt()).isEqualTo(16);
+        assertThat(new UUID(buffer.getLong(), buffer.getLong())).isEqualTo(event.getId());
+        assertThat(buffer.getInt()).isEqualTo(8);
+        // One day after the PostgreSQL epoch, in microseconds
+        assertThat(buffer.getLong()).isEqualTo(86_400_000_000L);
+        assertThat(buffer.getInt()).isEqualTo(2);
+        assertThat(buffer.getShort()).isEqualTo(LogLevel.ERROR.getCode());
+        byte[] hash = new byte[buffer.getInt()];
+        buffer.get(hash);
+        assertThat(hash).hasSize(32).isEqualTo(MessageStore.hash("Connection refused"));
+        assertThat(buffer.getInt()).isEqualTo(4);
+        assertThat(buffer.getInt()).isEqualTo(42);
+        int jsonbLength = buffer.getInt();
+        assertThat(buffer.get()).isEqualTo((byte) 1);
+        byte[] json = new byte[jsonbLength - 1];
+        buffer.get(json);
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo("{\"host\":\"a\"}");
+        assertThat(buffer.getInt()).isEqualTo(8);
+        buffer.getLong();
+        assertThat(buffer.getShort()).isEqualTo((short) -1);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    private LogEventWriter writer(String mode, String consumerMode) {
+        return writer(mode, consumerMode, "listener");
+    }
+
+    private LogEventWriter writer(String mode, String consumerMode, String engine) {
+        PersistenceProperties properties = new PersistenceProperties();
+        properties.setMode(mode);
+        return new LogEventWriter(properties, logEventRepository, services, messages, jdbcTemplate, transactionTemplate,
+                new ObjectMapper(), new SimpleMeterRegistry(), engine, consumerMode);
+    }
+
+    private static LogEvent event() {
+        return LogEvent.builder()
+                .id(UUID.randomUUID())
+                .timestamp(Instant.parse("2000-01-02T00:00:00Z"))
+                .level("ERROR")
+                .message("Connection refused")
+                .service("api")
+                .metadata(Map.of("host", "a"))
+                .build();
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.SearchProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LogSearchServiceTest {
+
+    private static final Instant TO = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LogSearchService search;
+
+    @BeforeEach
+    void setUp() {
+        search = new LogSearchService(jdbcTemplate, transactionManager, new SearchProperties(), new ObjectMapper());
+    }
+
+    @Test
+    void shouldRoundTripKeysetCursor() {
+        // Given
+        LogSearchService.Position position =
+                new LogSearchService.Position(Instant.parse("2026-10-19T11:59:59.123456Z"), UUID.randomUUID());
+
+        // When
+        LogSearchService.Position decoded = LogSearchService.Position.decode(position.encode());
+
+        // Then
+        assertThat(decoded).isEqualTo(position);
+    }
+
+    @Test
+    void shouldRejectSearchesThatCannotUseTheIndexes() {
+        assertThatThrownBy(() -> search.search("api", TO.minus(Duration.ofDays(8)), TO, null,
+                LogSearchService.Mode.TEXT, "refused", null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Time range");
+        assertThatThrownBy(() -> search.search("api", TO.minusSeconds(60), TO, null,
+                LogSearchService.Mode.CONTAINS, "ab", null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least 3");
+        assertThatThrownBy(() -> search.search("api", TO.minusSeconds(60), TO, null,
+                LogSearchService.Mode.TEXT, "refused", "not a cursor", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cursor");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldBuildKeysetQueryNewestFirst() {
+        // When
+        String sql = LogSearchService.sql(LogSearchService.Mode.CONTAINS, true, true);
+
+        // Then
+        assertThat(sql)
+                .contains("m.body ILIKE ?")
+                .contains("e.level_id = ?")
+                .contains("AND e.timestamp <= ? AND (e.timestamp < ? OR e.id < ?)")
+                .endsWith("ORDER BY e.timestamp DESC, e.id DESC LIMIT ?");
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(9);
+        assertThat(LogSearchService.escapeLike("100%_done\\")).isEqualTo("100\\%\\_done\\\\");
+    }
+}
@@ -0,0 +1,129 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Clock clock;
+
+    private MessageStore store;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.instant()).thenReturn(NOW);
+        store = new MessageStore(jdbcTemplate, new PersistenceProperties(), clock, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWriteEachDistinctBodyOnceAndHashEveryEvent() {
+        // Given
+        List<LogEvent> events = List.of(event("Connection refused"), event("Connection refused"), event("Timeout"));
+
+        // When
+        store.store(events);
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).extracting(row -> row[1]).containsExactlyInAnyOrder("Connection refused", "Timeout");
+        assertThat(events).allSatisfy(event -> assertThat(event.getMessageHash()).isEqualTo(MessageStore.hash(event.getMessage())));
+    }
+
+    @Test
+    void shouldSkipBodiesAlreadyWrittenToday() {
+        // Given
+        store.store(List.of(event("Connection refused")));
+
+        // When
+        store.store(List.of(event("Connection refused")));
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void shouldRewriteBodyOnANewDaySoItsRetentionMovesForward() {
+        // Given
+        store.store(List.of(event("Connection refused")));
+        when(clock.instant()).thenReturn(NOW.plusSeconds(86_400));
+
+        // When
+        store.store(List.of(event("Connection refused")));
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void shouldCutPreviewWithoutSplittingASurrogatePair() {
+        // Given
+        String prefix = "a".repeat(LogEvent.PREVIEW_LENGTH - 1);
+
+        // When
+        String preview = MessageStore.preview(prefix + "\uD83D\uDE00 and more");
+
+        // Then - the emoji is the 200th code point and is kept whole
+        assertThat(preview).isEqualTo(prefix + "\uD83D\uDE00");
+        assertThat(MessageStore.preview("short")).isEqualTo("short");
+    }
+
+    @Test
+    void shouldCutPreviewAtCodePoints() {
+        // Given - 201 code points, 402 chars
+        String emoji = "\uD83D\uDE00";
+        String body = emoji.repeat(LogEvent.PREVIEW_LENGTH + 1);
+
+        // When
+        String preview = MessageStore.preview(body);
+
+        // Then
+        assertThat(preview).isEqualTo(emoji.repeat(LogEvent.PREVIEW_LENGTH));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStoreNonBmpMessageWithinThePreviewWhole() {
+        // Given - 150 code points, 300 chars
+        String body = "\uD83D\uDE00".repeat(150);
+
+        // When
+        store.store(List.of(event(body)));
+
+        // Then - the full body is the preview and its length does not mark it truncated
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        Object[] row = rows.getValue().get(0);
+        assertThat(row[2]).isEqualTo(body);
+        assertThat((int) row[3]).isEqualTo(150).isLessThanOrEqualTo(LogEvent.PREVIEW_LENGTH);
+    }
+
+    private static LogEvent event(String message) {
+        return LogEvent.builder().message(message).build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.ParallelConsumerProperties;
+import com.loganomaly.detector.analysis_service.config.RetryProperties;
+import com.loganomaly.detector.analysis_service.config.SnapshotProperties;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelLogConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("log-events", 0);
+
+    @Mock
+    private LogAnalysisService logAnalysisService;
+
+    @Mock
+    private DeadLetterService deadLetters;
+
+    @Mock
+    private LogEventWriter writer;
+
+    @Mock
+    private WatermarkService watermarks;
+
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+    private ParallelLogConsumer parallelConsumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer.assign(List.of(PARTITION));
+        SnapshotService snapshots = new SnapshotService(new SnapshotProperties(),
+                new StaticListableBeanFactory().getBeanProvider(SnapshotParticipant.class), writer, Clock.systemUTC());
+        ParallelConsumerProperties properties = new ParallelConsumerProperties();
+        properties.setMaxConcurrencyPerPartition(4);
+        properties.setPoolSize(4);
+        RetryProperties retry = new RetryProperties();
+        retry.setDelayMillis(10);
+        parallelConsumer = new ParallelLogConsumer(logAnalysisService,
+                new LogEventParser(new ObjectMapper()), snapshots, properties, retry, deadLetters, writer, watermarks);
+
+        lenient().doAnswer(invocation -> {
+            LogEvent event = invocation.getArgument(0);
+            processed.computeIfAbsent(event.getService(), s -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Integer.parseInt(event.getMessage()));
+            return null;
+        }).when(logAnalysisService).processEvent(any(), any(), anyLong());
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelConsumer.shutdown();
+    }
+
+    @Test
+    void shouldKeepPerServiceOrderAndCommitAfterDrain() {
+        // Given
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            records.add(record(i, "service-" + (i % 5), String.valueOf(i)));
+        }
+
+        // When
+        parallelConsumer.consumeBatch(records, consumer);
+        parallelConsumer.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Then
+        assertThat(processed).hasSize(5);
+        processed.values().forEach(sequence -> assertThat(sequence).isSorted().hasSize(60));
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.of(PARTITION));
+        assertThat(committed.get(PARTITION).offset()).isEqualTo(300);
+    }
+
+    @Test
+    void shouldNotCommitWhileBufferedEventsCannotBeWritten() {
+        // Given
+        doThrow(new DataAccessResourceFailureException("down")).when(writer).flush();
+        List<ConsumerRecord<String, String>> records = List.of(record(0, "a", "0"), record(1, "a", "1"));
+
+        // When
+        parallelConsumer.consumeBatch(records, consumer);
+        parallelConsumer.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Then - processed, but left for the next owner to redeliver
+        assertThat(processed.get("a")).containsExactly(0, 1);
+        verify(writer, atLeastOnce()).flush();
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION)).isNull();
+    }
+
+    @Test
+    void shouldDeadLetterUnparseableRecordWithoutBlockingCommits() {
+        // Given
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, "a", "0"),
+                new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 1, null, "not json"),
+                record(2, "a", "2"));
+
+        // When
+        parallelConsumer.consumeBatch(records, consumer);
+        parallelConsumer.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Then
+        assertThat(processed.get("a")).containsExactly(0, 2);
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION).offset()).isEqualTo(3);
+        verify(deadLetters).publish(argThat(record -> record.offset() == 1), any(MessageConversionException.class));
+    }
+
+    @Test
+    void shouldRetryInLaneThenDeadLetter() {
+        // Given - "a" fails twice then succeeds, "b" always fails
+        AtomicInteger failuresOfA = new AtomicInteger();
+        doAnswer(invocation -> {
+            LogEvent event = invocation.getArgument(0);
+            if (event.getService().equals("b") || failuresOfA.getAndIncrement() < 2) {
+                throw new IllegalStateException("database unavailable");
+            }
+            processed.computeIfAbsent(event.getService(), s -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Integer.parseInt(event.getMessage()));
+            return null;
+        }).when(logAnalysisService).processEvent(any(), any(), anyLong());
+
+        // When
+        parallelConsumer.consumeBatch(List.of(record(0, "a", "0"), record(1, "b", "1")), consumer);
+        parallelConsumer.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Then
+        assertThat(processed.get("a")).containsExactly(0);
+        verify(deadLetters).publish(argThat(record -> record.offset() == 1), any(IllegalStateException.class));
+        verify(logAnalysisService, times(7)).processEvent(any(), any(), anyLong());
+        assertThat(consumer.committed(Set.of(PARTITION)).get(PARTITION).offset()).isEqualTo(2);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String service, String message) {
+        String value = String.format(
+                "{\"id\":\"%s\",\"event\":{\"timestamp\":\"%s\",\"level\":\"INFO\",\"message\":\"%s\",\"service\":\"%s\"}}",
+                UUID.randomUUID(), Instant.parse("2026-10-19T12:00:00Z"), message, service);
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, null, value);
+    }
+}
@@ -0,0 +1,40 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionMaintenanceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 15);
+
+    @Test
+    void shouldParseDayFromPartitionName() {
+        assertThat(PartitionMaintenanceService.dayOf("log_events_p20240115")).isEqualTo(TODAY);
+        assertThat(PartitionMaintenanceService.dayOf("log_events_default")).isNull();
+        assertThat(PartitionMaintenanceService.dayOf("log_events_pxyz")).isNull();
+    }
+
+    @Test
+    void shouldCreateOnlyMissingUpcomingDays() {
+        // Given
+        Set<LocalDate> existing = Set.of(TODAY, TODAY.plusDays(1));
+
+        // When / Then
+        assertThat(PartitionMaintenanceService.missingDays(existing, TODAY, 3))
+                .containsExactly(TODAY.plusDays(2), TODAY.plusDays(3));
+    }
+
+    @Test
+    void shouldExpireOnlyDaysBeforeTheRetention() {
+        // Given
+        Set<LocalDate> existing = Set.of(TODAY.minusDays(31), TODAY.minusDays(30), TODAY);
+
+        // When / Then
+        assertThat(PartitionMaintenanceService.expiredDays(existing, TODAY, 30))
+                .containsExactly(TODAY.minusDays(31));
+    }
+}
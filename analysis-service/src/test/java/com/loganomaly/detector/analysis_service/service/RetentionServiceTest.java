@@ -0,0 +1,148 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.RetentionProperties;
+import com.loganomaly.detector.analysis_service.entity.LogLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetentionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T03:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private RetentionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:retention-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE services (id serial PRIMARY KEY, name varchar(100) UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE log_events (id uuid, timestamp timestamp with time zone,"
+                + " level_id smallint, service_id int, PRIMARY KEY (id, timestamp))");
+        jdbcTemplate.execute("CREATE TABLE alerts (id uuid PRIMARY KEY, status varchar(20),"
+                + " resolved_at timestamp with time zone)");
+        jdbcTemplate.execute("CREATE TABLE event_rollups (resolution varchar(6), bucket timestamp with time zone,"
+                + " service varchar(100), level varchar(20), count bigint, PRIMARY KEY (resolution, bucket, service, level))");
+        jdbcTemplate.execute("CREATE TABLE log_messages (hash varbinary(32) PRIMARY KEY, body text, last_seen date)");
+
+        properties = new RetentionProperties();
+        properties.setEvents(Duration.ofDays(30));
+        properties.getLevels().put("DEBUG", Duration.ofDays(1));
+        properties.getLevels().put("ERROR", Duration.ofDays(90));
+        properties.getServices().put("batch-jobs", Duration.ofDays(3));
+        properties.setChunkSize(2);
+        properties.setChunkPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RetentionService(properties, jdbcTemplate, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldApplyLevelServiceAndDefaultRetention() {
+        // Given
+        insertEvent("api", "DEBUG", Duration.ofDays(2));    // expired (DEBUG 1d)
+        insertEvent("api", "DEBUG", Duration.ofHours(12));  // kept
+        insertEvent("api", "INFO", Duration.ofDays(31));    // expired (default 30d)
+        insertEvent("api", "INFO", Duration.ofDays(20));    // kept
+        insertEvent("api", "ERROR", Duration.ofDays(60));   // kept (ERROR 90d)
+        insertEvent("batch-jobs", "ERROR", Duration.ofDays(4)); // expired (service 3d wins)
+
+        // When
+        service.enforce();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_events", Long.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_events"
+                + " WHERE service_id = (SELECT id FROM services WHERE name = 'batch-jobs')", Long.class)).isZero();
+        assertThat(meterRegistry.get("analysis.retention.rows.deleted").tag("rule", "level:DEBUG").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldDeleteInChunksUpToTheRunBudget() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            insertEvent("api", "DEBUG", Duration.ofDays(2).plusMinutes(i));
+        }
+        properties.setMaxRowsPerRun(3);
+
+        // When
+        service.enforce();
+
+        // Then - the oldest go first, the rest waits for the next run
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_events", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM log_events", Timestamp.class).toInstant())
+                .isEqualTo(NOW.minus(Duration.ofDays(2).plusMinutes(1)));
+    }
+
+    @Test
+    void shouldDeleteOnlyResolvedAlertsPastTheirRetention() {
+        // Given
+        jdbcTemplate.update("INSERT INTO alerts VALUES (?, 'RESOLVED', ?)", UUID.randomUUID(), Timestamp.from(NOW.minus(Duration.ofDays(91))));
+        jdbcTemplate.update("INSERT INTO alerts VALUES (?, 'RESOLVED', ?)", UUID.randomUUID(), Timestamp.from(NOW.minus(Duration.ofDays(10))));
+        jdbcTemplate.update("INSERT INTO alerts VALUES (?, 'OPEN', NULL)", UUID.randomUUID());
+
+        // When
+        service.enforce();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM alerts", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDeleteMessageBodiesOnlyAfterTheLongestRetention() {
+        // Given - ERROR keeps events for 90 days
+        insertMessage("stale", Duration.ofDays(93));
+        insertMessage("recent", Duration.ofDays(91));
+
+        // When
+        service.enforce();
+
+        // Then
+        assertThat(jdbcTemplate.queryForList("SELECT body FROM log_messages", String.class)).containsExactly("recent");
+    }
+
+    @Test
+    void shouldSkipChunkedDeletesOutsideTheWindow() {
+        // Given
+        insertEvent("api", "DEBUG", Duration.ofDays(2));
+        properties.setWindowStart(LocalTime.of(22, 0));
+        properties.setWindowEnd(LocalTime.of(2, 0));
+
+        // When
+        service.enforce();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM log_events", Long.class)).isEqualTo(1);
+        assertThat(properties.inWindow(LocalTime.of(23, 30))).isTrue();
+        assertThat(properties.inWindow(LocalTime.of(1, 59))).isTrue();
+    }
+
+    private void insertEvent(String service, String level, Duration age) {
+        jdbcTemplate.update("MERGE INTO services (name) KEY (name) VALUES (?)", service);
+        jdbcTemplate.update("INSERT INTO log_events (id, timestamp, level_id, service_id)"
+                        + " VALUES (?, ?, ?, (SELECT id FROM services WHERE name = ?))",
+                UUID.randomUUID(), Timestamp.from(NOW.minus(age)), LogLevel.valueOf(level).getCode(), service);
+    }
+
+    private void insertMessage(String body, Duration age) {
+        jdbcTemplate.update("INSERT INTO log_messages (hash, body, last_seen) VALUES (?, ?, ?)",
+                MessageStore.hash(body), body, Date.valueOf(LocalDate.ofInstant(NOW.minus(age), ZoneOffset.UTC)));
+    }
+}
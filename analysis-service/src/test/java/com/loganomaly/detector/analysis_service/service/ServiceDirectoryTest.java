@@ -0,0 +1,70 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.PersistenceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServiceDirectoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ServiceDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:services-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE services (id serial PRIMARY KEY, name varchar(100) UNIQUE)");
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("transactionManager", new DataSourceTransactionManager(dataSource));
+        PersistenceProperties properties = new PersistenceProperties();
+        properties.setServiceCacheSize(2);
+        directory = new ServiceDirectory(jdbcTemplate, beans.getBeanProvider(PlatformTransactionManager.class), properties);
+    }
+
+    @Test
+    void shouldRegisterServiceOnceAndResolveBothWays() {
+        // When
+        int id = directory.idOf("api");
+
+        // Then
+        assertThat(directory.idOf("api")).isEqualTo(id);
+        assertThat(directory.find("api")).isEqualTo(id);
+        assertThat(directory.nameOf(id)).isEqualTo("api");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM services", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRegisterServicesOnLookup() {
+        // When
+        Integer id = directory.find("no-such-service");
+
+        // Then
+        assertThat(id).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM services", Long.class)).isZero();
+        assertThatThrownBy(() -> directory.nameOf(42)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldResolveServicesEvictedFromTheCache() {
+        // Given - more services than the cache holds
+        int first = directory.idOf("a");
+        directory.idOf("b");
+        directory.idOf("c");
+
+        // When / Then - evicted, read back from the table
+        assertThat(directory.find("a")).isEqualTo(first);
+        assertThat(directory.nameOf(first)).isEqualTo("a");
+    }
+}
@@ -0,0 +1,128 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SilenceDetectionProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import com.loganomaly.detector.analysis_service.entity.LogEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SilenceDetectorServiceTest {
+
+    private static final Instant START = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private Clock clock;
+
+    private final AtomicLong now = new AtomicLong(START.toEpochMilli());
+    private SilenceDetectionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenAnswer(invocation -> now.get());
+        lenient().when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now.get()));
+        properties = new SilenceDetectionProperties();
+        properties.setDefaultInterval(Duration.ofMinutes(5));
+        properties.setIntervals(Map.of("payment-service", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void shouldAlertOnceWhenAServiceStopsLogging() {
+        // Given
+        SilenceDetectorService silence = new SilenceDetectorService(alertService, properties, clock);
+        silence.recordActivity(event("api-gateway"));
+
+        // When - still within the interval, then past it, then one more tick
+        advance(Duration.ofMinutes(4));
+        silence.tick();
+        verifyNoInteractions(alertService);
+        advance(Duration.ofMinutes(2));
+        silence.tick();
+        silence.tick();
+
+        // Then
+        ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+        verify(alertService).raise(alert.capture());
+        assertThat(alert.getValue().getType()).isEqualTo("SERVICE_SILENT");
+        assertThat(alert.getValue().getService()).isEqualTo("api-gateway");
+        assertThat(silence.trackedServices()).isZero();
+    }
+
+    @Test
+    void shouldPushTheDeadlineOnActivityAndUseTheServiceInterval() {
+        // Given
+        SilenceDetectorService silence = new SilenceDetectorService(alertService, properties, clock);
+        silence.recordActivity(event("api-gateway"));
+        silence.recordActivity(event("payment-service"));
+
+        // When - api-gateway keeps logging, payment-service stays quiet for 40s
+        for (int i = 0; i < 8; i++) {
+            advance(Duration.ofSeconds(5));
+            silence.recordActivity(event("api-gateway"));
+            silence.tick();
+        }
+
+        // Then
+        ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+        verify(alertService).raise(alert.capture());
+        assertThat(alert.getValue().getService()).isEqualTo("payment-service");
+    }
+
+    @Test
+    void shouldPushRestoredDeadlinesBackByTheDowntime() throws Exception {
+        // Given - a snapshot taken one minute into a five minute interval
+        SilenceDetectorService before = new SilenceDetectorService(alertService, properties, clock);
+        before.recordActivity(event("api-gateway"));
+        advance(Duration.ofMinutes(1));
+        long takenAt = now.get();
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        before.writeSnapshot(new DataOutputStream(snapshot));
+
+        // When - restored after ten minutes of downtime
+        advance(Duration.ofMinutes(10));
+        SilenceDetectorService after = new SilenceDetectorService(alertService, properties, clock);
+        after.restoreSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray())), takenAt);
+        advance(Duration.ofMinutes(3));
+        after.tick();
+
+        // Then - four minutes of the interval were left; the service is not silent yet
+        verify(alertService, never()).raise(any());
+        advance(Duration.ofMinutes(2));
+        after.tick();
+        verify(alertService).raise(any());
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toMillis());
+    }
+
+    private static LogEvent event(String service) {
+        return LogEvent.builder()
+                .service(service)
+                .level("INFO")
+                .message("ok")
+                .timestamp(START)
+                .build();
+    }
+}
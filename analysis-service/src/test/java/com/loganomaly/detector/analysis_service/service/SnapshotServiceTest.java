@@ -0,0 +1,149 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.SnapshotProperties;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SnapshotServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private SnapshotProperties properties;
+    private final LogEventWriter writer = mock(LogEventWriter.class);
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+    }
+
+    @Test
+    void shouldRestoreStateAndOffsets() {
+        // Given
+        CounterParticipant before = new CounterParticipant();
+        SnapshotService writer = snapshotService(before, NOW);
+        for (long offset = 0; offset < 42; offset++) {
+            writer.process("log-events", 3, offset, () -> before.count++);
+        }
+        assertThat(writer.snapshot()).isPositive();
+
+        // When
+        CounterParticipant after = new CounterParticipant();
+        SnapshotService reader = snapshotService(after, NOW.plusSeconds(30));
+        reader.restore();
+
+        // Then
+        assertThat(after.count).isEqualTo(42);
+        assertThat(after.takenAt).isEqualTo(NOW.toEpochMilli());
+        TopicPartition partition = new TopicPartition("log-events", 3);
+        assertThat(reader.takeRestoredOffsets(List.of(partition))).isEqualTo(Map.of(partition, 42L));
+        assertThat(reader.takeRestoredOffsets(List.of(partition))).isEmpty();
+        assertThat(Files.exists(directory.resolve("detector-state.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    void shouldFlushBufferedEventsBeforeSavingOffsets() {
+        // Given
+        CounterParticipant participant = new CounterParticipant();
+        SnapshotService service = snapshotService(participant, NOW);
+        service.process("log-events", 0, 5, () -> participant.count++);
+        doThrow(new DataAccessResourceFailureException("down")).when(writer).flush();
+
+        // When
+        long size = service.snapshot();
+
+        // Then - offset 6 is not saved while event 5 may still be unwritten
+        assertThat(size).isZero();
+        assertThat(Files.exists(directory.resolve("detector-state.snapshot"))).isFalse();
+        verify(writer).flush();
+    }
+
+    @Test
+    void shouldIgnoreCorruptSnapshot() throws IOException {
+        // Given
+        CounterParticipant before = new CounterParticipant();
+        before.count = 7;
+        snapshotService(before, NOW).snapshot();
+        Path file = directory.resolve("detector-state.snapshot");
+        byte[] content = Files.readAllBytes(file);
+        content[20] ^= 0x55;
+        Files.write(file, content);
+
+        // When
+        CounterParticipant after = new CounterParticipant();
+        SnapshotService reader = snapshotService(after, NOW);
+        reader.restore();
+
+        // Then
+        assertThat(after.count).isZero();
+    }
+
+    @Test
+    void shouldIgnoreStaleSnapshot() {
+        // Given
+        CounterParticipant before = new CounterParticipant();
+        before.count = 7;
+        snapshotService(before, NOW).snapshot();
+
+        // When
+        CounterParticipant after = new CounterParticipant();
+        snapshotService(after, NOW.plus(properties.getMaxAge()).plus(Duration.ofMinutes(1))).restore();
+
+        // Then
+        assertThat(after.count).isZero();
+    }
+
+    private SnapshotService snapshotService(SnapshotParticipant participant, Instant now) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("participant", participant);
+        ObjectProvider<SnapshotParticipant> participants = beans.getBeanProvider(SnapshotParticipant.class);
+        return new SnapshotService(properties, participants, writer, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static final class CounterParticipant implements SnapshotParticipant {
+        private long count;
+        private long takenAt;
+
+        @Override
+        public String snapshotName() {
+            return "counter";
+        }
+
+        @Override
+        public void writeSnapshot(DataOutput out) throws IOException {
+            out.writeLong(count);
+        }
+
+        @Override
+        public void restoreSnapshot(DataInput in, long takenAtMillis) throws IOException {
+            count = in.readLong();
+            takenAt = takenAtMillis;
+        }
+    }
+}
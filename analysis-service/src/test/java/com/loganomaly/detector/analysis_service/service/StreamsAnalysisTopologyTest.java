@@ -0,0 +1,119 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loganomaly.detector.analysis_service.config.EventTimeProperties;
+import com.loganomaly.detector.analysis_service.entity.Alert;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamsAnalysisTopologyTest {
+
+    private static final String TOPIC = "log-events";
+    private static final Instant START = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    private LogEventWriter logEventWriter;
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private EventRollupService rollups;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, String> input;
+
+    @BeforeEach
+    void setUp() {
+        StreamsAnalysisTopology topology = new StreamsAnalysisTopology(
+                new LogEventParser(new ObjectMapper()), logEventWriter, alertService, rollups,
+                new EventTimeProperties(), Clock.fixed(START, ZoneOffset.UTC), TOPIC, 3, 1);
+        StreamsBuilder builder = new StreamsBuilder();
+        topology.build(builder);
+        driver = new TopologyTestDriver(builder.build());
+        input = driver.createInputTopic(TOPIC, new StringSerializer(), new StringSerializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void shouldRaiseOneAlertWhenWindowCrossesThreshold() {
+        // Given / When - 6 errors in one minute, threshold 3
+        for (int i = 0; i < 6; i++) {
+            input.pipeInput(null, message("db-service", "ERROR", START.plusSeconds(i)));
+        }
+
+        // Then
+        ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+        verify(alertService, times(1)).raise(alert.capture());
+        assertThat(alert.getValue().getType()).isEqualTo("HIGH_ERROR_RATE");
+        assertThat(alert.getValue().getService()).isEqualTo("db-service");
+        assertThat(alert.getValue().getFingerprint())
+                .isEqualTo(AlertService.fingerprint("HIGH_ERROR_RATE", "db-service", "ERROR"));
+        assertThat(alert.getValue().getMessage()).startsWith("High error rate detected: 4 ERROR events from service 'db-service'");
+        verify(logEventWriter, times(6)).store(any());
+    }
+
+    @Test
+    void shouldCountByEventTimeWindowAndService() {
+        // Given / When - errors spread over two windows and two services, none above 3
+        for (int i = 0; i < 3; i++) {
+            input.pipeInput(null, message("db-service", "ERROR", START.plusSeconds(i)));
+            input.pipeInput(null, message("db-service", "FATAL", START.plusSeconds(60 + i)));
+            input.pipeInput(null, message("api-service", "ERROR", START.plusSeconds(i)));
+            input.pipeInput(null, message("api-service", "INFO", START.plusSeconds(i)));
+        }
+
+        // Then
+        verify(alertService, never()).raise(any());
+    }
+
+    @Test
+    void shouldCountErrorAndFatalSeparately() {
+        // Given / When - 6 errors in one minute, but split over two levels
+        for (int i = 0; i < 3; i++) {
+            input.pipeInput(null, message("db-service", "ERROR", START.plusSeconds(i)));
+            input.pipeInput(null, message("db-service", "FATAL", START.plusSeconds(i)));
+        }
+
+        // Then
+        verify(alertService, never()).raise(any());
+    }
+
+    @Test
+    void shouldDropUnparseableMessages() {
+        // When
+        input.pipeInput(null, "not json");
+
+        // Then
+        verifyNoInteractions(logEventWriter, alertService);
+    }
+
+    private static String message(String service, String level, Instant timestamp) {
+        return String.format(
+                "{\"id\":\"%s\",\"event\":{\"timestamp\":\"%s\",\"level\":\"%s\",\"message\":\"boom\",\"service\":\"%s\"}}",
+                UUID.randomUUID(), timestamp, level, service);
+    }
+}
@@ -0,0 +1,62 @@
+package com.loganomaly.detector.analysis_service.service;
+
+import com.loganomaly.detector.analysis_service.config.EventTimeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WatermarkServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+    private static final TopicPartition MAIN = new TopicPartition("log-events", 0);
+    private static final TopicPartition RETRY = new TopicPartition("log-events-retry-1000", 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private WatermarkService watermarks;
+
+    @BeforeEach
+    void setUp() {
+        EventTimeProperties properties = new EventTimeProperties();
+        properties.setMaxOutOfOrderness(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        watermarks = new WatermarkService(properties, Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry);
+    }
+
+    @Test
+    void shouldTrackRetryTopicPartitionSeparatelyFromTheMainTopic() {
+        // Given - partition 0 of the retry topic lags behind partition 0 of the main topic
+        watermarks.observe(RETRY, 10_000);
+
+        // When
+        long watermark = watermarks.observe(MAIN, 50_000);
+
+        // Then
+        assertThat(watermark).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldStopHoldingBackForRevokedPartitions() {
+        // Given
+        watermarks.observe(RETRY, 10_000);
+        watermarks.observe(MAIN, 50_000);
+
+        // When
+        watermarks.removePartitions(List.of(RETRY));
+        long watermark = watermarks.observe(MAIN, 60_000);
+
+        // Then
+        assertThat(watermark).isEqualTo(60_000);
+        assertThat(meterRegistry.get("analysis.watermark").gauge().value()).isEqualTo(60_000);
+        assertThat(meterRegistry.get("analysis.watermark.lag").gauge().value())
+                .isEqualTo(NOW.toEpochMilli() - 60_000.0);
+    }
+}